@@ -25,4 +25,10 @@ public interface ConditionalExecutionQueueFactory {
      * return the provided result class.
      */
     <T> ConditionalExecutionQueue<T> create(String displayName, Class<T> resultClass);
+
+    /**
+     * Provides a {@link ConditionalExecutionQueue} that keeps a deque of executions per worker thread and lets idle workers
+     * steal executions from busy ones.  This suits large numbers of short executions better than {@link #create(String, Class)}.
+     */
+    <T> ConditionalExecutionQueue<T> createWorkStealing(String displayName, Class<T> resultClass);
 }
@@ -35,4 +35,9 @@ public DefaultConditionalExecutionQueueFactory(ParallelismConfiguration parallel
     public <T> ConditionalExecutionQueue<T> create(String displayName, Class<T> resultClass) {
         return new DefaultConditionalExecutionQueue<T>(displayName, parallelismConfiguration.getMaxWorkerCount(), executorFactory, coordinationService);
     }
+
+    @Override
+    public <T> ConditionalExecutionQueue<T> createWorkStealing(String displayName, Class<T> resultClass) {
+        return new WorkStealingConditionalExecutionQueue<T>(displayName, parallelismConfiguration.getMaxWorkerCount(), executorFactory, coordinationService);
+    }
 }
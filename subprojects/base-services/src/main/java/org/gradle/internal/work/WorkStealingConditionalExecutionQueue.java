@@ -0,0 +1,397 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.Transformer;
+import org.gradle.internal.MutableReference;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.resources.ResourceLockCoordinationService;
+import org.gradle.internal.resources.ResourceLockState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
+
+/**
+ * A {@link ConditionalExecutionQueue} where each worker thread owns a deque of executions.  Executions submitted
+ * from a worker thread (i.e. work that submits other work) go to the head of that worker's deque, executions
+ * submitted from other threads are distributed round-robin across the workers.  A worker takes executions from
+ * the head of its own deque and, when it has nothing it can run, steals from the tail of the other deques.
+ *
+ * An execution is only taken from a deque once its resource lock (usually a worker lease) has been acquired, so
+ * stealing never hands a worker an execution that it then has to wait on.
+ *
+ * The time executions spend waiting in the queue is recorded and available via {@link #getStatistics()}.
+ */
+public class WorkStealingConditionalExecutionQueue<T> implements ConditionalExecutionQueue<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkStealingConditionalExecutionQueue.class);
+    public static final int KEEP_ALIVE_TIME_MS = 2000;
+    private enum QueueState {
+        Working, Stopped
+    }
+
+    private final String displayName;
+    private final int maxWorkers;
+    private final ResourceLockCoordinationService coordinationService;
+    private final ManagedExecutor executor;
+    private final ThreadLocal<WorkerDeque> currentWorker = new ThreadLocal<WorkerDeque>();
+    // Executions submitted before any worker has registered its deque, or left behind by a worker that has finished
+    private final Deque<QueuedExecution> unassigned = new ConcurrentLinkedDeque<QueuedExecution>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final QueueWaitStatistics statistics = new QueueWaitStatistics();
+    // Guards the set of registered workers and the worker count
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final List<WorkerDeque> workers = Lists.newCopyOnWriteArrayList();
+    private volatile QueueState queueState = QueueState.Working;
+    private volatile int workerCount;
+    private int nextWorker;
+
+    public WorkStealingConditionalExecutionQueue(String displayName, int maxWorkers, ExecutorFactory executorFactory, ResourceLockCoordinationService coordinationService) {
+        this.displayName = displayName;
+        this.maxWorkers = maxWorkers;
+        this.executor = executorFactory.create(displayName);
+        this.coordinationService = coordinationService;
+
+        executor.setKeepAlive(KEEP_ALIVE_TIME_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void submit(ConditionalExecution<T> execution) {
+        if (queueState == QueueState.Stopped) {
+            throw new IllegalStateException("WorkStealingConditionalExecutionQueue cannot be reused once it has been stopped.");
+        }
+
+        QueuedExecution queued = new QueuedExecution(execution);
+        lock.lock();
+        try {
+            // expand the thread pool until we hit max workers
+            if (workerCount < maxWorkers) {
+                expand(true);
+            }
+
+            WorkerDeque owner = currentWorker.get();
+            if (owner != null && workers.contains(owner)) {
+                // Work submitted by a work item is most likely to be waited on by that item, so keep it local
+                owner.executions.addFirst(queued);
+            } else if (!workers.isEmpty()) {
+                nextWorker = (nextWorker + 1) % workers.size();
+                workers.get(nextWorker).executions.addLast(queued);
+            } else {
+                unassigned.addLast(queued);
+            }
+            queuedCount.incrementAndGet();
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        // Wake up any worker that is blocked waiting for a resource lock of an execution already in the queue
+        coordinationService.notifyStateChange();
+    }
+
+    @Override
+    public void expand() {
+        expand(false);
+    }
+
+    /**
+     * See {@link DefaultConditionalExecutionQueue} for why the thread pool needs to expand when work items wait on other work.
+     */
+    private void expand(boolean force) {
+        lock.lock();
+        try {
+            // Only expand the thread pool if there is work in the queue or we know that work is about to be submitted (i.e. force == true)
+            if (force || queuedCount.get() > 0) {
+                executor.submit(new ExecutionRunner());
+                workerCount++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            queueState = QueueState.Stopped;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        executor.stop();
+        if (statistics.getExecutionCount() > 0) {
+            LOGGER.debug("{}: {}", displayName, statistics);
+        }
+    }
+
+    /**
+     * Returns the queue wait time statistics for the executions that have been started by this queue.
+     */
+    public QueueWaitStatistics getStatistics() {
+        return statistics;
+    }
+
+    int getWorkerCount() {
+        return workerCount;
+    }
+
+    private class WorkerDeque {
+        final Deque<QueuedExecution> executions = new ConcurrentLinkedDeque<QueuedExecution>();
+    }
+
+    private class QueuedExecution {
+        final ConditionalExecution<T> execution;
+        final long queuedAt = System.nanoTime();
+
+        QueuedExecution(ConditionalExecution<T> execution) {
+            this.execution = execution;
+        }
+    }
+
+    /**
+     * ExecutionRunners process items from their own deque, then stealing from other workers, until there are no items left,
+     * at which point they will either wait for new items to arrive (if there are < max workers threads running) or exit.
+     */
+    private class ExecutionRunner implements Runnable {
+        private final WorkerDeque deque = new WorkerDeque();
+
+        @Override
+        public void run() {
+            register();
+            try {
+                QueuedExecution execution;
+                while ((execution = waitForNextExecution()) != null) {
+                    runBatch(execution);
+                }
+            } finally {
+                shutDown();
+            }
+        }
+
+        private void register() {
+            currentWorker.set(deque);
+            lock.lock();
+            try {
+                workers.add(deque);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        private QueuedExecution waitForNextExecution() {
+            lock.lock();
+            try {
+                // Wait for work to be submitted if the queue is empty and our worker count is under max workers
+                // This attempts to keep up to max workers threads alive once they've been started.
+                while (queueState == QueueState.Working && queuedCount.get() == 0 && (workerCount <= maxWorkers)) {
+                    try {
+                        workAvailable.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            return getReadyExecution();
+        }
+
+        /**
+         * Run executions until there are none ready to be executed.
+         */
+        private void runBatch(QueuedExecution firstExecution) {
+            QueuedExecution execution = firstExecution;
+            while (execution != null) {
+                runExecution(execution);
+                execution = getReadyExecution();
+            }
+        }
+
+        /**
+         * Gets the next execution whose resource lock can be acquired, looking first at the head of this worker's deque,
+         * then at executions not yet assigned to a worker and finally at the tail of the other workers' deques.
+         */
+        @Nullable
+        private QueuedExecution getReadyExecution() {
+            final MutableReference<QueuedExecution> execution = MutableReference.empty();
+            coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                @Override
+                public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                    if (queuedCount.get() == 0) {
+                        return ResourceLockState.Disposition.FINISHED;
+                    }
+
+                    QueuedExecution next = takeReady(deque.executions.iterator());
+                    if (next == null) {
+                        next = takeReady(unassigned.iterator());
+                    }
+                    if (next == null) {
+                        next = steal();
+                    }
+
+                    if (next == null) {
+                        return ResourceLockState.Disposition.RETRY;
+                    }
+                    execution.set(next);
+                    return ResourceLockState.Disposition.FINISHED;
+                }
+            });
+
+            return execution.get();
+        }
+
+        @Nullable
+        private QueuedExecution steal() {
+            for (WorkerDeque victim : workers) {
+                if (victim != deque) {
+                    QueuedExecution stolen = takeReady(victim.executions.descendingIterator());
+                    if (stolen != null) {
+                        statistics.stolen();
+                        return stolen;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        private QueuedExecution takeReady(Iterator<QueuedExecution> candidates) {
+            while (candidates.hasNext()) {
+                QueuedExecution candidate = candidates.next();
+                if (candidate.execution.getResourceLock().tryLock()) {
+                    // Only one worker can be inside the state lock, so no other worker can take this execution concurrently
+                    candidates.remove();
+                    queuedCount.decrementAndGet();
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Executes a conditional execution and then releases its resource lock
+         */
+        private void runExecution(QueuedExecution queued) {
+            statistics.started(System.nanoTime() - queued.queuedAt);
+            ConditionalExecution<T> execution = queued.execution;
+            try {
+                execution.getExecution().run();
+            } finally {
+                coordinationService.withStateLock(unlock(execution.getResourceLock()));
+                execution.complete();
+            }
+        }
+
+        private void shutDown() {
+            currentWorker.remove();
+            lock.lock();
+            try {
+                // No further executions are submitted to this worker once it is no longer registered
+                workers.remove(deque);
+                workerCount--;
+            } finally {
+                lock.unlock();
+            }
+            coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                @Override
+                public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                    // Anything still assigned to this worker becomes available to the remaining workers. Other workers may still
+                    // be stealing from this deque, so move the executions while holding the state lock, as they do.
+                    QueuedExecution leftOver;
+                    while ((leftOver = deque.executions.pollFirst()) != null) {
+                        unassigned.addLast(leftOver);
+                    }
+                    return ResourceLockState.Disposition.FINISHED;
+                }
+            });
+            lock.lock();
+            try {
+                workAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            coordinationService.notifyStateChange();
+        }
+    }
+
+    /**
+     * Statistics about the time executions spend in the queue between being submitted and being started.
+     */
+    public static class QueueWaitStatistics {
+        private final AtomicLong executionCount = new AtomicLong();
+        private final AtomicLong stolenCount = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void started(long waitNanos) {
+            executionCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            long max = maxWaitNanos.get();
+            while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+                max = maxWaitNanos.get();
+            }
+        }
+
+        void stolen() {
+            stolenCount.incrementAndGet();
+        }
+
+        public long getExecutionCount() {
+            return executionCount.get();
+        }
+
+        public long getStolenCount() {
+            return stolenCount.get();
+        }
+
+        public long getTotalWaitTime(TimeUnit unit) {
+            return unit.convert(totalWaitNanos.get(), TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxWaitTime(TimeUnit unit) {
+            return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+        }
+
+        public long getAverageWaitTime(TimeUnit unit) {
+            long count = executionCount.get();
+            return count == 0 ? 0 : unit.convert(totalWaitNanos.get() / count, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d executions (%d stolen), queue wait total %dms, average %dms, max %dms",
+                getExecutionCount(), getStolenCount(), getTotalWaitTime(TimeUnit.MILLISECONDS), getAverageWaitTime(TimeUnit.MILLISECONDS), getMaxWaitTime(TimeUnit.MILLISECONDS));
+        }
+    }
+}
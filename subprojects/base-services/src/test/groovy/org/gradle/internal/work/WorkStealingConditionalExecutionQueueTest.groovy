@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.resources.ResourceLock
+import org.gradle.internal.resources.ResourceLockCoordinationService
+import org.gradle.internal.resources.ResourceLockState
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.Callable
+import java.util.concurrent.TimeUnit
+
+class WorkStealingConditionalExecutionQueueTest extends ConcurrentSpec {
+    private static final DISPLAY_NAME = "Test Execution Queue"
+    private static final int MAX_WORKERS = 4
+    ResourceLockCoordinationService coordinationService = new DefaultResourceLockCoordinationService()
+    WorkStealingConditionalExecutionQueue queue = new WorkStealingConditionalExecutionQueue(DISPLAY_NAME, MAX_WORKERS, new DefaultExecutorFactory(), coordinationService)
+
+    def cleanup() {
+        queue.stop()
+    }
+
+    def "runs work submitted by an execution on the same worker, most recently submitted first"() {
+        def child1 = testExecution({
+            instant.child1Started
+        })
+        def child2 = testExecution({
+            instant.child2Started
+        })
+        def parent = testExecution({
+            release(child1)
+            release(child2)
+            queue.submit(child1)
+            queue.submit(child2)
+        })
+        queue = new WorkStealingConditionalExecutionQueue(DISPLAY_NAME, 1, new DefaultExecutorFactory(), coordinationService)
+
+        when:
+        async {
+            start {
+                release(parent)
+                queue.submit(parent)
+                parent.await()
+                child1.await()
+                child2.await()
+            }
+        }
+
+        then:
+        instant.child2Started < instant.child1Started
+
+        and:
+        queue.statistics.executionCount == 3
+        queue.statistics.stolenCount == 0
+    }
+
+    def "work submitted by an execution can be stolen by another worker while the submitting execution waits"() {
+        def child = testExecution({
+            instant.childStarted
+        })
+        def parent = testExecution({
+            release(child)
+            queue.submit(child)
+            queue.expand()
+            child.await()
+            instant.parentFinished
+        })
+        queue = new WorkStealingConditionalExecutionQueue(DISPLAY_NAME, 1, new DefaultExecutorFactory(), coordinationService)
+
+        when:
+        async {
+            start {
+                release(parent)
+                queue.submit(parent)
+                parent.await()
+            }
+        }
+
+        then:
+        instant.childStarted < instant.parentFinished
+
+        and:
+        queue.statistics.executionCount == 2
+        queue.statistics.stolenCount == 1
+    }
+
+    def "an idle worker steals the oldest ready execution of a busy worker first"() {
+        def child1 = testExecution({
+            instant.child1Started
+        })
+        def child2 = testExecution({
+            instant.child2Started
+        })
+        def parent = testExecution({
+            queue.submit(child1)
+            queue.submit(child2)
+            // Make both children ready at once, so that the idle worker can choose between them
+            coordinationService.withStateLock {
+                child1.canExecute = true
+                child2.canExecute = true
+                ResourceLockState.Disposition.FINISHED
+            }
+            coordinationService.notifyStateChange()
+            child1.await()
+            child2.await()
+            instant.parentFinished
+        })
+        queue = new WorkStealingConditionalExecutionQueue(DISPLAY_NAME, 2, new DefaultExecutorFactory(), coordinationService)
+
+        when:
+        async {
+            start {
+                release(parent)
+                queue.submit(parent)
+                parent.await()
+            }
+        }
+
+        then:
+        instant.child1Started < instant.child2Started
+        instant.child2Started < instant.parentFinished
+
+        and:
+        queue.statistics.executionCount == 3
+        queue.statistics.stolenCount == 2
+    }
+
+    def "records queue wait time of started executions"() {
+        def executions = (1..10).collect { testExecution({}) }
+
+        when:
+        executions.each { queue.submit(it) }
+        Thread.sleep(20)
+        executions.each { release(it) }
+        executions.each { it.await() }
+
+        then:
+        queue.statistics.executionCount == 10
+        queue.statistics.getMaxWaitTime(TimeUnit.MILLISECONDS) >= 20
+        queue.statistics.getTotalWaitTime(TimeUnit.NANOSECONDS) >= queue.statistics.getMaxWaitTime(TimeUnit.NANOSECONDS)
+    }
+
+    void release(TestExecution execution) {
+        execution.setCanExecute(true)
+        coordinationService.notifyStateChange()
+    }
+
+    TestExecution testExecution(Callable<String> callable) {
+        return new TestExecution(callable, new SimpleResourceLock())
+    }
+
+    class TestExecution extends AbstractConditionalExecution {
+        final SimpleResourceLock resourceLock
+
+        TestExecution(Callable callable, SimpleResourceLock resourceLock) {
+            super(callable, resourceLock)
+            this.resourceLock = resourceLock
+        }
+
+        void setCanExecute(boolean canExecute) {
+            this.resourceLock.canExecute = canExecute
+        }
+    }
+
+    class SimpleResourceLock implements ResourceLock {
+        boolean canExecute
+        boolean released
+        boolean locked
+
+        @Override
+        boolean isLocked() {
+            return false
+        }
+
+        @Override
+        boolean isLockedByCurrentThread() {
+            return true
+        }
+
+        @Override
+        boolean tryLock() {
+            if (canExecute && !locked) {
+                locked = true
+                return true
+            } else {
+                return false
+            }
+        }
+
+        @Override
+        void unlock() {
+            locked = false
+            released = true
+            canExecute = false
+        }
+
+        @Override
+        String getDisplayName() {
+            return "simple lock"
+        }
+    }
+}
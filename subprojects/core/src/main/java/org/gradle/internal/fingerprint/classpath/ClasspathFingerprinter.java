@@ -16,6 +16,7 @@
 
 package org.gradle.internal.fingerprint.classpath;
 
+import org.gradle.api.internal.changedetection.state.ConfigurableNormalizer;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprinter;
 import org.gradle.internal.fingerprint.impl.RelativePathFileCollectionFingerprinter;
@@ -23,7 +24,10 @@
 /**
  * Responsible for calculating a {@link FileCollectionFingerprint} for a {@link org.gradle.api.file.FileCollection} representing a Java classpath. Compared to {@link RelativePathFileCollectionFingerprinter} this fingerprinter orders files within any sub-tree.
  *
+ * The configuration of a classpath fingerprinter, which is what a project's runtime classpath normalization changes, can be appended to a hasher to
+ * tell apart fingerprinters that normalize differently.
+ *
  * @see org.gradle.api.tasks.Classpath
  */
-public interface ClasspathFingerprinter extends FileCollectionFingerprinter {
+public interface ClasspathFingerprinter extends FileCollectionFingerprinter, ConfigurableNormalizer {
 }
@@ -25,8 +25,11 @@
 import org.gradle.internal.fingerprint.FileCollectionSnapshotter;
 import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter;
 import org.gradle.internal.fingerprint.impl.AbstractFileCollectionFingerprinter;
+import org.gradle.internal.hash.Hasher;
 
 public class DefaultClasspathFingerprinter extends AbstractFileCollectionFingerprinter implements ClasspathFingerprinter {
+    private final ResourceFilter classpathResourceFilter;
+
     public DefaultClasspathFingerprinter(
         ResourceSnapshotterCacheService cacheService,
         FileCollectionSnapshotter fileCollectionSnapshotter,
@@ -40,6 +43,13 @@ public DefaultClasspathFingerprinter(
             stringInterner
             ),
             fileCollectionSnapshotter);
+        this.classpathResourceFilter = classpathResourceFilter;
+    }
+
+    @Override
+    public void appendConfigurationToHasher(Hasher hasher) {
+        hasher.putString(getClass().getName());
+        classpathResourceFilter.appendConfigurationToHasher(hasher);
     }
 
     @Override
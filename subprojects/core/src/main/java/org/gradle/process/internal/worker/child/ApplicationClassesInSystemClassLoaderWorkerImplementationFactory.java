@@ -29,6 +29,8 @@
 import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddress;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddressSerializer;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
 import org.gradle.internal.stream.EncodedStream;
 import org.gradle.process.internal.JavaExecHandleBuilder;
@@ -134,7 +136,12 @@ public void prepareJavaCommand(Object workerId, String displayName, WorkerProces
             encoder.writeSmallInt(logLevel.ordinal());
             encoder.writeBoolean(publishProcessInfo);
             encoder.writeString(gradleUserHomeDir.getAbsolutePath());
-            new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
+            encoder.writeBoolean(serverAddress instanceof SharedMemoryAddress);
+            if (serverAddress instanceof SharedMemoryAddress) {
+                new SharedMemoryAddressSerializer().write(encoder, (SharedMemoryAddress) serverAddress);
+            } else {
+                new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
+            }
 
             // Serialize the worker, this is consumed by SystemApplicationClassLoaderWorker
             ActionExecutionWorker worker = new ActionExecutionWorker(processBuilder.getWorker(), workerId, displayName);
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares reading a POM with the streaming parser to building a DOM for it, as was done previously.
+ *
+ * Run with {@code -prof gc} to compare the allocation rate of both approaches.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class PomParserBenchmark {
+    private static final String SYSTEM_ID = "file:/pom.xml";
+
+    @Param({"10", "200"})
+    int dependencyCount;
+
+    private byte[] pom;
+    private DocumentBuilderFactory documentBuilderFactory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pom = generatePom(dependencyCount).getBytes(StandardCharsets.UTF_8);
+        documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setValidating(false);
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) throws Exception {
+        bh.consume(PomStaxParser.parse(new ByteArrayInputStream(pom), SYSTEM_ID));
+    }
+
+    @Benchmark
+    public void dom(Blackhole bh) throws Exception {
+        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        Document document = documentBuilder.parse(new ByteArrayInputStream(pom), SYSTEM_ID);
+        bh.consume(document.getDocumentElement());
+    }
+
+    /**
+     * Generates a POM in the shape of a typical library POM: coordinates, a parent, properties, managed and direct dependencies,
+     * along with the build, licensing and SCM information that is not needed for dependency resolution.
+     */
+    private static String generatePom(int dependencyCount) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        builder.append("  <modelVersion>4.0.0</modelVersion>\n");
+        builder.append("  <parent><groupId>org.example</groupId><artifactId>parent</artifactId><version>1.0</version></parent>\n");
+        builder.append("  <artifactId>library</artifactId>\n");
+        builder.append("  <name>Library</name>\n");
+        builder.append("  <description>A library with a long description that is of no interest for dependency resolution.</description>\n");
+        builder.append("  <licenses><license><name>The Apache Software License, Version 2.0</name><url>http://www.apache.org/licenses/LICENSE-2.0.txt</url></license></licenses>\n");
+        builder.append("  <scm><url>https://example.org/library</url><connection>scm:git:https://example.org/library.git</connection></scm>\n");
+        builder.append("  <developers>\n");
+        for (int i = 0; i < 10; i++) {
+            builder.append("    <developer><id>dev").append(i).append("</id><name>Developer ").append(i).append("</name><email>dev").append(i).append("@example.org</email></developer>\n");
+        }
+        builder.append("  </developers>\n");
+        builder.append("  <properties>\n");
+        for (int i = 0; i < dependencyCount; i++) {
+            builder.append("    <lib").append(i).append(".version>").append(i).append(".0</lib").append(i).append(".version>\n");
+        }
+        builder.append("  </properties>\n");
+        builder.append("  <dependencyManagement><dependencies>\n");
+        for (int i = 0; i < dependencyCount; i++) {
+            appendDependency(builder, i, "${lib" + i + ".version}");
+        }
+        builder.append("  </dependencies></dependencyManagement>\n");
+        builder.append("  <dependencies>\n");
+        for (int i = 0; i < dependencyCount; i += 2) {
+            appendDependency(builder, i, null);
+        }
+        builder.append("  </dependencies>\n");
+        builder.append("  <build><plugins>\n");
+        for (int i = 0; i < 10; i++) {
+            builder.append("    <plugin><groupId>org.apache.maven.plugins</groupId><artifactId>plugin-").append(i).append("</artifactId><version>1.0</version>");
+            builder.append("<configuration><source>1.8</source><target>1.8</target><compilerArgs><arg>-Xlint:all</arg></compilerArgs></configuration></plugin>\n");
+        }
+        builder.append("  </plugins></build>\n");
+        builder.append("</project>\n");
+        return builder.toString();
+    }
+
+    private static void appendDependency(StringBuilder builder, int index, String version) {
+        builder.append("    <dependency><groupId>org.example.group").append(index % 10).append("</groupId><artifactId>lib").append(index).append("</artifactId>");
+        if (version != null) {
+            builder.append("<version>").append(version).append("</version>");
+        }
+        builder.append("<exclusions><exclusion><groupId>commons-logging</groupId><artifactId>commons-logging</artifactId></exclusion></exclusions>");
+        builder.append("</dependency>\n");
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.CachingExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.InterningExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.NormalizingExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.OptimizingExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Merges excludes the way the graph traversal does for a graph in the shape of a Spring or Hadoop
+ * based application: most modules exclude a few entries from a small pool of logging, servlet and
+ * test libraries, and each node combines the excludes of all the paths leading to it.
+ *
+ * Compares the exclude factory chain used for resolution with the same chain without interning.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ExcludeMergingBenchmark {
+    private static final String[][] COMMON_EXCLUDES = {
+        {"commons-logging", "commons-logging"},
+        {"log4j", "log4j"},
+        {"org.slf4j", "slf4j-log4j12"},
+        {"org.slf4j", "slf4j-simple"},
+        {"javax.servlet", "servlet-api"},
+        {"javax.servlet", "jsp-api"},
+        {"org.mortbay.jetty", "*"},
+        {"com.sun.jersey", "*"},
+        {"tomcat", "*"},
+        {"junit", "junit"},
+        {"org.hamcrest", "*"},
+        {"com.google.guava", "guava"},
+        {"io.netty", "netty"},
+        {"*", "jdk.tools"},
+        {"org.apache.hadoop", "hadoop-yarn-server-*"},
+    };
+
+    @Param({"200", "1000"})
+    int nodeCount;
+
+    @Benchmark
+    public void interned(Blackhole bh) {
+        mergeGraph(createChain(true), bh);
+    }
+
+    @Benchmark
+    public void notInterned(Blackhole bh) {
+        mergeGraph(createChain(false), bh);
+    }
+
+    private void mergeGraph(ExcludeFactory factory, Blackhole bh) {
+        Random random = new Random(42);
+        List<ExcludeSpec> nodeExcludes = Lists.newArrayListWithCapacity(nodeCount);
+        nodeExcludes.add(factory.nothing());
+        for (int node = 1; node < nodeCount; node++) {
+            // Each node is reached from a few of the nodes created before it
+            int incoming = 1 + random.nextInt(4);
+            Set<ExcludeSpec> paths = Sets.newHashSetWithExpectedSize(incoming);
+            for (int i = 0; i < incoming; i++) {
+                ExcludeSpec fromParent = nodeExcludes.get(random.nextInt(node));
+                paths.add(factory.anyOf(fromParent, edgeExcludes(factory, random)));
+            }
+            ExcludeSpec excludes = paths.size() == 1 ? paths.iterator().next() : factory.allOf(paths);
+            nodeExcludes.add(excludes);
+        }
+        bh.consume(nodeExcludes);
+    }
+
+    private static ExcludeSpec edgeExcludes(ExcludeFactory factory, Random random) {
+        int count = random.nextInt(4);
+        if (count == 0) {
+            return factory.nothing();
+        }
+        Set<ExcludeSpec> specs = Sets.newHashSetWithExpectedSize(count);
+        for (int i = 0; i < count; i++) {
+            String[] exclude = COMMON_EXCLUDES[random.nextInt(COMMON_EXCLUDES.length)];
+            specs.add(leaf(factory, exclude[0], exclude[1]));
+        }
+        return specs.size() == 1 ? specs.iterator().next() : factory.anyOf(specs);
+    }
+
+    private static ExcludeSpec leaf(ExcludeFactory factory, String group, String module) {
+        if ("*".equals(group)) {
+            return factory.module(module);
+        }
+        if ("*".equals(module)) {
+            return factory.group(group);
+        }
+        return factory.moduleId(DefaultModuleIdentifier.newId(group, module));
+    }
+
+    /**
+     * The same chain as {@link ModuleExclusions}, with fresh caches for each invocation.
+     */
+    private static ExcludeFactory createChain(boolean interning) {
+        CachingExcludeFactory.MergeCaches mergeCaches = new CachingExcludeFactory.MergeCaches();
+        ExcludeFactory leaf = interning ? new InterningExcludeFactory(new DefaultExcludeFactory()) : new DefaultExcludeFactory();
+        return new OptimizingExcludeFactory(
+            new CachingExcludeFactory(
+                new NormalizingExcludeFactory(
+                    new CachingExcludeFactory(leaf, mergeCaches)
+                ),
+                mergeCaches
+            )
+        );
+    }
+}
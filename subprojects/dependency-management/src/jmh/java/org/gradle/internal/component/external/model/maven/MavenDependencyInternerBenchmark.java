@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.component.external.model.maven;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.external.descriptor.MavenScope;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the dependencies of many versions of the modules of a multi-module library, the way the module metadata
+ * cache does when resolving a large graph: most versions declare the same dependencies as their neighbours.
+ *
+ * Compares interning the dependencies with keeping a copy for each component. Run with {@code -prof gc} to compare
+ * the memory allocated and collected for each load.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class MavenDependencyInternerBenchmark {
+    private static final int MODULE_COUNT = 50;
+    private static final int VERSION_COUNT = 40;
+    private static final int DEPENDENCY_COUNT = 30;
+
+    @Param({"true", "false"})
+    boolean interning;
+
+    private MavenDependencyInterner interner;
+    private List<ImmutableList<MavenDependencyDescriptor>> components;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        interner = new MavenDependencyInterner();
+        components = new ArrayList<>(MODULE_COUNT * VERSION_COUNT);
+    }
+
+    @Benchmark
+    public List<ImmutableList<MavenDependencyDescriptor>> loadComponents() {
+        components.clear();
+        for (int module = 0; module < MODULE_COUNT; module++) {
+            for (int version = 0; version < VERSION_COUNT; version++) {
+                List<MavenDependencyDescriptor> dependencies = readDependencies(module, version);
+                components.add(interning ? interner.internAll(dependencies) : ImmutableList.copyOf(dependencies));
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Loads the components into an empty heap. The {@code retainedKiB} counter reports the heap still used by the
+     * components and the interner after a garbage collection.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public List<ImmutableList<MavenDependencyDescriptor>> retainComponents(RetainedHeap retainedHeap) {
+        interner = null;
+        components = null;
+        long usedBefore = usedHeapAfterGc();
+        interner = new MavenDependencyInterner();
+        components = new ArrayList<>(MODULE_COUNT * VERSION_COUNT);
+        loadComponents();
+        retainedHeap.retainedKiB = (usedHeapAfterGc() - usedBefore) / 1024;
+        return components;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RetainedHeap {
+        public long retainedKiB;
+    }
+
+    /**
+     * Creates new descriptors for each component, as parsing a POM or reading the metadata cache does.
+     * Modules share a common set of dependencies, and every tenth version upgrades one of them.
+     */
+    private static List<MavenDependencyDescriptor> readDependencies(int module, int version) {
+        List<MavenDependencyDescriptor> dependencies = new ArrayList<>(DEPENDENCY_COUNT);
+        for (int i = 0; i < DEPENDENCY_COUNT; i++) {
+            String dependencyVersion = i == module % DEPENDENCY_COUNT ? "1." + version / 10 : "1.0";
+            List<ExcludeMetadata> excludes = ImmutableList.of(new DefaultExclude(DefaultModuleIdentifier.newId("commons-logging", "commons-logging")));
+            dependencies.add(new MavenDependencyDescriptor(
+                i % 3 == 0 ? MavenScope.Runtime : MavenScope.Compile,
+                MavenDependencyType.DEPENDENCY,
+                DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org.example", "lib" + i), dependencyVersion),
+                null,
+                excludes));
+        }
+        return dependencies;
+    }
+}
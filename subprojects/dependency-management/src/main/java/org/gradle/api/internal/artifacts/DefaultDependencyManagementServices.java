@@ -60,6 +60,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.LocalComponentMetadataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.LocalConfigurationMetadataBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.CachedArtifactVerifier;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
@@ -81,6 +82,7 @@
 import org.gradle.api.internal.artifacts.transform.DefaultVariantTransformRegistry;
 import org.gradle.api.internal.artifacts.transform.ExecutionGraphDependenciesResolver;
 import org.gradle.api.internal.artifacts.transform.ImmutableCachingTransformationWorkspaceProvider;
+import org.gradle.api.internal.artifacts.transform.IsolatedTransformParametersCache;
 import org.gradle.api.internal.artifacts.transform.MutableCachingTransformationWorkspaceProvider;
 import org.gradle.api.internal.artifacts.transform.MutableTransformationWorkspaceProvider;
 import org.gradle.api.internal.artifacts.transform.Transformation;
@@ -390,6 +392,7 @@ TransformerInvocationFactory createTransformerInvocationFactory(
         TransformationRegistrationFactory createTransformationRegistrationFactory(
             BuildOperationExecutor buildOperationExecutor,
             IsolatableFactory isolatableFactory,
+            IsolatedTransformParametersCache isolatedParametersCache,
             ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
             TransformerInvocationFactory transformerInvocationFactory,
             ValueSnapshotter valueSnapshotter,
@@ -404,6 +407,7 @@ TransformationRegistrationFactory createTransformationRegistrationFactory(
             return new DefaultTransformationRegistrationFactory(
                 buildOperationExecutor,
                 isolatableFactory,
+                isolatedParametersCache,
                 classLoaderHierarchyHasher,
                 transformerInvocationFactory,
                 valueSnapshotter,
@@ -593,7 +597,8 @@ ConfigurationResolver createDependencyResolver(ArtifactDependencyResolver artifa
                                                        ComponentSelectorConverter componentSelectorConverter,
                                                        AttributeContainerSerializer attributeContainerSerializer,
                                                        BuildState currentBuild,
-                                                       TransformationNodeRegistry transformationNodeRegistry) {
+                                                       TransformationNodeRegistry transformationNodeRegistry,
+                                                       CachedArtifactVerifier cachedArtifactVerifier) {
             return new ErrorHandlingConfigurationResolver(
                     new ShortCircuitEmptyConfigurationResolver(
                         new DefaultConfigurationResolver(
@@ -618,7 +623,8 @@ ConfigurationResolver createDependencyResolver(ArtifactDependencyResolver artifa
                             componentSelectorConverter,
                             attributeContainerSerializer,
                             currentBuild.getBuildIdentifier(),
-                            new AttributeDesugaring(attributesFactory)),
+                            new AttributeDesugaring(attributesFactory),
+                            CachedArtifactVerifier.isEnabled() ? cachedArtifactVerifier : null),
                         componentIdentifierFactory,
                         moduleIdentifierFactory,
                         currentBuild.getBuildIdentifier()));
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import org.gradle.StartParameter;
 import org.gradle.api.capabilities.Capability;
@@ -60,6 +61,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.CachedArtifactVerifier;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DesugaredAttributeContainerSerializer;
@@ -115,6 +117,7 @@
 import org.gradle.internal.resource.TextUriResourceLoader;
 import org.gradle.internal.resource.cached.ByUrlCachedExternalResourceIndex;
 import org.gradle.internal.resource.cached.ExternalResourceFileStore;
+import org.gradle.internal.resource.cached.FileChecksumIndex;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.resource.local.FileResourceRepository;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
@@ -246,6 +249,17 @@ ExternalResourceFileStore createExternalResourceFileStore(ArtifactCacheMetadata
         return new ExternalResourceFileStore(artifactCacheMetadata.getExternalResourcesStoreDirectory(), new TmpDirTemporaryFileProvider(), fileAccessTimeJournal);
     }
 
+    FileChecksumIndex createFileChecksumIndex(ArtifactCacheLockingManager artifactCacheLockingManager) {
+        return new FileChecksumIndex("file-sha1", artifactCacheLockingManager);
+    }
+
+    CachedArtifactVerifier createCachedArtifactVerifier(ArtifactCacheMetadata artifactCacheMetadata, FileChecksumIndex fileChecksumIndex) {
+        return new CachedArtifactVerifier(
+            ImmutableList.of(artifactCacheMetadata.getFileStoreDirectory(), artifactCacheMetadata.getExternalResourcesStoreDirectory()),
+            fileChecksumIndex
+        );
+    }
+
     TextFileResourceLoader createTextFileResourceLoader() {
         return new DefaultTextFileResourceLoader();
     }
@@ -288,7 +302,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(StartParameter start
                                                                 List<ResourceConnectorFactory> resourceConnectorFactories,
                                                                 BuildOperationExecutor buildOperationExecutor,
                                                                 ProducerGuard<ExternalResourceName> producerGuard,
-                                                                FileResourceRepository fileResourceRepository) {
+                                                                FileResourceRepository fileResourceRepository,
+                                                                ArtifactCacheMetadata artifactCacheMetadata) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
         return new RepositoryTransportFactory(
             resourceConnectorFactories,
@@ -300,7 +315,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(StartParameter start
             buildOperationExecutor,
             startParameterResolutionOverride,
             producerGuard,
-            fileResourceRepository);
+            fileResourceRepository,
+            artifactCacheMetadata.getPartialDownloadsDirectory());
     }
 
     RepositoryBlacklister createRepositoryBlacklister() {
@@ -313,7 +329,8 @@ ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleR
                                               ImmutableModuleIdentifierFactory moduleIdentifierFactory,
                                               RepositoryBlacklister repositoryBlacklister,
                                               VersionParser versionParser,
-                                              InstantiatorFactory instantiatorFactory) {
+                                              InstantiatorFactory instantiatorFactory,
+                                              BuildOperationExecutor buildOperationExecutor) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
         return new ResolveIvyFactory(
             moduleRepositoryCacheProvider,
@@ -323,7 +340,8 @@ ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleR
             moduleIdentifierFactory,
             repositoryBlacklister,
             versionParser,
-            instantiatorFactory);
+            instantiatorFactory,
+            buildOperationExecutor);
     }
 
     ArtifactDependencyResolver createArtifactDependencyResolver(ResolveIvyFactory resolveIvyFactory,
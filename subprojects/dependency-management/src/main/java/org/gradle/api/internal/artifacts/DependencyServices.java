@@ -18,6 +18,7 @@
 
 import org.gradle.api.internal.artifacts.transform.ArtifactTransformListener;
 import org.gradle.api.internal.artifacts.transform.DefaultTransformationNodeRegistry;
+import org.gradle.api.internal.artifacts.transform.IsolatedTransformParametersCache;
 import org.gradle.api.internal.artifacts.transform.TransformationNodeDependencyResolver;
 import org.gradle.api.internal.artifacts.transform.TransformationNodeRegistry;
 import org.gradle.internal.event.ListenerManager;
@@ -60,6 +61,10 @@ TransformationNodeRegistry createTransformationNodeRegistry(BuildOperationExecut
             return new DefaultTransformationNodeRegistry(buildOperationExecutor, transformListener);
         }
 
+        IsolatedTransformParametersCache createIsolatedTransformParametersCache() {
+            return new IsolatedTransformParametersCache();
+        }
+
         TransformationNodeDependencyResolver createTransformationNodeDependencyResolver() {
             return new TransformationNodeDependencyResolver();
         }
@@ -37,6 +37,11 @@ public interface ArtifactCacheMetadata {
      */
     File getExternalResourcesStoreDirectory();
 
+    /**
+     * Returns the directory for resources which are partially downloaded, next to the external resources file store.
+     */
+    File getPartialDownloadsDirectory();
+
     /**
      * Returns the root directory for the meta-data file store.
      *
@@ -60,6 +60,11 @@ public File getExternalResourcesStoreDirectory() {
         return createCacheRelativeDir(CacheLayout.RESOURCES);
     }
 
+    @Override
+    public File getPartialDownloadsDirectory() {
+        return new File(getExternalResourcesStoreDirectory(), "partial");
+    }
+
     @Override
     public File getMetaDataStoreDirectory() {
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
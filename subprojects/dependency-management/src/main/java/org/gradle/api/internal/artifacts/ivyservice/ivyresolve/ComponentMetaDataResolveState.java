@@ -23,6 +23,8 @@
 import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.ResourceAwareResolveResult;
 
+import javax.annotation.Nullable;
+
 class ComponentMetaDataResolveState {
     private final DefaultBuildableModuleComponentMetaDataResolveResult resolveResult;
     private final VersionedComponentChooser versionedComponentChooser;
@@ -33,6 +35,7 @@ class ComponentMetaDataResolveState {
 
     private boolean searchedLocally;
     private boolean searchedRemotely;
+    private boolean probed;
 
     public ComponentMetaDataResolveState(ModuleComponentIdentifier componentIdentifier, ComponentOverrideMetadata componentOverrideMetadata, ModuleComponentRepository repository, VersionedComponentChooser versionedComponentChooser) {
         this.componentOverrideMetadata = componentOverrideMetadata;
@@ -42,15 +45,36 @@ public ComponentMetaDataResolveState(ModuleComponentIdentifier componentIdentifi
         this.resolveResult = new DefaultBuildableModuleComponentMetaDataResolveResult();
     }
 
+    /**
+     * Runs the local search ahead of time, unless it was already run. The following call to {@link #resolve()} returns the result of this search.
+     *
+     * @return the result of the local search, or null when the local result is unknown and the repository needs to be searched remotely.
+     */
+    @Nullable
+    BuildableModuleComponentMetaDataResolveResult probeLocally() {
+        if (!searchedLocally && searchLocally()) {
+            probed = true;
+        }
+        return probed ? resolveResult : null;
+    }
+
+    /**
+     * Runs the next search ahead of time. The following call to {@link #resolve()} returns the result of this search.
+     */
+    BuildableModuleComponentMetaDataResolveResult probe() {
+        BuildableModuleComponentMetaDataResolveResult result = resolve();
+        probed = true;
+        return result;
+    }
+
     BuildableModuleComponentMetaDataResolveResult resolve() {
+        if (probed) {
+            probed = false;
+            return resolveResult;
+        }
+
         if (!searchedLocally) {
-            searchedLocally = true;
-            process(repository.getLocalAccess());
-            if (resolveResult.hasResult()) {
-                if (resolveResult.isAuthoritative()) {
-                    // Don't bother searching remotely
-                    searchedRemotely = true;
-                }
+            if (searchLocally()) {
                 return resolveResult;
             }
             // If unknown, try a remote search
@@ -65,6 +89,19 @@ BuildableModuleComponentMetaDataResolveResult resolve() {
         throw new IllegalStateException();
     }
 
+    private boolean searchLocally() {
+        searchedLocally = true;
+        process(repository.getLocalAccess());
+        if (resolveResult.hasResult()) {
+            if (resolveResult.isAuthoritative()) {
+                // Don't bother searching remotely
+                searchedRemotely = true;
+            }
+            return true;
+        }
+        return false;
+    }
+
     protected void process(ModuleComponentRepositoryAccess moduleAccess) {
         moduleAccess.resolveComponentMetaData(componentIdentifier, componentOverrideMetadata, resolveResult);
         if (resolveResult.getState() == BuildableModuleComponentMetaDataResolveResult.State.Resolved) {
@@ -50,6 +50,7 @@
 import org.gradle.internal.resolve.caching.ComponentMetadataSupplierRuleExecutor;
 import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 import org.gradle.internal.resolve.result.ComponentSelectionContext;
 import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.DefaultBuildableModuleVersionListingResolveResult;
@@ -57,6 +58,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -72,6 +74,34 @@
 
 public class DynamicVersionResolver {
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamicVersionResolver.class);
+    // Every repository contributes to the selection of the newest version, so only a critical failure makes the remaining probes unnecessary
+    private static final RepositoryChainProber.Probe<RepositoryResolveState> PROBE = new RepositoryChainProber.Probe<RepositoryResolveState>() {
+        @Override
+        public String getDisplayName(RepositoryResolveState state) {
+            return state.repository.getName();
+        }
+
+        @Override
+        public RepositoryChainProber.LocalProbeResult probeLocally(RepositoryResolveState state) {
+            if (state.probeLocally()) {
+                return RepositoryChainProber.LocalProbeResult.UNKNOWN;
+            }
+            BuildableModuleVersionListingResolveResult versionListing = state.versionListingResult.result;
+            if (versionListing.getState() == BuildableModuleVersionListingResolveResult.State.Failed && isCriticalFailure(versionListing.getFailure())) {
+                return RepositoryChainProber.LocalProbeResult.CONCLUSIVE;
+            }
+            return RepositoryChainProber.LocalProbeResult.INCONCLUSIVE;
+        }
+
+        @Override
+        public boolean probeRemotely(RepositoryResolveState state) {
+            Exception failure = state.probe();
+            if (failure != null) {
+                return isCriticalFailure(failure);
+            }
+            return state.resolvedVersionMetadata.getState() == Failed && isCriticalFailure(state.resolvedVersionMetadata.getFailure());
+        }
+    };
 
     private final List<ModuleComponentRepository> repositories = new ArrayList<ModuleComponentRepository>();
     private final List<String> repositoryNames = new ArrayList<String>();
@@ -82,8 +112,13 @@ public class DynamicVersionResolver {
     private final ComponentMetadataProcessorFactory componentMetadataProcessor;
     private final ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor;
     private final CachePolicy cachePolicy;
+    private final RepositoryChainProber prober;
 
     public DynamicVersionResolver(VersionedComponentChooser versionedComponentChooser, VersionParser versionParser, Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessor, ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor, CachePolicy cachePolicy) {
+        this(versionedComponentChooser, versionParser, metaDataFactory, attributesFactory, componentMetadataProcessor, componentMetadataSupplierRuleExecutor, cachePolicy, RepositoryChainProber.SERIAL);
+    }
+
+    public DynamicVersionResolver(VersionedComponentChooser versionedComponentChooser, VersionParser versionParser, Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessor, ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor, CachePolicy cachePolicy, RepositoryChainProber prober) {
         this.versionedComponentChooser = versionedComponentChooser;
         this.versionParser = versionParser;
         this.metaDataFactory = metaDataFactory;
@@ -91,6 +126,7 @@ public DynamicVersionResolver(VersionedComponentChooser versionedComponentChoose
         this.componentMetadataProcessor = componentMetadataProcessor;
         this.componentMetadataSupplierRuleExecutor = componentMetadataSupplierRuleExecutor;
         this.cachePolicy = cachePolicy;
+        this.prober = prober;
     }
 
     public void add(ModuleComponentRepository repository) {
@@ -150,7 +186,9 @@ private RepositoryChainModuleResolution findLatestModule(List<RepositoryResolveS
 
         LinkedList<RepositoryResolveState> missing = new LinkedList<RepositoryResolveState>();
 
-        // A first pass to do local resolves only
+        // A first pass to do local resolves, falling back to a remote search when the local result is unknown. The version listings are
+        // probed up front, so that the remote searches of the repositories without a local listing run together rather than one after the other
+        prober.probeAll(queue, PROBE);
         RepositoryChainModuleResolution best = findLatestModule(queue, failures, missing);
         if (hasCriticalFailure(failures)) {
             return null;
@@ -162,6 +200,7 @@ private RepositoryChainModuleResolution findLatestModule(List<RepositoryResolveS
         // Nothing found - do a second pass
         queue.addAll(missing);
         missing.clear();
+        prober.probeAll(queue, PROBE);
         return findLatestModule(queue, failures, missing);
     }
 
@@ -169,9 +208,8 @@ private RepositoryChainModuleResolution findLatestModule(LinkedList<RepositoryRe
         RepositoryChainModuleResolution best = null;
         while (!queue.isEmpty()) {
             RepositoryResolveState request = queue.removeFirst();
-            try {
-                request.resolve();
-            } catch (Exception t) {
+            Exception t = request.resolveOrUseProbe();
+            if (t != null) {
                 failures.add(t);
                 if (isCriticalFailure(t)) {
                     queue.clear();
@@ -254,6 +292,8 @@ private static class RepositoryResolveState implements ComponentSelectionContext
         private final ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor;
         private final CachePolicy cachePolicy;
         private ModuleComponentIdentifier firstRejected = null;
+        private boolean probed;
+        private Exception probeFailure;
 
 
         public RepositoryResolveState(VersionedComponentChooser versionedComponentChooser, ModuleDependencyMetadata dependency, ModuleComponentRepository repository, VersionSelector versionSelector, VersionSelector rejectedVersionSelector, VersionParser versionParser, AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor, CachePolicy cachePolicy) {
@@ -282,7 +322,48 @@ public boolean canMakeFurtherAttempts() {
             return versionListingResult.canMakeFurtherAttempts();
         }
 
-        void resolve() {
+        /**
+         * Lists the versions of the local repository ahead of time, unless this was already done. The following call to {@link #resolveOrUseProbe()}
+         * selects from this listing.
+         *
+         * @return true when the local listing is unknown and the repository needs to be searched remotely.
+         */
+        boolean probeLocally() {
+            return versionListingResult.probeLocally();
+        }
+
+        /**
+         * Runs the next search ahead of time. The following call to {@link #resolveOrUseProbe()} uses the result of this search.
+         */
+        @Nullable
+        Exception probe() {
+            probeFailure = resolveOrUseProbe();
+            probed = true;
+            return probeFailure;
+        }
+
+        /**
+         * Runs the next search, unless it was already run by {@link #probe()}.
+         *
+         * @return the failure thrown by the search, if any.
+         */
+        @Nullable
+        Exception resolveOrUseProbe() {
+            if (probed) {
+                probed = false;
+                Exception failure = probeFailure;
+                probeFailure = null;
+                return failure;
+            }
+            try {
+                resolve();
+                return null;
+            } catch (Exception e) {
+                return e;
+            }
+        }
+
+        private void resolve() {
             versionListingResult.resolve();
             switch (versionListingResult.result.getState()) {
                 case Failed:
@@ -515,6 +596,7 @@ private static class VersionListResult {
 
         private boolean searchedLocally;
         private boolean searchedRemotely;
+        private boolean probedLocally;
 
         public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRepository repository) {
             this.dependency = dependency;
@@ -522,14 +604,13 @@ public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRep
         }
 
         void resolve() {
+            if (probedLocally) {
+                // Use the result of the local search
+                probedLocally = false;
+                return;
+            }
             if (!searchedLocally) {
-                searchedLocally = true;
-                process(dependency, repository.getLocalAccess());
-                if (result.hasResult()) {
-                    if (result.isAuthoritative()) {
-                        // Authoritative result - don't need to try remote
-                        searchedRemotely = true;
-                    }
+                if (searchLocally()) {
                     return;
                 }
                 // Otherwise, try remotely
@@ -542,6 +623,31 @@ void resolve() {
             // Otherwise, just reuse previous result
         }
 
+        /**
+         * Runs the local search ahead of time, unless it was already run. The following call to {@link #resolve()} uses the result of this search.
+         *
+         * @return true when the repository needs to be searched remotely.
+         */
+        boolean probeLocally() {
+            if (!searchedLocally && searchLocally()) {
+                probedLocally = true;
+            }
+            return !probedLocally && !searchedRemotely;
+        }
+
+        private boolean searchLocally() {
+            searchedLocally = true;
+            process(dependency, repository.getLocalAccess());
+            if (result.hasResult()) {
+                if (result.isAuthoritative()) {
+                    // Authoritative result - don't need to try remote
+                    searchedRemotely = true;
+                }
+                return true;
+            }
+            return false;
+        }
+
         public boolean canMakeFurtherAttempts() {
             return !searchedRemotely;
         }
@@ -39,15 +39,52 @@
 
 public class RepositoryChainComponentMetaDataResolver implements ComponentMetaDataResolver {
     private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryChainComponentMetaDataResolver.class);
+    private static final RepositoryChainProber.Probe<ComponentMetaDataResolveState> PROBE = new RepositoryChainProber.Probe<ComponentMetaDataResolveState>() {
+        @Override
+        public String getDisplayName(ComponentMetaDataResolveState state) {
+            return state.repository.getName();
+        }
+
+        @Override
+        public RepositoryChainProber.LocalProbeResult probeLocally(ComponentMetaDataResolveState state) {
+            BuildableModuleComponentMetaDataResolveResult result = state.probeLocally();
+            if (result == null) {
+                return RepositoryChainProber.LocalProbeResult.UNKNOWN;
+            }
+            return isConclusive(result) ? RepositoryChainProber.LocalProbeResult.CONCLUSIVE : RepositoryChainProber.LocalProbeResult.INCONCLUSIVE;
+        }
+
+        @Override
+        public boolean probeRemotely(ComponentMetaDataResolveState state) {
+            return isConclusive(state.probe());
+        }
+
+        private boolean isConclusive(BuildableModuleComponentMetaDataResolveResult result) {
+            switch (result.getState()) {
+                case Failed:
+                    return isCriticalFailure(result.getFailure());
+                case Resolved:
+                    return !result.getMetaData().isMissing();
+                default:
+                    return false;
+            }
+        }
+    };
 
     private final List<ModuleComponentRepository> repositories = new ArrayList<ModuleComponentRepository>();
     private final List<String> repositoryNames = new ArrayList<String>();
     private final VersionedComponentChooser versionedComponentChooser;
     private final Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory;
+    private final RepositoryChainProber prober;
 
     public RepositoryChainComponentMetaDataResolver(VersionedComponentChooser componentChooser, Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory) {
+        this(componentChooser, metaDataFactory, RepositoryChainProber.SERIAL);
+    }
+
+    public RepositoryChainComponentMetaDataResolver(VersionedComponentChooser componentChooser, Transformer<ModuleComponentResolveMetadata, RepositoryChainModuleResolution> metaDataFactory, RepositoryChainProber prober) {
         this.versionedComponentChooser = componentChooser;
         this.metaDataFactory = metaDataFactory;
+        this.prober = prober;
     }
 
     public void add(ModuleComponentRepository repository) {
@@ -116,7 +153,9 @@ private RepositoryChainModuleResolution findBestMatch(List<ComponentMetaDataReso
 
         LinkedList<ComponentMetaDataResolveState> missing = new LinkedList<ComponentMetaDataResolveState>();
 
-        // A first pass to do local resolves only
+        // A first pass to do local resolves, falling back to a remote search when the local result is unknown. The searches are probed
+        // up front, so that the remote searches of the repositories before the first local match run together rather than one after the other
+        prober.probeAll(queue, PROBE);
         RepositoryChainModuleResolution best = findBestMatch(queue, failures, missing);
         if (hasCriticalFailure(failures)) {
             return null;
@@ -128,6 +167,7 @@ private RepositoryChainModuleResolution findBestMatch(List<ComponentMetaDataReso
         // Nothing found locally - try a remote search for all resolve states that were not yet searched remotely
         queue.addAll(missing);
         missing.clear();
+        prober.probeAll(queue, PROBE);
         return findBestMatch(queue, failures, missing);
     }
 
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.Action;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Probes the repositories of a resolver chain ahead of the resolver walking them.
+ *
+ * By default nothing is probed up front, and each repository is searched in turn by the resolver. When parallel probing
+ * is enabled, the cheap local searches are run first, one repository after the other, up to the first repository whose
+ * local result makes searching the later ones unnecessary. The remote searches for the repositories whose local result is
+ * unknown are then run concurrently, and the resolver consumes all results in declaration order, so that the selected
+ * component is the same as for a serial search.
+ */
+public abstract class RepositoryChainProber {
+    public static final String PARALLEL_PROBING_PROPERTY = "org.gradle.internal.repositories.parallel-probing";
+
+    public static final RepositoryChainProber SERIAL = new RepositoryChainProber() {
+        @Override
+        <T> void probeAll(List<T> states, Probe<T> probe) {
+        }
+    };
+
+    public static RepositoryChainProber create(BuildOperationExecutor buildOperationExecutor) {
+        if (Boolean.getBoolean(PARALLEL_PROBING_PROPERTY)) {
+            return parallel(buildOperationExecutor);
+        }
+        return SERIAL;
+    }
+
+    static RepositoryChainProber parallel(BuildOperationExecutor buildOperationExecutor) {
+        return new ParallelRepositoryChainProber(buildOperationExecutor);
+    }
+
+    /**
+     * Probes the given states. Once a probe reports that no later repository needs to be searched, the probes for the
+     * repositories declared after it which have not yet started are skipped.
+     */
+    abstract <T> void probeAll(List<T> states, Probe<T> probe);
+
+    enum LocalProbeResult {
+        /**
+         * The local search leaves the result unknown, so the repository needs to be searched remotely.
+         */
+        UNKNOWN,
+        /**
+         * The local search has a result, but the repositories declared after this one still need to be searched.
+         */
+        INCONCLUSIVE,
+        /**
+         * The local search has a result that makes searching the repositories declared after this one unnecessary.
+         */
+        CONCLUSIVE
+    }
+
+    interface Probe<T> {
+        String getDisplayName(T state);
+
+        /**
+         * Runs the local search for the given state, unless it was already run.
+         */
+        LocalProbeResult probeLocally(T state);
+
+        /**
+         * Runs the remote search for the given state.
+         *
+         * @return true when the result makes searching the repositories declared after this one unnecessary.
+         */
+        boolean probeRemotely(T state);
+    }
+
+    private static class ParallelRepositoryChainProber extends RepositoryChainProber {
+        private final BuildOperationExecutor buildOperationExecutor;
+
+        ParallelRepositoryChainProber(BuildOperationExecutor buildOperationExecutor) {
+            this.buildOperationExecutor = buildOperationExecutor;
+        }
+
+        @Override
+        <T> void probeAll(final List<T> states, final Probe<T> probe) {
+            if (states.size() < 2) {
+                return;
+            }
+            final List<T> remoteStates = new ArrayList<T>();
+            for (T state : states) {
+                LocalProbeResult localResult = probe.probeLocally(state);
+                if (localResult == LocalProbeResult.CONCLUSIVE) {
+                    // The repositories declared after this one will never be consulted
+                    break;
+                }
+                if (localResult == LocalProbeResult.UNKNOWN) {
+                    remoteStates.add(state);
+                }
+            }
+            if (remoteStates.size() < 2) {
+                // Nothing to run concurrently, the resolver does a single remote search when it gets to it
+                return;
+            }
+            final AtomicInteger firstConclusive = new AtomicInteger(Integer.MAX_VALUE);
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+                @Override
+                public void execute(BuildOperationQueue<RunnableBuildOperation> queue) {
+                    for (int i = 0; i < remoteStates.size(); i++) {
+                        queue.add(new ProbeOperation<T>(i, remoteStates.get(i), probe, firstConclusive));
+                    }
+                }
+            });
+        }
+    }
+
+    private static class ProbeOperation<T> implements RunnableBuildOperation {
+        private final int index;
+        private final T state;
+        private final Probe<T> probe;
+        private final AtomicInteger firstConclusive;
+
+        ProbeOperation(int index, T state, Probe<T> probe, AtomicInteger firstConclusive) {
+            this.index = index;
+            this.state = state;
+            this.probe = probe;
+            this.firstConclusive = firstConclusive;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            if (firstConclusive.get() < index) {
+                // An earlier repository already provides the result, so this one will never be consulted
+                return;
+            }
+            if (probe.probeRemotely(state)) {
+                int current = firstConclusive.get();
+                while (index < current && !firstConclusive.compareAndSet(current, index)) {
+                    current = firstConclusive.get();
+                }
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Probe " + probe.getDisplayName(state));
+        }
+    }
+}
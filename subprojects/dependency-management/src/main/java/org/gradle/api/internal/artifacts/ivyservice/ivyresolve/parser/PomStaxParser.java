@@ -0,0 +1,350 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a POM into a tree of {@link PomElement}s using a streaming parser. Only the elements that are used to build the module
+ * metadata are kept, everything else (build configuration, plugins, reporting, developers, licenses and so on) is skipped while parsing.
+ */
+public final class PomStaxParser {
+    private static final byte[] M2_ENTITIES_RESOURCE;
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        M2_ENTITIES_RESOURCE = bytes;
+
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+            XML_INPUT_FACTORY.setXMLResolver(new M2EntityResolver());
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    private PomStaxParser() {}
+
+    /**
+     * Parses the given POM content. The root element is returned whatever its name, so that the caller can validate it.
+     */
+    public static PomElement parse(InputStream inputStream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, new AddDTDFilterInputStream(inputStream));
+        try {
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // Skip prolog
+            }
+            PomElement root = new PomElement(reader.getLocalName());
+            readContent(reader, root, Section.PROJECT);
+            return root;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void readContent(XMLStreamReader reader, PomElement element, Section section) throws XMLStreamException {
+        StringBuilder text = null;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String name = reader.getLocalName();
+                    Section childSection = section.childSection(name);
+                    if (childSection == null) {
+                        skipElement(reader);
+                    } else {
+                        PomElement child = new PomElement(name);
+                        element.addChild(child);
+                        readContent(reader, child, childSection);
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (section == Section.TEXT) {
+                        if (text == null) {
+                            text = new StringBuilder();
+                        }
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (section == Section.PROJECT && reader.getText().contains(MetaDataParser.GRADLE_METADATA_MARKER)) {
+                        element.setGradleMetadataMarker();
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (text != null) {
+                        element.setText(text.toString());
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    public static String getTextContent(PomElement element) {
+        return element.getText();
+    }
+
+    @Nullable
+    public static String getFirstChildText(@Nullable PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
+        if (node != null) {
+            return getTextContent(node);
+        } else {
+            return null;
+        }
+    }
+
+    @Nullable
+    public static PomElement getFirstChildElement(@Nullable PomElement parentElem, String name) {
+        if (parentElem == null) {
+            return null;
+        }
+        for (PomElement child : parentElem.getChildren()) {
+            if (name.equals(child.getName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    public static List<PomElement> getAllChilds(@Nullable PomElement parent) {
+        if (parent == null) {
+            return Collections.emptyList();
+        }
+        return parent.getChildren();
+    }
+
+    /**
+     * The parts of a POM that are kept, along with the child elements that are kept for each of them.
+     */
+    private enum Section {
+        PROJECT, COORDINATES, DISTRIBUTION_MANAGEMENT, PROPERTIES, DEPENDENCY_MANAGEMENT, DEPENDENCIES, DEPENDENCY, EXCLUSIONS,
+        PROFILES, PROFILE, ACTIVATION, ACTIVATION_PROPERTY, TEXT;
+
+        @Nullable
+        Section childSection(String name) {
+            switch (this) {
+                case PROJECT:
+                    if (isCoordinate(name) || name.equals("packaging")) {
+                        return TEXT;
+                    }
+                    if (name.equals("parent")) {
+                        return COORDINATES;
+                    }
+                    if (name.equals("distributionManagement")) {
+                        return DISTRIBUTION_MANAGEMENT;
+                    }
+                    return profileOrProjectSection(name);
+                case COORDINATES:
+                    return isCoordinate(name) ? TEXT : null;
+                case DISTRIBUTION_MANAGEMENT:
+                    return name.equals("relocation") ? COORDINATES : null;
+                case PROPERTIES:
+                    return TEXT;
+                case DEPENDENCY_MANAGEMENT:
+                    return name.equals("dependencies") ? DEPENDENCIES : null;
+                case DEPENDENCIES:
+                    return name.equals("dependency") ? DEPENDENCY : null;
+                case DEPENDENCY:
+                    if (isCoordinate(name) || name.equals("scope") || name.equals("type") || name.equals("classifier") || name.equals("optional")) {
+                        return TEXT;
+                    }
+                    return name.equals("exclusions") ? EXCLUSIONS : null;
+                case EXCLUSIONS:
+                    return name.equals("exclusion") ? COORDINATES : null;
+                case PROFILES:
+                    return name.equals("profile") ? PROFILE : null;
+                case PROFILE:
+                    if (name.equals("id")) {
+                        return TEXT;
+                    }
+                    if (name.equals("activation")) {
+                        return ACTIVATION;
+                    }
+                    return profileOrProjectSection(name);
+                case ACTIVATION:
+                    if (name.equals("activeByDefault")) {
+                        return TEXT;
+                    }
+                    return name.equals("property") ? ACTIVATION_PROPERTY : null;
+                case ACTIVATION_PROPERTY:
+                    return name.equals("name") ? TEXT : null;
+                default:
+                    return null;
+            }
+        }
+
+        @Nullable
+        private Section profileOrProjectSection(String name) {
+            if (name.equals("properties")) {
+                return PROPERTIES;
+            }
+            if (name.equals("dependencies")) {
+                return DEPENDENCIES;
+            }
+            if (name.equals("dependencyManagement")) {
+                return DEPENDENCY_MANAGEMENT;
+            }
+            if (this == PROJECT && name.equals("profiles")) {
+                return PROFILES;
+            }
+            return null;
+        }
+
+        private static boolean isCoordinate(String name) {
+            return name.equals("groupId") || name.equals("artifactId") || name.equals("version");
+        }
+    }
+
+    private static class M2EntityResolver implements XMLResolver {
+        @Override
+        public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+            if ((systemID != null) && systemID.endsWith("m2-entities.ent")) {
+                return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+            }
+            return null;
+        }
+    }
+
+    public static final class AddDTDFilterInputStream extends FilterInputStream {
+        private static final int MARK = 10000;
+        private static final String DOCTYPE = "<!DOCTYPE project SYSTEM \"m2-entities.ent\">\n";
+
+        private int count;
+        private byte[] prefix = DOCTYPE.getBytes();
+
+        public AddDTDFilterInputStream(InputStream in) throws IOException {
+            super(new BufferedInputStream(in));
+
+            this.in.mark(MARK);
+
+            // TODO: we should really find a better solution for this...
+            // maybe we could use a FilterReader instead of a FilterInputStream?
+            int byte1 = this.in.read();
+            int byte2 = this.in.read();
+            int byte3 = this.in.read();
+
+            if (byte1 == 239 && byte2 == 187 && byte3 == 191) {
+                // skip the UTF-8 BOM
+                this.in.mark(MARK);
+            } else {
+                this.in.reset();
+            }
+
+            int bytesToSkip = 0;
+            LineNumberReader reader = new LineNumberReader(new InputStreamReader(this.in, "UTF-8"), 100);
+            String firstLine = reader.readLine();
+            if (firstLine != null) {
+                String trimmed = firstLine.trim();
+                if (trimmed.startsWith("<?xml ")) {
+                    int endIndex = trimmed.indexOf("?>");
+                    String xmlDecl = trimmed.substring(0, endIndex + 2);
+                    prefix = (xmlDecl + "\n" + DOCTYPE).getBytes();
+                    bytesToSkip = xmlDecl.getBytes().length;
+                }
+            }
+
+            this.in.reset();
+            for (int i = 0; i < bytesToSkip; i++) {
+                this.in.read();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (count < prefix.length) {
+                return prefix[count++];
+            }
+
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (b == null) {
+                throw new NullPointerException();
+            } else if ((off < 0) || (off > b.length) || (len < 0)
+                    || ((off + len) > b.length) || ((off + len) < 0)) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return 0;
+            }
+
+            int nbrBytesCopied = 0;
+
+            if (count < prefix.length) {
+                int nbrBytesFromPrefix = Math.min(prefix.length - count, len);
+                System.arraycopy(prefix, count, b, off, nbrBytesFromPrefix);
+                nbrBytesCopied = nbrBytesFromPrefix;
+            }
+
+            if (nbrBytesCopied < len) {
+                nbrBytesCopied += in.read(b, off + nbrBytesCopied, len - nbrBytesCopied);
+            }
+
+            count += nbrBytesCopied;
+            return nbrBytesCopied;
+        }
+    }
+}
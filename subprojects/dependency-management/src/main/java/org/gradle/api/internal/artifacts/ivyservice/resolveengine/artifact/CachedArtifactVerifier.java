@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.Action;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.ArtifactResolveException;
+import org.gradle.internal.resource.cached.FileChecksumIndex;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Verifies the content of artifacts in the file stores of the artifact cache. Files in these stores are kept
+ * in a directory named after the SHA1 checksum of their content, so a file whose checksum does not match the
+ * name of its directory has been corrupted or tampered with since it was downloaded.
+ *
+ * <p>The files of a resolved set of artifacts are verified together, in parallel, and checksums are looked up
+ * in a persistent index, so unchanged files are not hashed again.</p>
+ */
+public class CachedArtifactVerifier {
+    public static final String VERIFY_CACHED_ARTIFACTS_PROPERTY = "org.gradle.internal.dependency-verification.cached-artifacts";
+
+    private final List<File> fileStoreRoots;
+    private final FileChecksumIndex checksums;
+
+    public CachedArtifactVerifier(Collection<File> fileStoreRoots, FileChecksumIndex checksums) {
+        this.fileStoreRoots = ImmutableList.copyOf(fileStoreRoots);
+        this.checksums = checksums;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(VERIFY_CACHED_ARTIFACTS_PROPERTY);
+    }
+
+    /**
+     * Verifies the given files, reporting each file that does not match its checksum to the given visitor.
+     * Files outside of the file stores are ignored.
+     */
+    public void verify(Collection<File> files, BuildOperationExecutor buildOperationExecutor, ArtifactVisitor visitor) {
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<RunnableBuildOperation> queue) {
+                for (File file : files) {
+                    HashValue expected = getExpectedChecksum(file);
+                    if (expected != null) {
+                        queue.add(new VerifyChecksum(file, expected, failures));
+                    }
+                }
+            }
+        });
+        for (Throwable failure : failures) {
+            visitor.visitFailure(failure);
+        }
+    }
+
+    @Nullable
+    HashValue getExpectedChecksum(File file) {
+        File checksumDir = file.getParentFile();
+        if (checksumDir == null || !isInFileStore(checksumDir)) {
+            return null;
+        }
+        String name = checksumDir.getName();
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.digit(name.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        return name.isEmpty() ? null : new HashValue(name);
+    }
+
+    private boolean isInFileStore(File dir) {
+        for (File root : fileStoreRoots) {
+            if (dir.toPath().startsWith(root.toPath()) && !dir.equals(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class VerifyChecksum implements RunnableBuildOperation {
+        private final File file;
+        private final HashValue expected;
+        private final Queue<Throwable> failures;
+
+        VerifyChecksum(File file, HashValue expected, Queue<Throwable> failures) {
+            this.file = file;
+            this.expected = expected;
+            this.failures = failures;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            try {
+                HashValue actual = checksums.sha1(file);
+                if (!expected.equals(actual)) {
+                    failures.add(new ArtifactResolveException(String.format("Checksum of cached artifact %s does not match: expected SHA1 %s but was %s.", file, expected.asHexString(), actual.asHexString())));
+                }
+            } catch (Exception e) {
+                failures.add(new ArtifactResolveException(String.format("Could not verify cached artifact %s.", file), e));
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Verify checksum of " + file.getName());
+        }
+    }
+}
@@ -23,6 +23,11 @@
 import org.gradle.internal.operations.BuildOperationQueue;
 import org.gradle.internal.operations.RunnableBuildOperation;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 /**
  * A wrapper that prepares artifacts in parallel when visiting the delegate.
  * This is done by collecting all artifacts to prepare and/or visit in a first step.
@@ -34,10 +39,17 @@ public abstract class ParallelResolveArtifactSet {
     public abstract void visit(ArtifactVisitor visitor);
 
     public static ParallelResolveArtifactSet wrap(ResolvedArtifactSet artifacts, BuildOperationExecutor buildOperationProcessor) {
+        return wrap(artifacts, buildOperationProcessor, null);
+    }
+
+    /**
+     * Wraps the given artifacts, verifying the files of the artifacts with the given verifier, if any, once they are all available.
+     */
+    public static ParallelResolveArtifactSet wrap(ResolvedArtifactSet artifacts, BuildOperationExecutor buildOperationProcessor, @Nullable CachedArtifactVerifier verifier) {
         if (artifacts == ResolvedArtifactSet.EMPTY) {
             return EMPTY;
         }
-        return new VisitingSet(artifacts, buildOperationProcessor);
+        return new VisitingSet(artifacts, buildOperationProcessor, verifier);
     }
 
     private static class EmptySet extends ParallelResolveArtifactSet {
@@ -49,32 +61,44 @@ public void visit(ArtifactVisitor visitor) {
     private static class VisitingSet extends ParallelResolveArtifactSet {
         private final ResolvedArtifactSet artifacts;
         private final BuildOperationExecutor buildOperationProcessor;
+        private final CachedArtifactVerifier verifier;
 
-        VisitingSet(ResolvedArtifactSet artifacts, BuildOperationExecutor buildOperationProcessor) {
+        VisitingSet(ResolvedArtifactSet artifacts, BuildOperationExecutor buildOperationProcessor, @Nullable CachedArtifactVerifier verifier) {
             this.artifacts = artifacts;
             this.buildOperationProcessor = buildOperationProcessor;
+            this.verifier = verifier;
         }
 
         @Override
         public void visit(final ArtifactVisitor visitor) {
             // Start preparing the result
-            StartVisitAction visitAction = new StartVisitAction(visitor);
+            StartVisitAction visitAction = new StartVisitAction(visitor, verifier != null);
             buildOperationProcessor.runAll(visitAction);
 
+            // Verify all the files that were made available, in one batch
+            if (verifier != null && !visitAction.availableFiles.isEmpty()) {
+                verifier.verify(visitAction.availableFiles, buildOperationProcessor, visitor);
+            }
+
             // Now visit the result in order
             visitAction.result.visit(visitor);
         }
 
         private static class AsyncArtifactListenerAdapter implements ResolvedArtifactSet.AsyncArtifactListener {
             private final ArtifactVisitor visitor;
+            private final Queue<File> availableFiles;
 
-            AsyncArtifactListenerAdapter(ArtifactVisitor visitor) {
+            AsyncArtifactListenerAdapter(ArtifactVisitor visitor, @Nullable Queue<File> availableFiles) {
                 this.visitor = visitor;
+                this.availableFiles = availableFiles;
             }
 
             @Override
             public void artifactAvailable(ResolvableArtifact artifact) {
-                // Don't care, collect the artifacts later (in the correct order)
+                // Collect the artifacts later (in the correct order), only keep track of the files to verify
+                if (availableFiles != null) {
+                    availableFiles.add(artifact.getFile());
+                }
             }
 
             @Override
@@ -90,15 +114,18 @@ public boolean requireArtifactFiles() {
 
         private class StartVisitAction implements Action<BuildOperationQueue<RunnableBuildOperation>> {
             private final ArtifactVisitor visitor;
+            private final boolean collectFiles;
+            final Queue<File> availableFiles = new ConcurrentLinkedQueue<File>();
             ResolvedArtifactSet.Completion result;
 
-            StartVisitAction(ArtifactVisitor visitor) {
+            StartVisitAction(ArtifactVisitor visitor, boolean collectFiles) {
                 this.visitor = visitor;
+                this.collectFiles = collectFiles;
             }
 
             @Override
             public void execute(BuildOperationQueue<RunnableBuildOperation> buildOperationQueue) {
-                result = artifacts.startVisit(buildOperationQueue, new AsyncArtifactListenerAdapter(visitor));
+                result = artifacts.startVisit(buildOperationQueue, new AsyncArtifactListenerAdapter(visitor, collectFiles ? availableFiles : null));
             }
         }
     }
@@ -15,9 +15,9 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
 
-import com.google.common.collect.Maps;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -61,7 +61,9 @@ public ExcludeSpec allOf(Set<ExcludeSpec> specs) {
 
     /**
      * A special key which recognizes the fact union and intersection
-     * are commutative.
+     * are commutative. Operands are compared by identity: specs are
+     * interned, so structurally equal operands are the same instance,
+     * and an operand which isn't interned only causes a cache miss.
      */
     private final static class ExcludePair {
         private final ExcludeSpec left;
@@ -69,18 +71,20 @@ private final static class ExcludePair {
         private final int hashCode;
 
         // Optimizes comparisons by making sure that the 2 elements of
-        // the pair are "sorted" by hashcode ascending
+        // the pair are "sorted" by identity hashcode ascending
         private static ExcludePair of(ExcludeSpec left, ExcludeSpec right) {
-            if (left.hashCode() > right.hashCode()) {
-                return new ExcludePair(right, left);
+            int leftHash = System.identityHashCode(left);
+            int rightHash = System.identityHashCode(right);
+            if (leftHash > rightHash) {
+                return new ExcludePair(right, left, rightHash, leftHash);
             }
-            return new ExcludePair(left, right);
+            return new ExcludePair(left, right, leftHash, rightHash);
         }
 
-        private ExcludePair(ExcludeSpec left, ExcludeSpec right) {
+        private ExcludePair(ExcludeSpec left, ExcludeSpec right, int leftHash, int rightHash) {
             this.left = left;
             this.right = right;
-            this.hashCode = 31 * left.hashCode() + right.hashCode();
+            this.hashCode = 31 * leftHash + rightHash;
         }
 
         @Override
@@ -94,7 +98,7 @@ public boolean equals(Object o) {
 
             ExcludePair that = (ExcludePair) o;
 
-            return left.equals(that.left) && right.equals(that.right);
+            return left == that.left && right == that.right;
         }
 
         @Override
@@ -145,12 +149,28 @@ public int hashCode() {
      * Synchronization is ad-hoc, since `computeIfAbsent` on a concurrent hash map
      * will not allow for recursion, which is the case for us whenever a cache is
      * found at different levels.
+     *
+     * Each cache is bounded, evicting the least recently used results first, so that
+     * exclude heavy graphs don't retain every intermediate merge result.
      */
     public static class MergeCaches {
-        private final ConcurrentCache<ExcludePair, ExcludeSpec> allOfPairCache = ConcurrentCache.of();
-        private final ConcurrentCache<ExcludePair, ExcludeSpec> anyOfPairCache = ConcurrentCache.of();
-        private final ConcurrentCache<ExcludesKey, ExcludeSpec> allOfListCache = ConcurrentCache.of();
-        private final ConcurrentCache<ExcludesKey, ExcludeSpec> anyOfListCache = ConcurrentCache.of();
+        private static final int DEFAULT_MAX_SIZE = Integer.getInteger("org.gradle.internal.dependency-resolution.exclude-cache-size", 20000);
+
+        private final ConcurrentCache<ExcludePair, ExcludeSpec> allOfPairCache;
+        private final ConcurrentCache<ExcludePair, ExcludeSpec> anyOfPairCache;
+        private final ConcurrentCache<ExcludesKey, ExcludeSpec> allOfListCache;
+        private final ConcurrentCache<ExcludesKey, ExcludeSpec> anyOfListCache;
+
+        public MergeCaches() {
+            this(DEFAULT_MAX_SIZE);
+        }
+
+        MergeCaches(int maxSize) {
+            allOfPairCache = ConcurrentCache.of(maxSize);
+            anyOfPairCache = ConcurrentCache.of(maxSize);
+            allOfListCache = ConcurrentCache.of(maxSize);
+            anyOfListCache = ConcurrentCache.of(maxSize);
+        }
 
         ExcludeSpec getAnyPair(ExcludePair pair, Function<ExcludePair, ExcludeSpec> onMiss) {
             return anyOfPairCache.computeIfAbsent(pair, onMiss);
@@ -170,10 +190,19 @@ ExcludeSpec getAllOf(ExcludesKey list, Function<ExcludesKey, ExcludeSpec> onMiss
     }
 
     private static class ConcurrentCache<K, V> {
-        private final Map<K, V> backingMap = Maps.newHashMap();
+        private final Map<K, V> backingMap;
+
+        private ConcurrentCache(final int maxSize) {
+            this.backingMap = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
 
-        static <K, V> ConcurrentCache<K, V> of() {
-            return new ConcurrentCache<>();
+        static <K, V> ConcurrentCache<K, V> of(int maxSize) {
+            return new ConcurrentCache<>(maxSize);
         }
 
         V computeIfAbsent(K key, Function<K, V> producer) {
@@ -186,8 +186,7 @@ public void resolve() {
             return;
         }
 
-        // Any metadata overrides (e.g classifier/artifacts/client-module) will be taken from the first dependency that referenced this component
-        ComponentOverrideMetadata componentOverrideMetadata = DefaultComponentOverrideMetadata.forDependency(firstSelectedBy.getDependencyMetadata());
+        ComponentOverrideMetadata componentOverrideMetadata = getComponentOverrideMetadata();
 
         DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
         if (tryResolveVirtualPlatform()) {
@@ -202,6 +201,11 @@ public void resolve() {
         metadata = result.getMetadata();
     }
 
+    ComponentOverrideMetadata getComponentOverrideMetadata() {
+        // Any metadata overrides (e.g classifier/artifacts/client-module) will be taken from the first dependency that referenced this component
+        return DefaultComponentOverrideMetadata.forDependency(firstSelectedBy.getDependencyMetadata());
+    }
+
     private boolean tryResolveVirtualPlatform() {
         if (module.isVirtualPlatform()) {
             for (ComponentState version : module.getAllVersions()) {
@@ -48,6 +48,8 @@
 import org.gradle.api.internal.attributes.ImmutableAttributes;
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.MutableReference;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.IncompatibleVariantsSelectionException;
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
 import org.gradle.internal.component.model.DefaultCompatibilityCheckResult;
@@ -65,6 +67,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -139,10 +142,14 @@ public void resolve(final ResolveContext resolveContext, final DependencyGraphVi
         moduleResolver.resolve(resolveContext, rootModule);
 
         int graphSize = estimateSize(resolveContext);
-        final ResolveState resolveState = new ResolveState(idGenerator, rootModule, resolveContext.getName(), idResolver, metaDataResolver, edgeFilter, attributesSchema, moduleExclusions, componentSelectorConverter, attributesFactory, dependencySubstitutionApplicator, versionSelectorScheme, versionComparator, versionParser, moduleConflictHandler.getResolver(), graphSize);
-
         Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache = Maps.newHashMapWithExpectedSize(graphSize/2);
-        traverseGraph(resolveState, componentIdentifierCache);
+        final ResolveState resolveState;
+        if (PrefetchingComponentMetaDataResolver.isEnabled()) {
+            resolveState = traverseGraphWithPrefetching(idGenerator, rootModule, resolveContext.getName(), graphSize, componentIdentifierCache);
+        } else {
+            resolveState = createResolveState(idGenerator, rootModule, resolveContext.getName(), metaDataResolver, graphSize);
+            traverseGraph(resolveState, componentIdentifierCache, null);
+        }
 
         validateGraph(resolveState);
 
@@ -150,6 +157,38 @@ public void resolve(final ResolveContext resolveContext, final DependencyGraphVi
 
     }
 
+    private ResolveState createResolveState(IdGenerator<Long> idGenerator, DefaultBuildableComponentResolveResult rootModule, String name, ComponentMetaDataResolver metaDataResolver, int graphSize) {
+        return new ResolveState(idGenerator, rootModule, name, idResolver, metaDataResolver, edgeFilter, attributesSchema, moduleExclusions, componentSelectorConverter, attributesFactory, dependencySubstitutionApplicator, versionSelectorScheme, versionComparator, versionParser, moduleConflictHandler.getResolver(), graphSize);
+    }
+
+    /**
+     * Traverses the graph while the metadata of the components is prefetched by build operations of the same queue, which waits for
+     * the prefetches in progress once the traversal is done.
+     */
+    private ResolveState traverseGraphWithPrefetching(final IdGenerator<Long> idGenerator, final DefaultBuildableComponentResolveResult rootModule, final String name, final int graphSize, final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
+        final MutableReference<ResolveState> resolveState = MutableReference.empty();
+        final MutableReference<Throwable> failure = MutableReference.empty();
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<RunnableBuildOperation> buildOperationQueue) {
+                PrefetchingComponentMetaDataResolver prefetcher = new PrefetchingComponentMetaDataResolver(metaDataResolver, versionSelectorScheme, buildOperationQueue);
+                resolveState.set(createResolveState(idGenerator, rootModule, name, prefetcher, graphSize));
+                try {
+                    traverseGraph(resolveState.get(), componentIdentifierCache, prefetcher);
+                } catch (Throwable t) {
+                    // Rethrow the failure as is, rather than as a failure to populate the queue
+                    failure.set(t);
+                } finally {
+                    prefetcher.stop();
+                }
+            }
+        });
+        if (failure.get() != null) {
+            throw UncheckedException.throwAsUncheckedException(failure.get());
+        }
+        return resolveState.get();
+    }
+
     /**
      * This method is a heuristic that gives an idea of the "size" of the graph. The larger
      * the graph is, the higher the risk of internal resizes exists, so we try to estimate
@@ -166,7 +205,7 @@ private static int estimateSize(ResolveContext resolveContext) {
     /**
      * Traverses the dependency graph, resolving conflicts and building the paths from the root configuration.
      */
-    private void traverseGraph(final ResolveState resolveState, final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
+    private void traverseGraph(final ResolveState resolveState, final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache, @Nullable PrefetchingComponentMetaDataResolver prefetcher) {
         resolveState.onMoreSelected(resolveState.getRoot());
         final List<EdgeState> dependencies = Lists.newArrayList();
 
@@ -181,9 +220,9 @@ private void traverseGraph(final ResolveState resolveState, final Map<ModuleVers
                 // Initialize and collect any new outgoing edges of this node
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
-                boolean edgeWasProcessed = resolveEdges(node, dependencies, INHERITING_DEPENDENCY_SPEC, false, resolveState, componentIdentifierCache);
+                boolean edgeWasProcessed = resolveEdges(node, dependencies, INHERITING_DEPENDENCY_SPEC, false, resolveState, componentIdentifierCache, prefetcher);
                 node.collectInheritedSubgraphConstraints(dependencies);
-                resolveEdges(node, dependencies, NOT_INHERITING_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, componentIdentifierCache);
+                resolveEdges(node, dependencies, NOT_INHERITING_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, componentIdentifierCache, prefetcher);
             } else {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 if (moduleConflictHandler.hasConflicts()) {
@@ -240,12 +279,13 @@ private boolean resolveEdges(final NodeState node,
                               final Spec<EdgeState> dependencyFilter,
                               final boolean recomputeSelectors,
                               final ResolveState resolveState,
-                              final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
+                              final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache,
+                              @Nullable final PrefetchingComponentMetaDataResolver prefetcher) {
         if (dependencies.isEmpty()) {
             return false;
         }
         if (performSelectionSerially(dependencies, dependencyFilter, resolveState, recomputeSelectors)) {
-            maybeDownloadMetadataInParallel(node, componentIdentifierCache, dependencies, dependencyFilter);
+            maybeDownloadMetadataInParallel(node, componentIdentifierCache, dependencies, dependencyFilter, prefetcher);
             attachToTargetRevisionsSerially(dependencies, dependencyFilter);
             return true;
         } else {
@@ -316,8 +356,9 @@ private void checkForModuleConflicts(ResolveState resolveState, ModuleResolveSta
     /**
      * Prepares the resolution of edges, either serially or concurrently.
      * It uses a simple heuristic to determine if we should perform concurrent resolution, based on the the number of edges, and whether they have unresolved metadata.
+     * When metadata is prefetched, the downloads are handed over to the prefetcher instead, which keeps fetching ahead of the traversal.
      */
-    private void maybeDownloadMetadataInParallel(NodeState node, Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
+    private void maybeDownloadMetadataInParallel(NodeState node, Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter, @Nullable PrefetchingComponentMetaDataResolver prefetcher) {
         List<ComponentState> requiringDownload = null;
         for (EdgeState dependency : dependencies) {
             if (!dependencyFilter.isSatisfiedBy(dependency)) {
@@ -334,6 +375,14 @@ private void maybeDownloadMetadataInParallel(NodeState node, Map<ModuleVersionId
                 }
             }
         }
+        if (requiringDownload != null && prefetcher != null) {
+            for (ComponentState componentState : requiringDownload) {
+                if (!componentState.getModule().isVirtualPlatform()) {
+                    prefetcher.prefetch(toComponentId(componentState.getId(), componentIdentifierCache), componentState.getComponentOverrideMetadata());
+                }
+            }
+            return;
+        }
         // Only download in parallel if there is more than 1 component to download
         if (requiringDownload != null && requiringDownload.size() > 1) {
             final ImmutableList<ComponentState> toDownloadInParallel = ImmutableList.copyOf(requiringDownload);
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link ComponentMetaDataResolver} that fetches component metadata ahead of the graph traversal.
+ *
+ * Components are submitted as soon as they are selected by an edge of the traversal frontier. Once the metadata for a component
+ * is available, the fixed versions it depends on are fetched speculatively, up to a limited number of levels ahead of the traversal.
+ * The fetches are added to a build operation queue, so they run on the build operation workers, bounded by the number of workers.
+ * The traversal itself stays on the calling thread: when it needs a component that is being prefetched, it waits for that fetch to
+ * complete, or runs the fetch itself if it has not started yet.
+ */
+class PrefetchingComponentMetaDataResolver implements ComponentMetaDataResolver, Stoppable {
+    static final String PREFETCH_PROPERTY = "org.gradle.internal.dependency-resolution.prefetch";
+    private static final int MAX_LOOKAHEAD = 3;
+
+    private final ComponentMetaDataResolver delegate;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final BuildOperationQueue<RunnableBuildOperation> queue;
+    private final ConcurrentMap<ComponentIdentifier, Prefetch> prefetches = Maps.newConcurrentMap();
+    private volatile boolean stopped;
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(PREFETCH_PROPERTY);
+    }
+
+    PrefetchingComponentMetaDataResolver(ComponentMetaDataResolver delegate, VersionSelectorScheme versionSelectorScheme, BuildOperationQueue<RunnableBuildOperation> queue) {
+        this.delegate = delegate;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.queue = queue;
+    }
+
+    /**
+     * Starts fetching the metadata for a component selected by the traversal.
+     */
+    void prefetch(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata) {
+        prefetch(identifier, componentOverrideMetadata, 0);
+    }
+
+    private void prefetch(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, int depth) {
+        if (stopped || componentOverrideMetadata.getClientModule() != null) {
+            return;
+        }
+        Prefetch prefetch = new Prefetch(identifier, componentOverrideMetadata, depth);
+        if (prefetches.putIfAbsent(identifier, prefetch) == null) {
+            queue.add(prefetch);
+        }
+    }
+
+    @Override
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        Prefetch prefetch = prefetches.get(identifier);
+        if (prefetch == null || !prefetch.canServe(componentOverrideMetadata)) {
+            delegate.resolve(identifier, componentOverrideMetadata, result);
+            return;
+        }
+        prefetch.runOrAwait();
+        prefetch.applyTo(result);
+        if (prefetch.depth > 0) {
+            // The traversal caught up with a speculative fetch, so keep looking ahead from here
+            lookAhead(prefetch.result, 1);
+        }
+    }
+
+    @Override
+    public boolean isFetchingMetadataCheap(ComponentIdentifier identifier) {
+        return delegate.isFetchingMetadataCheap(identifier);
+    }
+
+    /**
+     * Stops prefetching. The fetches that have not started yet are discarded, the queue still needs to be waited on for those in progress.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        queue.cancel();
+    }
+
+    private void lookAhead(DefaultBuildableComponentResolveResult result, int depth) {
+        if (stopped || depth > MAX_LOOKAHEAD || result == null || !result.hasResult() || result.getFailure() != null) {
+            return;
+        }
+        for (ConfigurationMetadata configuration : traversedConfigurations(result.getMetadata())) {
+            for (DependencyMetadata dependency : configuration.getDependencies()) {
+                ComponentIdentifier target = fixedTarget(dependency);
+                if (target != null && !prefetches.containsKey(target)) {
+                    prefetch(target, DefaultComponentOverrideMetadata.forDependency(dependency), depth);
+                }
+            }
+        }
+    }
+
+    private static List<? extends ConfigurationMetadata> traversedConfigurations(ComponentResolveMetadata metadata) {
+        if (metadata.isMissing()) {
+            return Collections.emptyList();
+        }
+        Optional<ImmutableList<? extends ConfigurationMetadata>> variants = metadata.getVariantsForGraphTraversal();
+        if (variants.isPresent()) {
+            return variants.get();
+        }
+        List<ConfigurationMetadata> configurations = Lists.newArrayList();
+        for (String name : metadata.getConfigurationNames()) {
+            ConfigurationMetadata configuration = metadata.getConfiguration(name);
+            if (configuration != null && configuration.isVisible() && configuration.isTransitive()) {
+                configurations.add(configuration);
+            }
+        }
+        return configurations;
+    }
+
+    /**
+     * Returns the component a dependency will most likely resolve to, when this is known without listing versions.
+     */
+    private ComponentIdentifier fixedTarget(DependencyMetadata dependency) {
+        ComponentSelector selector = dependency.getSelector();
+        if (dependency.isConstraint() || !(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        VersionConstraint versionConstraint = moduleSelector.getVersionConstraint();
+        String version = versionConstraint.getStrictVersion().isEmpty() ? versionConstraint.getRequiredVersion() : versionConstraint.getStrictVersion();
+        if (version.isEmpty() || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getModuleIdentifier(), version);
+    }
+
+    private class Prefetch implements RunnableBuildOperation {
+        private final ComponentIdentifier identifier;
+        private final ComponentOverrideMetadata componentOverrideMetadata;
+        private final int depth;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private DefaultBuildableComponentResolveResult result;
+        private Throwable unexpectedFailure;
+
+        Prefetch(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, int depth) {
+            this.identifier = identifier;
+            this.componentOverrideMetadata = componentOverrideMetadata;
+            this.depth = depth;
+        }
+
+        boolean canServe(ComponentOverrideMetadata requested) {
+            return requested.getClientModule() == null
+                && requested.isChanging() == componentOverrideMetadata.isChanging()
+                && requested.getArtifacts().equals(componentOverrideMetadata.getArtifacts());
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            if (!stopped) {
+                runIfUnclaimed();
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Prefetch metadata of " + identifier.getDisplayName());
+        }
+
+        void runOrAwait() {
+            if (!runIfUnclaimed()) {
+                try {
+                    completed.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
+
+        private boolean runIfUnclaimed() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            try {
+                delegate.resolve(identifier, componentOverrideMetadata, result);
+                this.result = result;
+            } catch (Throwable t) {
+                unexpectedFailure = t;
+            } finally {
+                completed.countDown();
+            }
+            lookAhead(this.result, depth + 1);
+            return true;
+        }
+
+        void applyTo(BuildableComponentResolveResult target) {
+            if (unexpectedFailure != null) {
+                throw UncheckedException.throwAsUncheckedException(unexpectedFailure);
+            }
+            for (String location : result.getAttempted()) {
+                target.attempted(location);
+            }
+            if (!result.hasResult()) {
+                return;
+            }
+            if (result.getFailure() != null) {
+                target.failed(result.getFailure());
+            } else {
+                target.resolved(result.getMetadata());
+            }
+        }
+    }
+}
@@ -17,7 +17,9 @@
 
 import org.gradle.cache.internal.BinaryStore;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.io.ByteBufferInputStream;
 import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder;
@@ -26,11 +28,17 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
 class DefaultBinaryStore implements BinaryStore, Closeable {
+    // Mapped files cannot be deleted on Windows until the mapping is garbage collected
+    private static final boolean MAP_DATA = !OperatingSystem.current().isWindows();
+
     private File file;
     private StringDeduplicatingKryoBackedEncoder encoder;
     private long offset = -1;
@@ -73,11 +81,13 @@ public String toString() {
     @Override
     public BinaryData done() {
         try {
+            long end = offset;
             if (encoder != null) {
                 encoder.done();
                 encoder.flush();
+                end = encoder.getWritePosition();
             }
-            return new SimpleBinaryData(file, offset);
+            return new SimpleBinaryData(file, offset, end);
         } finally {
             offset = -1;
         }
@@ -106,26 +116,38 @@ long getSize() {
         return file.length();
     }
 
+    /**
+     * The data written between two calls to {@link #done()}. When supported, the data is memory mapped the first time it is read,
+     * and the mapping is reused by later reads, so that reading the data again does not open the file or copy it through the heap.
+     */
     private static class SimpleBinaryData implements BinaryStore.BinaryData {
         private final long offset;
+        private final long end;
         private final File inputFile;
 
+        private ByteBuffer mappedData;
         private Decoder decoder;
         private CompositeStoppable resources;
 
-        public SimpleBinaryData(File inputFile, long offset) {
+        public SimpleBinaryData(File inputFile, long offset, long end) {
             this.inputFile = inputFile;
             this.offset = offset;
+            this.end = end;
         }
 
         @Override
         public <T> T read(BinaryStore.ReadAction<T> readAction) {
             try {
                 if (decoder == null) {
-                    RandomAccessFile randomAccess = new RandomAccessFile(inputFile, "r");
-                    randomAccess.seek(offset);
-                    decoder = new StringDeduplicatingKryoBackedDecoder(new RandomAccessFileInputStream(randomAccess));
-                    resources = new CompositeStoppable().add(randomAccess, decoder);
+                    if (MAP_DATA) {
+                        decoder = new StringDeduplicatingKryoBackedDecoder(new ByteBufferInputStream(getMappedData().duplicate()));
+                        resources = new CompositeStoppable().add(decoder);
+                    } else {
+                        RandomAccessFile randomAccess = new RandomAccessFile(inputFile, "r");
+                        randomAccess.seek(offset);
+                        decoder = new StringDeduplicatingKryoBackedDecoder(new RandomAccessFileInputStream(randomAccess));
+                        resources = new CompositeStoppable().add(randomAccess, decoder);
+                    }
                 }
                 return readAction.read(decoder);
             } catch (Exception e) {
@@ -133,6 +155,19 @@ public <T> T read(BinaryStore.ReadAction<T> readAction) {
             }
         }
 
+        private ByteBuffer getMappedData() throws IOException {
+            if (mappedData == null) {
+                RandomAccessFile randomAccess = new RandomAccessFile(inputFile, "r");
+                try {
+                    // The mapping stays valid once the file is closed
+                    mappedData = randomAccess.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, end - offset);
+                } finally {
+                    randomAccess.close();
+                }
+            }
+            return mappedData;
+        }
+
         @Override
         public void close() {
             try {
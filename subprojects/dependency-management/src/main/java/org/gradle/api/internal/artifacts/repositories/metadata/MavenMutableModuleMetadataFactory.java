@@ -24,6 +24,7 @@
 import org.gradle.internal.component.external.model.PreferJavaRuntimeVariant;
 import org.gradle.internal.component.external.model.maven.DefaultMutableMavenModuleResolveMetadata;
 import org.gradle.internal.component.external.model.maven.MavenDependencyDescriptor;
+import org.gradle.internal.component.external.model.maven.MavenDependencyInterner;
 import org.gradle.internal.component.external.model.maven.MutableMavenModuleResolveMetadata;
 
 import java.util.Collections;
@@ -34,6 +35,7 @@ public class MavenMutableModuleMetadataFactory implements MutableModuleMetadataF
     private final MavenImmutableAttributesFactory attributesFactory;
     private final NamedObjectInstantiator objectInstantiator;
     private final PreferJavaRuntimeVariant schema;
+    private final MavenDependencyInterner dependencyInterner = new MavenDependencyInterner();
 
     public MavenMutableModuleMetadataFactory(ImmutableModuleIdentifierFactory moduleIdentifierFactory,
                                              ImmutableAttributesFactory attributesFactory,
@@ -64,6 +66,6 @@ public MutableMavenModuleResolveMetadata missing(ModuleComponentIdentifier from)
 
     public MutableMavenModuleResolveMetadata create(ModuleComponentIdentifier from, List<MavenDependencyDescriptor> dependencies) {
         ModuleVersionIdentifier mvi = asVersionIdentifier(from);
-        return new DefaultMutableMavenModuleResolveMetadata(mvi, from, dependencies, attributesFactory, objectInstantiator, schema);
+        return new DefaultMutableMavenModuleResolveMetadata(mvi, from, dependencyInterner.internAll(dependencies), attributesFactory, objectInstantiator, schema);
     }
 }
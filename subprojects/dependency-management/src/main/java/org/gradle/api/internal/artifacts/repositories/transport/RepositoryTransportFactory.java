@@ -40,6 +40,8 @@
 import org.gradle.internal.verifier.HttpRedirectVerifier;
 import org.gradle.util.BuildCommencedTimeProvider;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -57,6 +59,7 @@ public class RepositoryTransportFactory {
     private final StartParameterResolutionOverride startParameterResolutionOverride;
     private final ProducerGuard<ExternalResourceName> producerGuard;
     private final FileResourceRepository fileRepository;
+    private final File partialDownloadsDirectory;
 
     public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceConnectorFactory,
                                       ProgressLoggerFactory progressLoggerFactory,
@@ -67,7 +70,8 @@ public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceC
                                       BuildOperationExecutor buildOperationExecutor,
                                       StartParameterResolutionOverride startParameterResolutionOverride,
                                       ProducerGuard<ExternalResourceName> producerGuard,
-                                      FileResourceRepository fileRepository) {
+                                      FileResourceRepository fileRepository,
+                                      @Nullable File partialDownloadsDirectory) {
         this.progressLoggerFactory = progressLoggerFactory;
         this.temporaryFileProvider = temporaryFileProvider;
         this.cachedExternalResourceIndex = cachedExternalResourceIndex;
@@ -77,6 +81,7 @@ public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceC
         this.startParameterResolutionOverride = startParameterResolutionOverride;
         this.producerGuard = producerGuard;
         this.fileRepository = fileRepository;
+        this.partialDownloadsDirectory = partialDownloadsDirectory;
 
         for (ResourceConnectorFactory connectorFactory : resourceConnectorFactory) {
             register(connectorFactory);
@@ -221,5 +226,11 @@ public Collection<Authentication> getAuthentications() {
         public HttpRedirectVerifier getRedirectVerifier() {
             return redirectVerifier;
         }
+
+        @Nullable
+        @Override
+        public File getPartialDownloadsDirectory() {
+            return partialDownloadsDirectory;
+        }
     }
 }
@@ -59,6 +59,7 @@ public class DefaultTransformationRegistrationFactory implements TransformationR
 
     private final BuildOperationExecutor buildOperationExecutor;
     private final IsolatableFactory isolatableFactory;
+    private final IsolatedTransformParametersCache isolatedParametersCache;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
     private final TransformerInvocationFactory transformerInvocationFactory;
     private final ValueSnapshotter valueSnapshotter;
@@ -75,6 +76,7 @@ public class DefaultTransformationRegistrationFactory implements TransformationR
     public DefaultTransformationRegistrationFactory(
         BuildOperationExecutor buildOperationExecutor,
         IsolatableFactory isolatableFactory,
+        IsolatedTransformParametersCache isolatedParametersCache,
         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
         TransformerInvocationFactory transformerInvocationFactory,
         ValueSnapshotter valueSnapshotter,
@@ -88,6 +90,7 @@ public DefaultTransformationRegistrationFactory(
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.isolatableFactory = isolatableFactory;
+        this.isolatedParametersCache = isolatedParametersCache;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
         this.transformerInvocationFactory = transformerInvocationFactory;
         this.valueSnapshotter = valueSnapshotter;
@@ -144,6 +147,7 @@ public ArtifactTransformRegistration create(ImmutableAttributes from, ImmutableA
             buildOperationExecutor,
             classLoaderHierarchyHasher,
             isolatableFactory,
+            isolatedParametersCache,
             valueSnapshotter,
             fileCollectionFactory,
             fileLookup,
@@ -89,6 +89,7 @@ public class DefaultTransformer extends AbstractTransformer<TransformAction> {
     private final BuildOperationExecutor buildOperationExecutor;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
     private final IsolatableFactory isolatableFactory;
+    private final IsolatedTransformParametersCache isolatedParametersCache;
     private final ValueSnapshotter valueSnapshotter;
     private final FileCollectionFactory fileCollectionFactory;
     private final FileLookup fileLookup;
@@ -111,6 +112,7 @@ public DefaultTransformer(
         BuildOperationExecutor buildOperationExecutor,
         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
         IsolatableFactory isolatableFactory,
+        IsolatedTransformParametersCache isolatedParametersCache,
         ValueSnapshotter valueSnapshotter,
         FileCollectionFactory fileCollectionFactory,
         FileLookup fileLookup,
@@ -125,6 +127,7 @@ public DefaultTransformer(
         this.buildOperationExecutor = buildOperationExecutor;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
         this.isolatableFactory = isolatableFactory;
+        this.isolatedParametersCache = isolatedParametersCache;
         this.valueSnapshotter = valueSnapshotter;
         this.fileCollectionFactory = fileCollectionFactory;
         this.fileLookup = fileLookup;
@@ -212,7 +215,19 @@ public void isolateParameters(FileCollectionFingerprinterRegistry fingerprinterR
 
     protected IsolatedParameters doIsolateParameters(FileCollectionFingerprinterRegistry fingerprinterRegistry) {
         Isolatable<TransformParameters> isolatedParameterObject = isolatableFactory.isolate(parameterObject);
+        if (parameterObject == null) {
+            return fingerprintParameters(isolatedParameterObject, fingerprinterRegistry);
+        }
+
+        // Registrations of the same transform with equal parameters share the fingerprint of the parameters, as long as they use the same normalization
+        Hasher parametersHasher = Hashing.newHasher();
+        appendActionImplementation(getImplementationClass(), parametersHasher, classLoaderHierarchyHasher);
+        parametersHasher.putBoolean(cacheable);
+        isolatedParameterObject.appendToHasher(parametersHasher);
+        return isolatedParametersCache.getOrCreate(fingerprinterRegistry, parametersHasher.hash(), () -> fingerprintParameters(isolatedParameterObject, fingerprinterRegistry));
+    }
 
+    private IsolatedParameters fingerprintParameters(Isolatable<TransformParameters> isolatedParameterObject, FileCollectionFingerprinterRegistry fingerprinterRegistry) {
         Hasher hasher = Hashing.newHasher();
         appendActionImplementation(getImplementationClass(), hasher, classLoaderHierarchyHasher);
 
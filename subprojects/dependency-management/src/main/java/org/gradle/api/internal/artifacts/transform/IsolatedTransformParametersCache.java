@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform;
+
+import org.gradle.api.tasks.ClasspathNormalizer;
+import org.gradle.internal.fingerprint.FileCollectionFingerprinterRegistry;
+import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares the isolated and fingerprinted parameters of artifact transforms between the registrations of a build.
+ *
+ * A build can have many registrations of the same transform with equal parameters. The parameters of each registration are
+ * still isolated separately, but the fingerprinting of their inputs, which is the expensive part, is only done for the first
+ * of them that uses a given input normalization. Each project has its own fingerprinter registry, which applies the project's
+ * runtime classpath normalization, so equal parameters can have different fingerprints in different projects. The configuration
+ * of the registry's classpath fingerprinter is therefore part of the key, which lets projects with the same normalization share
+ * the fingerprints. The other fingerprinters are shared by all projects of a build.
+ */
+public class IsolatedTransformParametersCache {
+    private final ConcurrentMap<HashCode, ConcurrentMap<HashCode, DefaultTransformer.IsolatedParameters>> isolatedParameters = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the isolated parameters for the given key, which identifies the transform implementation and the values of its
+     * parameters, creating them when no equal parameters have been fingerprinted with the normalization of the given registry
+     * in this build.
+     */
+    public DefaultTransformer.IsolatedParameters getOrCreate(FileCollectionFingerprinterRegistry fingerprinterRegistry, HashCode key, Supplier<DefaultTransformer.IsolatedParameters> factory) {
+        ConcurrentMap<HashCode, DefaultTransformer.IsolatedParameters> parametersForNormalization = isolatedParameters.computeIfAbsent(normalizationHash(fingerprinterRegistry), normalization -> new ConcurrentHashMap<>());
+        DefaultTransformer.IsolatedParameters parameters = parametersForNormalization.get(key);
+        if (parameters == null) {
+            // Fingerprinting runs build operations, so don't hold a lock on the map while doing it
+            parameters = factory.get();
+            DefaultTransformer.IsolatedParameters existing = parametersForNormalization.putIfAbsent(key, parameters);
+            if (existing != null) {
+                parameters = existing;
+            }
+        }
+        return parameters;
+    }
+
+    private static HashCode normalizationHash(FileCollectionFingerprinterRegistry fingerprinterRegistry) {
+        Hasher hasher = Hashing.newHasher();
+        ClasspathFingerprinter classpathFingerprinter = (ClasspathFingerprinter) fingerprinterRegistry.getFingerprinter(ClasspathNormalizer.class);
+        classpathFingerprinter.appendConfigurationToHasher(hasher);
+        return hasher.hash();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.component.external.model.maven;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Collection;
+
+/**
+ * Shares the dependency declarations of Maven components between all the components of a build.
+ *
+ * Components often declare the same dependencies: the versions of a module mostly differ in a few of them,
+ * and the modules of a multi-module library usually depend on the same things, often through a common parent
+ * POM. Equal descriptors, and equal lists of descriptors, are kept in memory only once. Interned values are
+ * only weakly referenced, so they are discarded once no component uses them anymore.
+ */
+public class MavenDependencyInterner {
+    private final Interner<MavenDependencyDescriptor> dependencies = Interners.newWeakInterner();
+    private final Interner<ImmutableList<MavenDependencyDescriptor>> dependencyLists = Interners.newWeakInterner();
+
+    public MavenDependencyDescriptor intern(MavenDependencyDescriptor dependency) {
+        return dependencies.intern(dependency);
+    }
+
+    public ImmutableList<MavenDependencyDescriptor> internAll(Collection<MavenDependencyDescriptor> dependencies) {
+        if (dependencies.isEmpty()) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<MavenDependencyDescriptor> builder = ImmutableList.builderWithExpectedSize(dependencies.size());
+        for (MavenDependencyDescriptor dependency : dependencies) {
+            builder.add(intern(dependency));
+        }
+        return dependencyLists.intern(builder.build());
+    }
+}
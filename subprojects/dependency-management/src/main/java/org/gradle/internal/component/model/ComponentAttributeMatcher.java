@@ -34,6 +34,8 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * An attribute matcher, which optimizes for the case of only comparing 0 or 1 candidates and delegates to {@link MultipleCandidateMatcher} for all other cases.
@@ -48,6 +50,19 @@ public class ComponentAttributeMatcher {
      */
     private final Map<CachedQuery, int[]> cachedQueries = Maps.newConcurrentMap();
 
+    /**
+     * The same candidate is usually checked against the same request many times, for example for each
+     * dependency on a single variant component, so the result of {@link #isMatching} is cached too.
+     */
+    private final Map<CompatibilityQuery, Boolean> cachedCompatibility = Maps.newConcurrentMap();
+
+    /**
+     * The matching plans of the schemas this matcher is used with. Queries are all different combinations
+     * of a small set of attribute values, so a plan remembers the outcome of the compatibility and
+     * disambiguation rules for each combination of values, and the rules only run the first time.
+     */
+    private final Map<AttributeSelectionSchema, MatchingPlan> plans = Maps.newConcurrentMap();
+
     /**
      * Determines whether the given candidate is compatible with the requested criteria, according to the given schema.
      */
@@ -59,6 +74,16 @@ public boolean isMatching(AttributeSelectionSchema schema, AttributeContainerInt
         ImmutableAttributes requestedAttributes = requested.asImmutable();
         ImmutableAttributes candidateAttributes = candidate.asImmutable();
 
+        CompatibilityQuery query = new CompatibilityQuery(schema, requestedAttributes, candidateAttributes);
+        Boolean cached = cachedCompatibility.get(query);
+        if (cached == null) {
+            cached = isMatching(planFor(schema), candidateAttributes, requestedAttributes);
+            cachedCompatibility.put(query, cached);
+        }
+        return cached;
+    }
+
+    private static boolean isMatching(AttributeSelectionSchema schema, ImmutableAttributes candidateAttributes, ImmutableAttributes requestedAttributes) {
         for (Attribute<?> attribute : requestedAttributes.keySet()) {
             AttributeValue<?> requestedValue = requestedAttributes.findEntry(attribute);
             AttributeValue<?> candidateValue = candidateAttributes.findEntry(attribute.getName());
@@ -82,6 +107,7 @@ public List<AttributeMatcher.MatchingDescription> describeMatching(AttributeSele
         ImmutableAttributes requestedAttributes = requested.asImmutable();
         ImmutableAttributes candidateAttributes = candidate.asImmutable();
 
+        AttributeSelectionSchema plan = planFor(schema);
         ImmutableSet<Attribute<?>> attributes = requestedAttributes.keySet();
         List<AttributeMatcher.MatchingDescription> result = Lists.newArrayListWithCapacity(attributes.size());
         for (Attribute<?> attribute : attributes) {
@@ -89,7 +115,7 @@ public List<AttributeMatcher.MatchingDescription> describeMatching(AttributeSele
             AttributeValue<?> candidateValue = candidateAttributes.findEntry(attribute.getName());
             if (candidateValue.isPresent()) {
                 Object coercedValue = candidateValue.coerce(attribute);
-                boolean match = schema.matchValue(attribute, requestedValue.get(), coercedValue);
+                boolean match = plan.matchValue(attribute, requestedValue.get(), coercedValue);
                 result.add(new AttributeMatcher.MatchingDescription(attribute, requestedValue, candidateValue, match));
             } else {
                 result.add(new AttributeMatcher.MatchingDescription(attribute, requestedValue, candidateValue, false));
@@ -135,7 +161,7 @@ public <T extends HasAttributes> List<T> match(AttributeSelectionSchema schema,
         if (index != null) {
             return CachedQuery.select(index, candidates);
         }
-        List<T> matches = new MultipleCandidateMatcher<T>(schema, candidates, requestedAttributes).getMatches();
+        List<T> matches = new MultipleCandidateMatcher<T>(planFor(schema), candidates, requestedAttributes).getMatches();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Selected matches {} from candidates {} for {}", matches, candidates, requested);
         }
@@ -143,6 +169,18 @@ public <T extends HasAttributes> List<T> match(AttributeSelectionSchema schema,
         return matches;
     }
 
+    private AttributeSelectionSchema planFor(AttributeSelectionSchema schema) {
+        MatchingPlan plan = plans.get(schema);
+        if (plan == null) {
+            plan = new MatchingPlan(schema);
+            MatchingPlan existing = plans.putIfAbsent(schema, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
     // in theory we don't need the synchronized here, but let's be safer in the beginning
     private synchronized <T extends HasAttributes> void cacheMatchingResult(Collection<? extends T> candidates, CachedQuery query, List<T> matches) {
         int[] queryResult;
@@ -249,4 +287,123 @@ public String toString() {
                 '}';
         }
     }
+
+    private static class CompatibilityQuery {
+        private final AttributeSelectionSchema schema;
+        private final ImmutableAttributes requestedAttributes;
+        private final ImmutableAttributes candidateAttributes;
+        private final int hashCode;
+
+        private CompatibilityQuery(AttributeSelectionSchema schema, ImmutableAttributes requestedAttributes, ImmutableAttributes candidateAttributes) {
+            this.schema = schema;
+            this.requestedAttributes = requestedAttributes;
+            this.candidateAttributes = candidateAttributes;
+            this.hashCode = 31 * (31 * schema.hashCode() + requestedAttributes.hashCode()) + candidateAttributes.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CompatibilityQuery that = (CompatibilityQuery) o;
+            return hashCode == that.hashCode &&
+                schema.equals(that.schema) &&
+                requestedAttributes.equals(that.requestedAttributes) &&
+                candidateAttributes.equals(that.candidateAttributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Remembers the outcome of the compatibility and disambiguation rules of a schema. Attribute values are
+     * immutable and rules must not have side effects, so the outcome for a given combination of values never changes.
+     */
+    private static class MatchingPlan implements AttributeSelectionSchema {
+        private final AttributeSelectionSchema schema;
+        private final Map<ValueQuery, Boolean> compatibleValues = Maps.newConcurrentMap();
+        private final Map<ValueQuery, Set<Object>> preferredValues = Maps.newConcurrentMap();
+
+        private MatchingPlan(AttributeSelectionSchema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public boolean hasAttribute(Attribute<?> attribute) {
+            return schema.hasAttribute(attribute);
+        }
+
+        @Override
+        public Set<Object> disambiguate(Attribute<?> attribute, @Nullable Object requested, Set<Object> candidates) {
+            Set<Object> matches = preferredValues.get(new ValueQuery(attribute, requested, candidates));
+            if (matches == null) {
+                matches = schema.disambiguate(attribute, requested, candidates);
+                // The candidates are owned by the caller, so keep a copy in the key
+                preferredValues.put(new ValueQuery(attribute, requested, ImmutableSet.copyOf(candidates)), matches);
+            }
+            return matches;
+        }
+
+        @Override
+        public boolean matchValue(Attribute<?> attribute, Object requested, Object candidate) {
+            ValueQuery query = new ValueQuery(attribute, requested, candidate);
+            Boolean match = compatibleValues.get(query);
+            if (match == null) {
+                match = schema.matchValue(attribute, requested, candidate);
+                compatibleValues.put(query, match);
+            }
+            return match;
+        }
+
+        @Override
+        public Attribute<?> getAttribute(String name) {
+            return schema.getAttribute(name);
+        }
+
+        @Override
+        public Attribute<?>[] collectExtraAttributes(ImmutableAttributes[] candidates, ImmutableAttributes requested) {
+            return schema.collectExtraAttributes(candidates, requested);
+        }
+    }
+
+    private static class ValueQuery {
+        private final Attribute<?> attribute;
+        private final Object requested;
+        private final Object candidate;
+        private final int hashCode;
+
+        private ValueQuery(Attribute<?> attribute, @Nullable Object requested, Object candidate) {
+            this.attribute = attribute;
+            this.requested = requested;
+            this.candidate = candidate;
+            this.hashCode = Objects.hash(attribute, requested, candidate);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ValueQuery that = (ValueQuery) o;
+            return hashCode == that.hashCode &&
+                attribute.equals(that.attribute) &&
+                Objects.equals(requested, that.requested) &&
+                candidate.equals(that.candidate);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
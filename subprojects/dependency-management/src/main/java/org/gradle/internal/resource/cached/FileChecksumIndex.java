@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.cached;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingManager;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A persistent index of the SHA1 checksums of files in the artifact cache, by path. An entry is only used
+ * while the length and last modified time of the file are the same as when the checksum was calculated,
+ * so a file is hashed once instead of each time it is verified.
+ */
+public class FileChecksumIndex {
+    private static final boolean MAP_FILES = !OperatingSystem.current().isWindows();
+    private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final String persistentCacheName;
+    private final ArtifactCacheLockingManager artifactCacheLockingManager;
+    private PersistentIndexedCache<String, Entry> persistentCache;
+
+    public FileChecksumIndex(String persistentCacheName, ArtifactCacheLockingManager artifactCacheLockingManager) {
+        this.persistentCacheName = persistentCacheName;
+        this.artifactCacheLockingManager = artifactCacheLockingManager;
+    }
+
+    private synchronized PersistentIndexedCache<String, Entry> getPersistentCache() {
+        if (persistentCache == null) {
+            persistentCache = artifactCacheLockingManager.createCache(persistentCacheName, BaseSerializerFactory.STRING_SERIALIZER, new EntrySerializer());
+        }
+        return persistentCache;
+    }
+
+    /**
+     * Returns the SHA1 checksum of the given file, calculating it only when the file has changed since it was last calculated.
+     */
+    public HashValue sha1(File file) {
+        final String path = file.getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        Entry entry = artifactCacheLockingManager.useCache(new Factory<Entry>() {
+            @Override
+            public Entry create() {
+                return getPersistentCache().get(path);
+            }
+        });
+        if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+            return entry.sha1;
+        }
+
+        // Hash outside of the cache lock
+        final Entry calculated = new Entry(length, lastModified, hash(file));
+        artifactCacheLockingManager.useCache(new Runnable() {
+            @Override
+            public void run() {
+                getPersistentCache().put(path, calculated);
+            }
+        });
+        return calculated.sha1;
+    }
+
+    private static HashValue hash(File file) {
+        if (!MAP_FILES) {
+            // Mapped files cannot be deleted on Windows until the mapping is garbage collected
+            return HashUtil.sha1(file);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA1");
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position)));
+                }
+            }
+            return new HashValue(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not calculate the checksum of %s.", file), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        private final long length;
+        private final long lastModified;
+        private final HashValue sha1;
+
+        Entry(long length, long lastModified, HashValue sha1) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.sha1 = sha1;
+        }
+    }
+
+    private static class EntrySerializer implements Serializer<Entry> {
+        @Override
+        public Entry read(Decoder decoder) throws Exception {
+            long length = decoder.readSmallLong();
+            long lastModified = decoder.readLong();
+            HashValue sha1 = new HashValue(decoder.readBinary());
+            return new Entry(length, lastModified, sha1);
+        }
+
+        @Override
+        public void write(Encoder encoder, Entry value) throws Exception {
+            encoder.writeSmallLong(value.length);
+            encoder.writeLong(value.lastModified);
+            encoder.writeBinary(value.sha1.asByteArray());
+        }
+    }
+}
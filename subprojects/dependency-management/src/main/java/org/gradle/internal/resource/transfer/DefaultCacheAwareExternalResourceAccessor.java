@@ -98,6 +98,12 @@ public LocallyAvailableExternalResource get() {
                 // We have a cached version, but it might be out of date, so we tell the upstreams to revalidate too
                 final boolean revalidate = true;
 
+                // Without local candidates, only transfer the content if it has changed since it was cached
+                boolean hasLocalCandidates = additionalCandidates != null && !additionalCandidates.isNone();
+                if (cached != null && cached.getExternalResourceMetaData() != null && !hasLocalCandidates) {
+                    return revalidateCached(location, fileStore, cached);
+                }
+
                 // Get the metadata first to see if it's there
                 final ExternalResourceMetaData remoteMetaData = delegate.resource(location, revalidate).getMetaData();
                 if (remoteMetaData == null) {
@@ -125,7 +131,6 @@ public ExternalResourceMetaData create() {
                 }
 
                 // Either no cached, or it's changed. See if we can find something local with the same checksum
-                boolean hasLocalCandidates = additionalCandidates != null && !additionalCandidates.isNone();
                 if (hasLocalCandidates) {
                     // The “remote” may have already given us the checksum
                     HashValue remoteChecksum = remoteMetaData.getSha1();
@@ -214,6 +219,33 @@ private LocallyAvailableExternalResource copyToCache(final ExternalResourceName
         }
     }
 
+    private LocallyAvailableExternalResource revalidateCached(ExternalResourceName source, ResourceFileStore fileStore, CachedExternalResource cached) {
+        DownloadAction downloadAction = new DownloadAction(source);
+        ExternalResourceReadResult<Object> result;
+        try {
+            result = delegate.withProgressLogging().resource(source, true).withContentIfModified(cached.getExternalResourceMetaData(), downloadAction);
+        } catch (Exception e) {
+            throw ResourceExceptions.getFailed(source.getUri(), e);
+        }
+        if (result == null) {
+            return null;
+        }
+
+        if (result.isUnmodified()) {
+            LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", source, cached.getExternalLastModified());
+            // Update the cache entry in the index: this resets the age of the cached entry to zero
+            cachedExternalResourceIndex.store(source.toString(), cached.getCachedFile(), cached.getExternalResourceMetaData());
+            return fileResourceRepository.resource(cached.getCachedFile(), source.getUri(), cached.getExternalResourceMetaData());
+        }
+
+        // Move into cache
+        try {
+            return moveIntoCache(source, downloadAction.destination, fileStore, downloadAction.metaData);
+        } finally {
+            downloadAction.destination.delete();
+        }
+    }
+
     private LocallyAvailableExternalResource moveIntoCache(final ExternalResourceName source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
         return artifactCacheLockingManager.useCache(new Factory<LocallyAvailableExternalResource>() {
             @Override
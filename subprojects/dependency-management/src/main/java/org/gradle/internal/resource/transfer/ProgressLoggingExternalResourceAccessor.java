@@ -43,6 +43,17 @@ public ExternalResourceReadResponse openResource(URI location, boolean revalidat
         }
     }
 
+    @Override
+    @Nullable
+    public ExternalResourceReadResponse openResourceIfModified(URI location, ExternalResourceMetaData cachedMetaData) {
+        ExternalResourceReadResponse resource = delegate.openResourceIfModified(location, cachedMetaData);
+        if (resource != null && !resource.isUnmodified()) {
+            return new ProgressLoggingExternalResource(location, resource);
+        } else {
+            return resource;
+        }
+    }
+
     @Override
     @Nullable
     public ExternalResourceMetaData getMetaData(URI location, boolean revalidate) {
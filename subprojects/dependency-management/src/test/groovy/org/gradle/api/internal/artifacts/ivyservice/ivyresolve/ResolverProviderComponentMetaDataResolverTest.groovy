@@ -26,6 +26,7 @@ import org.gradle.api.internal.artifacts.ivyservice.IvyUtil
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata
 import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.resolve.ModuleVersionResolveException
 import org.gradle.internal.resolve.result.BuildableComponentResolveResult
 import spock.lang.Specification
@@ -557,6 +558,132 @@ class ResolverProviderComponentMetaDataResolverTest extends Specification {
         0 * result._
     }
 
+    def "searches repositories locally first and does not search remotely when a local match is found when parallel probing is enabled"() {
+        given:
+        def buildOperationExecutor = new TestBuildOperationExecutor()
+        def parallelResolver = parallelResolver(buildOperationExecutor)
+
+        when:
+        parallelResolver.resolve(moduleComponentId, componentRequestMetaData, result)
+
+        then:
+        1 * localAccess.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _) >> { id, meta, result ->
+            result.resolved(metaData)
+        }
+        1 * transformer.transform(_) >> { RepositoryChainModuleResolution it ->
+            assert it.module == metaData
+            assert it.repository.name == "repo1"
+            metaData
+        }
+        1 * result.resolved(_) >> { ModuleComponentResolveMetadata metaData ->
+            assert metaData == this.metaData
+        }
+
+        and:
+        buildOperationExecutor.log.records.empty
+
+        and:
+        0 * localAccess._
+        0 * remoteAccess._
+        0 * localAccess2._
+        0 * remoteAccess2._
+        0 * result._
+    }
+
+    def "probes repositories up front and skips the probes of later repositories once a match is found when parallel probing is enabled"() {
+        given:
+        def buildOperationExecutor = new TestBuildOperationExecutor()
+        def parallelResolver = parallelResolver(buildOperationExecutor)
+
+        when:
+        parallelResolver.resolve(moduleComponentId, componentRequestMetaData, result)
+
+        then:
+        1 * localAccess.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _)
+        1 * localAccess2.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _)
+
+        then:
+        1 * remoteAccess.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _) >> { id, meta, result ->
+            result.resolved(metaData)
+        }
+        1 * transformer.transform(_) >> { RepositoryChainModuleResolution it ->
+            assert it.module == metaData
+            assert it.repository.name == "repo1"
+            metaData
+        }
+        1 * result.resolved(_) >> { ModuleComponentResolveMetadata metaData ->
+            assert metaData == this.metaData
+        }
+
+        and:
+        buildOperationExecutor.log.records*.descriptor*.displayName == ["Probe repo1", "Probe repo2"]
+
+        and:
+        0 * localAccess._
+        0 * remoteAccess._
+        0 * localAccess2._
+        0 * remoteAccess2._
+        0 * result._
+    }
+
+    def "probes remote repositories up front and uses the first match in declaration order when parallel probing is enabled"() {
+        given:
+        def buildOperationExecutor = new TestBuildOperationExecutor()
+        def parallelResolver = parallelResolver(buildOperationExecutor)
+
+        when:
+        parallelResolver.resolve(moduleComponentId, componentRequestMetaData, result)
+
+        then:
+        1 * localAccess.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _)
+        1 * localAccess2.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _)
+
+        then:
+        1 * remoteAccess.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _) >> { id, meta, result ->
+            result.missing()
+        }
+
+        then:
+        1 * remoteAccess2.resolveComponentMetaData(moduleComponentId, componentRequestMetaData, _) >> { id, meta, result ->
+            result.resolved(metaData)
+        }
+
+        then:
+        1 * transformer.transform(_) >> { RepositoryChainModuleResolution it ->
+            assert it.module == metaData
+            assert it.repository.name == "repo2"
+            metaData
+        }
+        1 * result.resolved(_) >> { ModuleComponentResolveMetadata metaData ->
+            assert metaData == this.metaData
+        }
+
+        and:
+        buildOperationExecutor.log.records*.descriptor*.displayName == ["Probe repo1", "Probe repo2"]
+
+        and:
+        0 * localAccess._
+        0 * remoteAccess._
+        0 * localAccess2._
+        0 * remoteAccess2._
+        0 * result._
+    }
+
+    def parallelResolver(TestBuildOperationExecutor buildOperationExecutor) {
+        def parallelResolver = new RepositoryChainComponentMetaDataResolver(componentSelectionStrategy, transformer, RepositoryChainProber.parallel(buildOperationExecutor))
+        parallelResolver.add(Stub(ModuleComponentRepository) {
+            getLocalAccess() >> localAccess
+            getRemoteAccess() >> remoteAccess
+            getName() >> "repo1"
+        })
+        parallelResolver.add(Stub(ModuleComponentRepository) {
+            getLocalAccess() >> localAccess2
+            getRemoteAccess() >> remoteAccess2
+            getName() >> "repo2"
+        })
+        return parallelResolver
+    }
+
     def descriptor(String version) {
         def descriptor = Stub(ModuleDescriptor)
         descriptor.resolvedModuleRevisionId >> IvyUtil.createModuleRevisionId("org", "module", version)
@@ -1016,4 +1016,68 @@ class PomReaderTest extends AbstractPomReaderTest {
         then:
         def excluded = pomReader.dependencies[keyGroupTwo].excludedModules
         excluded == [DefaultModuleIdentifier.newId('*', '*')]
-    }}
+    }
+
+    def "ignores elements that are not relevant to dependency resolution"() {
+        when:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <description>Uses entities &copy; &amp; nested <b>markup</b></description>
+    <build>
+        <plugins>
+            <plugin>
+                <groupId>plugin-group</groupId>
+                <artifactId>plugin-artifact</artifactId>
+                <dependencies>
+                    <dependency>
+                        <groupId>plugin-dependency-group</groupId>
+                        <artifactId>plugin-dependency-artifact</artifactId>
+                    </dependency>
+                </dependencies>
+            </plugin>
+        </plugins>
+    </build>
+    <properties>
+        <prop.one>value&nbsp;one</prop.one>
+        <prop.two><![CDATA[value two]]></prop.two>
+    </properties>
+    <dependencies>
+        <dependency>
+            <groupId>group-two</groupId>
+            <artifactId>artifact-two</artifactId>
+            <version>\${prop.two}</version>
+        </dependency>
+    </dependencies>
+</project>
+"""
+        pomReader = new PomReader(locallyAvailableExternalResource, moduleIdentifierFactory)
+        MavenDependencyKey keyGroupTwo = new MavenDependencyKey('group-two', 'artifact-two', 'jar', null)
+
+        then:
+        pomReader.groupId == 'group-one'
+        pomReader.properties['prop.one'] == 'value\u00A0one'
+        pomReader.dependencies.size() == 1
+        assertResolvedPomDependency(keyGroupTwo, 'value two')
+    }
+
+    def "detects Gradle metadata marker comment"() {
+        when:
+        pomFile << """
+<project>
+    <!-- ${MetaDataParser.GRADLE_METADATA_MARKER} -->
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+</project>
+"""
+        pomReader = new PomReader(locallyAvailableExternalResource, moduleIdentifierFactory)
+
+        then:
+        pomReader.hasGradleMetadataMarker()
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact
+
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingManagerStub
+import org.gradle.internal.hash.HashUtil
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.resolve.ArtifactResolveException
+import org.gradle.internal.resource.cached.FileChecksumIndex
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class CachedArtifactVerifierTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def cacheLockingManager = new ArtifactCacheLockingManagerStub()
+    def checksumIndex = new FileChecksumIndex("file-sha1", cacheLockingManager)
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def visitor = Mock(ArtifactVisitor)
+    def fileStore = temporaryFolder.createDir("files-2.1")
+    def verifier = new CachedArtifactVerifier([fileStore], checksumIndex)
+
+    def "accepts cached files that match their checksum"() {
+        def file = storedFile("a.jar", "content")
+
+        when:
+        verifier.verify([file], buildOperationExecutor, visitor)
+
+        then:
+        0 * visitor._
+        cacheLockingManager.getCache("file-sha1").get(file.absolutePath) != null
+    }
+
+    def "reports cached files that do not match their checksum"() {
+        def file = storedFile("a.jar", "content")
+        file.text = "changed"
+
+        when:
+        verifier.verify([file], buildOperationExecutor, visitor)
+
+        then:
+        1 * visitor.visitFailure({ it instanceof ArtifactResolveException && it.message.contains("Checksum of cached artifact ${file} does not match") })
+        0 * visitor._
+    }
+
+    def "does not use the recorded checksum of a file that has changed"() {
+        def file = storedFile("a.jar", "content")
+        verifier.verify([file], buildOperationExecutor, visitor)
+
+        when:
+        file.text = "other content"
+        file.lastModified = file.lastModified() - 10000
+        verifier.verify([file], buildOperationExecutor, visitor)
+
+        then:
+        1 * visitor.visitFailure(_ as ArtifactResolveException)
+    }
+
+    def "ignores files outside of the file store"() {
+        def file = temporaryFolder.createFile("libs/ab12/a.jar")
+        file.text = "content"
+
+        when:
+        verifier.verify([file], buildOperationExecutor, visitor)
+
+        then:
+        0 * visitor._
+        buildOperationExecutor.log.records.empty
+    }
+
+    private TestFile storedFile(String name, String content) {
+        def file = fileStore.file("group", "module", "1.0", HashUtil.sha1(content.bytes).asHexString(), name)
+        file.text = content
+        return file
+    }
+}
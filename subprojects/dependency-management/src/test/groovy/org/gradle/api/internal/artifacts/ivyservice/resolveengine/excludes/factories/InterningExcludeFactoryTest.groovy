@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleIdentifier.newId
+
+class InterningExcludeFactoryTest extends Specification {
+    def factory = new InterningExcludeFactory(new DefaultExcludeFactory())
+
+    def "returns the same instance for equal specs"() {
+        expect:
+        factory.group("org").is(factory.group("org"))
+        factory.moduleId(newId("org", "foo")).is(factory.moduleId(newId("org", "foo")))
+        factory.anyOf(factory.group("org"), factory.module("foo")).is(factory.anyOf(factory.module("foo"), factory.group("org")))
+        factory.allOf([factory.group("org"), factory.module("foo")] as Set).is(factory.allOf([factory.module("foo"), factory.group("org")] as Set))
+        !factory.anyOf(factory.group("org"), factory.module("foo")).is(factory.allOf(factory.group("org"), factory.module("foo")))
+    }
+
+    def "caches merge operations by identity of the operands"() {
+        def delegate = Spy(InterningExcludeFactory, constructorArgs: [new DefaultExcludeFactory()])
+        def caching = new CachingExcludeFactory(delegate, new CachingExcludeFactory.MergeCaches())
+        def group = factory.group("org")
+        def module = factory.module("foo")
+
+        when:
+        def first = caching.anyOf(group, module)
+        def second = caching.anyOf(module, group)
+
+        then:
+        1 * delegate.anyOf(_, _)
+        first.is(second)
+    }
+
+    def "evicts the least recently used merge results"() {
+        def delegate = Spy(InterningExcludeFactory, constructorArgs: [new DefaultExcludeFactory()])
+        def caching = new CachingExcludeFactory(delegate, new CachingExcludeFactory.MergeCaches(2))
+        def a = factory.group("a")
+        def b = factory.group("b")
+        def c = factory.group("c")
+
+        when:
+        caching.anyOf(a, b)
+        caching.anyOf(a, c)
+        caching.anyOf(a, b)
+        caching.anyOf(b, c)
+        caching.anyOf(a, c)
+
+        then:
+        4 * delegate.anyOf(_, _)
+    }
+}
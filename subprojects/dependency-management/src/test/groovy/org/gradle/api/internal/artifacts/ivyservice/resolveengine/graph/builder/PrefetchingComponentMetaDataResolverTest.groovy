@@ -0,0 +1,243 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder
+
+import com.google.common.base.Optional
+import com.google.common.collect.ImmutableList
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class PrefetchingComponentMetaDataResolverTest extends ConcurrentSpec {
+    def delegate = Mock(ComponentMetaDataResolver)
+    def queued = []
+    def queue = Mock(BuildOperationQueue) {
+        add(_) >> { RunnableBuildOperation operation -> queued << operation }
+    }
+    def resolver = new PrefetchingComponentMetaDataResolver(delegate, new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser()), queue)
+    def overrides = new DefaultComponentOverrideMetadata()
+
+    def cleanup() {
+        resolver.stop()
+    }
+
+    def "serves prefetched metadata without resolving the component again"() {
+        def a = id("a", "1.0")
+        def metadata = metadata()
+
+        when:
+        resolver.prefetch(a, overrides)
+        def result = new DefaultBuildableComponentResolveResult()
+        resolver.resolve(a, overrides, result)
+
+        then:
+        1 * delegate.resolve(a, _, _) >> { id, override, r -> r.resolved(metadata) }
+        0 * delegate._
+
+        and:
+        result.metadata == metadata
+    }
+
+    def "looks ahead at the fixed versions a prefetched component depends on"() {
+        def a = id("a", "1.0")
+        def b = id("b", "2.0")
+
+        when:
+        resolver.prefetch(a, overrides)
+        resolver.resolve(a, overrides, new DefaultBuildableComponentResolveResult())
+        resolver.resolve(b, overrides, new DefaultBuildableComponentResolveResult())
+
+        then:
+        1 * delegate.resolve(a, _, _) >> { id, override, r -> r.resolved(metadata(dependency("b", "2.0"), dependency("c", "[1.0,2.0)"))) }
+        1 * delegate.resolve(b, _, _) >> { id, override, r -> r.resolved(metadata()) }
+        0 * delegate._
+
+        and:
+        queued*.description()*.build()*.displayName == ["Prefetch metadata of org:a:1.0", "Prefetch metadata of org:b:2.0"]
+    }
+
+    def "waits for a prefetch in progress on another thread"() {
+        def a = id("a", "1.0")
+        def metadata = metadata()
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(a, overrides)
+        async {
+            start {
+                queued[0].run(null)
+            }
+            start {
+                thread.blockUntil.fetching
+                resolver.resolve(a, overrides, result)
+                instant.resolved
+            }
+        }
+
+        then:
+        1 * delegate.resolve(a, _, _) >> { id, override, r ->
+            instant.fetching
+            thread.block()
+            instant.fetched
+            r.resolved(metadata)
+        }
+        0 * delegate._
+
+        and:
+        result.metadata == metadata
+        instant.resolved > instant.fetched
+    }
+
+    def "runs a queued prefetch on the traversal thread when it has not started yet"() {
+        def a = id("a", "1.0")
+        def metadata = metadata()
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(a, overrides)
+        resolver.resolve(a, overrides, result)
+        queued[0].run(null)
+
+        then:
+        1 * delegate.resolve(a, _, _) >> { id, override, r -> r.resolved(metadata) }
+        0 * delegate._
+
+        and:
+        result.metadata == metadata
+    }
+
+    def "stopping discards the prefetches that have not started"() {
+        def a = id("a", "1.0")
+        def b = id("b", "1.0")
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(a, overrides)
+        resolver.stop()
+        resolver.prefetch(b, overrides)
+        queued.each { it.run(null) }
+
+        then:
+        1 * queue.cancel()
+        0 * delegate._
+
+        and:
+        queued.size() == 1
+
+        when:
+        resolver.resolve(a, overrides, result)
+
+        then:
+        1 * delegate.resolve(a, _, _) >> { id, override, r -> r.resolved(metadata()) }
+        0 * delegate._
+
+        and:
+        result.hasResult()
+    }
+
+    def "rethrows an unexpected failure of a prefetch to the traversal"() {
+        def a = id("a", "1.0")
+        def failure = new RuntimeException("broken")
+
+        when:
+        resolver.prefetch(a, overrides)
+        queued[0].run(null)
+
+        then:
+        1 * delegate.resolve(a, _, _) >> { throw failure }
+        noExceptionThrown()
+
+        when:
+        resolver.resolve(a, overrides, new DefaultBuildableComponentResolveResult())
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+        0 * delegate._
+    }
+
+    def "reports a failed prefetch and the locations it attempted"() {
+        def a = id("a", "1.0")
+        def failure = new ModuleVersionResolveException(a, new RuntimeException("broken"))
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(a, overrides)
+        queued[0].run(null)
+        resolver.resolve(a, overrides, result)
+
+        then:
+        1 * delegate.resolve(a, _, _) >> { id, override, r ->
+            r.attempted("http://repo/a-1.0.pom")
+            r.failed(failure)
+        }
+        0 * delegate._
+
+        and:
+        result.failure.is(failure)
+        result.attempted == ["http://repo/a-1.0.pom"]
+        queued.size() == 1
+    }
+
+    def "resolves directly when the component overrides differ from the prefetched ones"() {
+        def a = id("a", "1.0")
+        def changing = overrides.withChanging()
+
+        when:
+        resolver.prefetch(a, overrides)
+        resolver.resolve(a, overrides, new DefaultBuildableComponentResolveResult())
+        resolver.resolve(a, changing, new DefaultBuildableComponentResolveResult())
+
+        then:
+        1 * delegate.resolve(a, overrides, _) >> { id, override, r -> r.resolved(metadata()) }
+        1 * delegate.resolve(a, changing, _)
+        0 * delegate._
+    }
+
+    def id(String name, String version) {
+        DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", name), version)
+    }
+
+    def dependency(String name, String version) {
+        Stub(DependencyMetadata) {
+            getSelector() >> DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", name), version)
+            getArtifacts() >> []
+        }
+    }
+
+    def metadata(DependencyMetadata... dependencies) {
+        def variant = Stub(ConfigurationMetadata) {
+            getDependencies() >> (dependencies as List)
+        }
+        Stub(ComponentResolveMetadata) {
+            getVariantsForGraphTraversal() >> Optional.of(ImmutableList.of(variant))
+        }
+    }
+}
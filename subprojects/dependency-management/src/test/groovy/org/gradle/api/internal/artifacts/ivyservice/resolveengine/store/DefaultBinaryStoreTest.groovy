@@ -70,6 +70,31 @@ class DefaultBinaryStoreTest extends Specification {
 
     }
 
+    def "data can be re-read after more data has been written to the store"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+
+        when:
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data1 = store.done()
+
+        then:
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data1.close()
+
+        when:
+        store.write({ it.writeString("y") } as BinaryStore.WriteAction)
+        def data2 = store.done()
+
+        then:
+        data2.read({ it.readString() } as BinaryStore.ReadAction) == "y"
+        data2.close()
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data1.close()
+
+        cleanup:
+        store.close()
+    }
+
     class SomeException extends RuntimeException {}
 
     def "write action exception is propagated to the client"() {
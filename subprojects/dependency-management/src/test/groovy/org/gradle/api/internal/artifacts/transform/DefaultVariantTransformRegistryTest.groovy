@@ -27,6 +27,10 @@ import org.gradle.api.artifacts.transform.VariantTransformConfigurationException
 import org.gradle.api.attributes.Attribute
 import org.gradle.api.internal.DomainObjectContext
 import org.gradle.api.internal.DynamicObjectAware
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.IgnoringResourceFilter
+import org.gradle.api.internal.changedetection.state.ResourceFilter
+import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService
 import org.gradle.api.internal.file.FileCollectionFactory
 import org.gradle.api.internal.file.FileLookup
 import org.gradle.api.internal.project.ProjectStateRegistry
@@ -34,6 +38,9 @@ import org.gradle.api.internal.tasks.properties.InspectionScheme
 import org.gradle.api.internal.tasks.properties.PropertyWalker
 import org.gradle.api.plugins.ExtensionAware
 import org.gradle.internal.fingerprint.FileCollectionFingerprinterRegistry
+import org.gradle.internal.fingerprint.FileCollectionSnapshotter
+import org.gradle.internal.fingerprint.classpath.impl.DefaultClasspathFingerprinter
+import org.gradle.internal.fingerprint.impl.DefaultFileCollectionFingerprinterRegistry
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.isolation.TestIsolatableFactory
@@ -57,7 +64,7 @@ class DefaultVariantTransformRegistryTest extends Specification {
     def instantiatorFactory = TestUtil.instantiatorFactory()
     def transformerInvocationFactory = Mock(TransformerInvocationFactory)
     def valueSnapshotter = Mock(ValueSnapshotter)
-    def fileCollectionFingerprinterRegistry = Mock(FileCollectionFingerprinterRegistry)
+    def fileCollectionFingerprinterRegistry = fingerprinterRegistry(ResourceFilter.FILTER_NOTHING)
     def fileCollectionFactory = Mock(FileCollectionFactory)
     def propertyWalker = Mock(PropertyWalker)
     def inspectionScheme = Stub(InspectionScheme) {
@@ -69,6 +76,7 @@ class DefaultVariantTransformRegistryTest extends Specification {
     def registryFactory = new DefaultTransformationRegistrationFactory(
         new TestBuildOperationExecutor(),
         isolatableFactory,
+        new IsolatedTransformParametersCache(),
         classLoaderHierarchyHasher,
         transformerInvocationFactory,
         valueSnapshotter,
@@ -168,6 +176,66 @@ class DefaultVariantTransformRegistryTest extends Specification {
         registration.transformationStep.transformer.parameterObject instanceof TestTransform.Parameters
     }
 
+    def "registrations of a transform with equal parameters fingerprint the parameters once"() {
+        given:
+        ["TO1", "TO2"].each { to ->
+            registry.registerTransform(TestTransform) {
+                it.from.attribute(TEST_ATTRIBUTE, "FROM")
+                it.to.attribute(TEST_ATTRIBUTE, to)
+                it.parameters.value = "same"
+            }
+        }
+        def transformers = registry.transforms*.transformationStep*.transformer
+
+        when:
+        transformers*.isolateParameters(fileCollectionFingerprinterRegistry)
+
+        then:
+        1 * propertyWalker.visitProperties(_, _, _)
+        transformers[0].secondaryInputHash == transformers[1].secondaryInputHash
+    }
+
+    def "registrations of a transform with equal parameters share the fingerprints between fingerprinter registries with the same normalization"() {
+        given:
+        ["TO1", "TO2"].each { to ->
+            registry.registerTransform(TestTransform) {
+                it.from.attribute(TEST_ATTRIBUTE, "FROM")
+                it.to.attribute(TEST_ATTRIBUTE, to)
+                it.parameters.value = "same"
+            }
+        }
+        def transformers = registry.transforms*.transformationStep*.transformer
+        def otherProjectFingerprinterRegistry = fingerprinterRegistry(ResourceFilter.FILTER_NOTHING)
+
+        when:
+        transformers[0].isolateParameters(fileCollectionFingerprinterRegistry)
+        transformers[1].isolateParameters(otherProjectFingerprinterRegistry)
+
+        then:
+        1 * propertyWalker.visitProperties(_, _, _)
+        transformers[0].secondaryInputHash == transformers[1].secondaryInputHash
+    }
+
+    def "registrations of a transform with equal parameters fingerprint the parameters once per normalization"() {
+        given:
+        ["TO1", "TO2"].each { to ->
+            registry.registerTransform(TestTransform) {
+                it.from.attribute(TEST_ATTRIBUTE, "FROM")
+                it.to.attribute(TEST_ATTRIBUTE, to)
+                it.parameters.value = "same"
+            }
+        }
+        def transformers = registry.transforms*.transformationStep*.transformer
+        def otherNormalizationFingerprinterRegistry = fingerprinterRegistry(new IgnoringResourceFilter(ImmutableSet.of("META-INF/MANIFEST.MF")))
+
+        when:
+        transformers[0].isolateParameters(fileCollectionFingerprinterRegistry)
+        transformers[1].isolateParameters(otherNormalizationFingerprinterRegistry)
+
+        then:
+        2 * propertyWalker.visitProperties(_, _, _)
+    }
+
     def "creates registration for parametereless action"() {
         when:
         registry.registerTransform(ParameterlessTestTransform) {
@@ -363,6 +431,11 @@ class DefaultVariantTransformRegistryTest extends Specification {
         e.cause == null
     }
 
+    private FileCollectionFingerprinterRegistry fingerprinterRegistry(ResourceFilter runtimeClasspathResourceFilter) {
+        def classpathFingerprinter = new DefaultClasspathFingerprinter(Stub(ResourceSnapshotterCacheService), Stub(FileCollectionSnapshotter), runtimeClasspathResourceFilter, new StringInterner())
+        return new DefaultFileCollectionFingerprinterRegistry([classpathFingerprinter])
+    }
+
     static class UnAnnotatedTestTransformConfig {
         String value
     }
@@ -377,6 +450,11 @@ class DefaultVariantTransformRegistryTest extends Specification {
     static abstract class TestTransform implements TransformAction<Parameters> {
         static class Parameters implements TransformParameters {
             String value
+
+            @Override
+            String toString() {
+                return value
+            }
         }
 
         @Override
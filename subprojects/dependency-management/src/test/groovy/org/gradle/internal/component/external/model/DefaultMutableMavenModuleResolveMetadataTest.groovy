@@ -24,6 +24,9 @@ import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
 import org.gradle.api.internal.artifacts.DependencyManagementTestUtil
 import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory
 import org.gradle.internal.component.external.descriptor.Configuration
+import org.gradle.internal.component.external.descriptor.MavenScope
+import org.gradle.internal.component.external.model.maven.MavenDependencyDescriptor
+import org.gradle.internal.component.external.model.maven.MavenDependencyType
 import org.gradle.internal.component.model.ComponentResolveMetadata
 import org.gradle.internal.component.model.DependencyMetadata
 import org.gradle.internal.component.model.ModuleSource
@@ -273,4 +276,25 @@ class DefaultMutableMavenModuleResolveMetadataTest extends AbstractMutableModule
         immutableCopy.packaging == "pom"
         immutableCopy.relocated
     }
+
+    def "components with equal dependencies share the dependency declarations"() {
+        def id1 = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("group", "module"), "1.0")
+        def id2 = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("group", "module"), "1.1")
+        def id3 = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("group", "other"), "1.0")
+
+        when:
+        def metadata1 = mavenMetadataFactory.create(id1, [dependency("a", MavenScope.Compile), dependency("b", MavenScope.Runtime)])
+        def metadata2 = mavenMetadataFactory.create(id2, [dependency("a", MavenScope.Compile), dependency("b", MavenScope.Runtime)])
+        def metadata3 = mavenMetadataFactory.create(id3, [dependency("a", MavenScope.Compile), dependency("c", MavenScope.Runtime)])
+
+        then:
+        metadata1.dependencies.is(metadata2.dependencies)
+        !metadata1.dependencies.is(metadata3.dependencies)
+        metadata1.dependencies[0].is(metadata3.dependencies[0])
+        metadata3.dependencies[1].selector.module == "c"
+    }
+
+    private static MavenDependencyDescriptor dependency(String name, MavenScope scope) {
+        new MavenDependencyDescriptor(scope, MavenDependencyType.DEPENDENCY, DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", name), "1.0"), null, [])
+    }
 }
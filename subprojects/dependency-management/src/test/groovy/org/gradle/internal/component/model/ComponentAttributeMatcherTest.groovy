@@ -500,6 +500,34 @@ class ComponentAttributeMatcherTest extends Specification {
 
     }
 
+    def "evaluates compatibility rules once for each combination of values"() {
+        def attr = Attribute.of(String)
+        def schema = Mock(AttributeSelectionSchema)
+        def matcher = new ComponentAttributeMatcher()
+
+        given:
+        def candidate1 = attrs().attribute(attr, "value1")
+        def candidate2 = attrs().attribute(attr, "value2")
+        def candidate3 = attrs().attribute(attr, "value2")
+        def requested = attrs().attribute(attr, "value1")
+
+        when:
+        def first = matcher.isMatching(schema, candidate1, requested)
+        def second = matcher.isMatching(schema, candidate2, requested)
+        def third = matcher.match(schema, [candidate1, candidate2, candidate3], requested, null)
+        def fourth = matcher.match(schema, [candidate3, candidate1], requested, null)
+
+        then:
+        1 * schema.matchValue(attr, "value1", "value1") >> true
+        1 * schema.matchValue(attr, "value1", "value2") >> false
+        0 * schema.matchValue(_, _, _)
+
+        first
+        !second
+        third == [candidate1]
+        fourth == [candidate1]
+    }
+
     private AttributeContainerInternal attrs() {
         factory.mutable()
     }
@@ -43,8 +43,11 @@
 import org.gradle.api.internal.classloading.GroovySystemLoaderFactory;
 import org.gradle.api.internal.file.collections.ImmutableFileCollection;
 import org.gradle.api.internal.tasks.compile.incremental.recomp.CompilationSourceDirs;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.GroovySourceFileClassNameConverter;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.WorkResults;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classanalysis.AsmConstants;
 import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.classloader.DefaultClassLoaderFactory;
 import org.gradle.internal.classloader.FilteringClassLoader;
@@ -52,15 +55,23 @@
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.util.VersionNumber;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.gradle.api.internal.tasks.compile.SourceClassesMappingFileAccessor.writeSourceClassesMappingFile;
 import static org.gradle.internal.FileUtils.hasExtension;
@@ -75,7 +86,9 @@ public ApiGroovyCompiler(Compiler<JavaCompileSpec> javaCompiler) {
     private static abstract class IncrementalCompilationCustomizer extends CompilationCustomizer {
         static IncrementalCompilationCustomizer fromSpec(GroovyJavaJointCompileSpec spec) {
             if (spec.incrementalCompilationEnabled()) {
-                return new TrackingClassGenerationCompilationCustomizer(new CompilationSourceDirs(spec.getSourceRoots()), spec.getCompilationMappingFile());
+                TrackingClassGenerationCompilationCustomizer customizer = new TrackingClassGenerationCompilationCustomizer(new CompilationSourceDirs(spec.getSourceRoots()), spec.getCompilationMappingFile(), spec.getDestinationDir());
+                customizer.addJavaSources(spec.getSourceFiles());
+                return customizer;
             } else {
                 return new NoOpCompilationCustomizer();
             }
@@ -110,12 +123,15 @@ private static class TrackingClassGenerationCompilationCustomizer extends Increm
             .hashKeys()
             .hashSetValues()
             .build();
+        private final Set<String> javaSources = new HashSet<String>();
         private final CompilationSourceDirs compilationSourceDirs;
         private final File sourceClassesMappingFile;
+        private final File destinationDir;
 
-        private TrackingClassGenerationCompilationCustomizer(CompilationSourceDirs compilationSourceDirs, File mappingFile) {
+        private TrackingClassGenerationCompilationCustomizer(CompilationSourceDirs compilationSourceDirs, File mappingFile, File destinationDir) {
             this.compilationSourceDirs = compilationSourceDirs;
             this.sourceClassesMappingFile = mappingFile;
+            this.destinationDir = destinationDir;
         }
 
         @Override
@@ -123,6 +139,69 @@ public void call(SourceUnit source, GeneratorContext context, ClassNode classNod
             inspectClassNode(source, classNode);
         }
 
+        private void addJavaSources(Iterable<File> sourceFiles) {
+            for (File sourceFile : sourceFiles) {
+                if (hasExtension(sourceFile, ".java")) {
+                    javaSources.add(compilationSourceDirs.relativize(sourceFile).orElseThrow(IllegalStateException::new));
+                }
+            }
+        }
+
+        /**
+         * Java sources are compiled by javac, which does not tell which classes it compiled. So the classes compiled from a Java source are
+         * looked up in the directory of its package in the output directory. Only the class named after the source file and its nested classes
+         * are read, and they are mapped to the source by their source file attribute. A Java source without any class found this way, for
+         * example because it was compiled without debug information, is recorded under the class named after the file.
+         */
+        private void recordJavaClasses() {
+            if (javaSources.isEmpty()) {
+                return;
+            }
+            Multimap<String, String> classNamesByPackageDir = MultimapBuilder.hashKeys().arrayListValues().build();
+            for (String relativePath : javaSources) {
+                int fileNameStart = relativePath.lastIndexOf('/') + 1;
+                classNamesByPackageDir.put(relativePath.substring(0, fileNameStart), relativePath.substring(fileNameStart, relativePath.length() - ".java".length()));
+            }
+            Set<String> unmappedJavaSources = new HashSet<String>(javaSources);
+            try {
+                for (Map.Entry<String, Collection<String>> packageDir : classNamesByPackageDir.asMap().entrySet()) {
+                    File[] classFiles = new File(destinationDir, packageDir.getKey()).listFiles();
+                    if (classFiles == null) {
+                        continue;
+                    }
+                    for (File classFile : classFiles) {
+                        if (!isNamedAfterOneOf(classFile.getName(), packageDir.getValue())) {
+                            continue;
+                        }
+                        SourceFileVisitor visitor = new SourceFileVisitor();
+                        new ClassReader(Files.readAllBytes(classFile.toPath())).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+                        String relativePath = visitor.getRelativeSourcePath();
+                        if (relativePath != null && javaSources.contains(relativePath)) {
+                            sourceClassesMapping.put(relativePath, visitor.className.replace('/', '.'));
+                            unmappedJavaSources.remove(relativePath);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            for (String relativePath : unmappedJavaSources) {
+                sourceClassesMapping.put(relativePath, GroovySourceFileClassNameConverter.getJavaClassName(relativePath));
+            }
+        }
+
+        private static boolean isNamedAfterOneOf(String classFileName, Collection<String> classNames) {
+            if (!classFileName.endsWith(".class")) {
+                return false;
+            }
+            for (String className : classNames) {
+                if (classFileName.equals(className + ".class") || classFileName.startsWith(className + "$")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         private void inspectClassNode(SourceUnit sourceUnit, ClassNode classNode) {
             String relativePath = compilationSourceDirs.relativize(new File(sourceUnit.getSource().getURI().getPath())).orElseThrow(IllegalStateException::new);
             sourceClassesMapping.put(relativePath, classNode.getName());
@@ -134,6 +213,7 @@ private void inspectClassNode(SourceUnit sourceUnit, ClassNode classNode) {
 
         @Override
         public void writeToMappingFile() {
+            recordJavaClasses();
             writeSourceClassesMappingFile(sourceClassesMappingFile, sourceClassesMapping);
         }
 
@@ -143,6 +223,33 @@ public void addToConfiguration(CompilerConfiguration configuration) {
         }
     }
 
+    private static class SourceFileVisitor extends ClassVisitor {
+        private String className;
+        private String sourceFile;
+
+        SourceFileVisitor() {
+            super(AsmConstants.ASM_LEVEL);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name;
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            sourceFile = source;
+        }
+
+        @Nullable
+        String getRelativeSourcePath() {
+            if (sourceFile == null) {
+                return null;
+            }
+            return className.substring(0, className.lastIndexOf('/') + 1) + sourceFile;
+        }
+    }
+
     private File[] getSortedSourceFiles(GroovyJavaJointCompileSpec spec) {
         // Sort source files to work around https://issues.apache.org/jira/browse/GROOVY-7966
         File[] sortedSourceFiles = Iterables.toArray(spec.getSourceFiles(), File.class);
@@ -60,6 +60,9 @@ dependencies {
     testFixturesImplementation(library("slf4j_api"))
 
     integTestRuntimeOnly(project(":testingJunitPlatform"))
+
+    jmhImplementation(testFixtures(project(":core")))
+    jmhImplementation(testFixtures(project(":baseServices")))
     
     // TODO - get rid of this cycle
     integTestRuntimeOnly(project(":plugins"))
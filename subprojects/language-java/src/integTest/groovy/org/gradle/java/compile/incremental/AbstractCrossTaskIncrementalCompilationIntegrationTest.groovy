@@ -91,7 +91,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
         impl.snapshot { run language.compileTaskName }
 
         when:
-        source api: ["class A { String change; }"]
+        source api: ["class A implements java.io.Serializable {}"]
         run "impl:${language.compileTaskName}"
 
         then:
@@ -110,7 +110,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
         app.snapshot { run language.compileTaskName }
 
         when:
-        source api: ["class A { String change; }"]
+        source api: ["class A implements java.io.Serializable {}"]
         run "app:${language.compileTaskName}"
 
         then:
@@ -129,7 +129,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
         app.snapshot { run language.compileTaskName }
 
         when:
-        source api: ["class A { String change; }"]
+        source api: ["class A implements java.io.Serializable {}"]
         run "app:${language.compileTaskName}"
 
         then:
@@ -231,6 +231,24 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
         impl.noneRecompiled()
     }
 
+    def "recompiles the classes that may use a changed member of an upstream class"() {
+        source api: ["class A { void foo() {} void bar() {} }"],
+            impl: ["class UsesFoo { void m(A a) { a.foo(); } }", "class UsesBar { void m(A a) { a.bar(); } }"]
+        impl.snapshot { run language.compileTaskName }
+
+        when:
+        source api: ["class A { int foo() { return 0; } void bar() {} }"]
+        run "impl:${language.compileTaskName}"
+
+        then:
+        if (language == CompiledLanguage.GROOVY) {
+            // Groovy calls members dynamically, so the compiled classes don't tell which members they use
+            impl.recompiledClasses('UsesFoo', 'UsesBar')
+        } else {
+            impl.recompiledClasses('UsesFoo')
+        }
+    }
+
     @NotYetImplemented
     //  Can re-enable with compiler plugins. See gradle/gradle#1474
     def "deletion of jar with non-private constant causes rebuild if constant is used"() {
@@ -393,7 +411,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
         impl.snapshot { run language.compileTaskName }
 
         when:
-        source api: ["class A { String change; }"]
+        source api: ["class A implements java.io.Serializable {}"]
         run "api:${language.compileTaskName}"
         run "impl:${language.compileTaskName}"
 
@@ -406,7 +424,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
         impl.snapshot { run language.compileTaskName }
 
         when:
-        source api: ["class A { String change; }"]
+        source api: ["class A implements java.io.Serializable {}"]
         run "api:${language.compileTaskName}"
         run "impl:${language.compileTaskName}" //different build invocation
 
@@ -415,7 +433,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
 
         when:
         impl.snapshot()
-        source api: ["class B { String change; }"]
+        source api: ["class B implements java.io.Serializable {}"]
         run language.compileTaskName
 
         then:
@@ -450,7 +468,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
         impl.snapshot { run "compileIntegTest${language.capitalizedName}", language.compileTaskName }
 
         when: //when api class is changed
-        source api: ["class A { String change; }"]
+        source api: ["class A implements java.io.Serializable {}"]
         run "compileIntegTest${language.capitalizedName}", language.compileTaskName
 
         then: //only impl class is recompiled
@@ -458,7 +476,7 @@ abstract class AbstractCrossTaskIncrementalCompilationIntegrationTest extends Ab
 
         when: //when other class is changed
         impl.snapshot()
-        source other: ["class Other { String change; }"]
+        source other: ["class Other implements java.io.Serializable {}"]
         run "compileIntegTest${language.capitalizedName}", language.compileTaskName
 
         then: //only integTest class is recompiled
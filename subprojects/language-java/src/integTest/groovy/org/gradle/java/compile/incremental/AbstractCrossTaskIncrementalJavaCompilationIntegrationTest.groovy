@@ -126,4 +126,35 @@ abstract class AbstractCrossTaskIncrementalJavaCompilationIntegrationTest extend
         then:
         impl.recompiledClasses('X', 'Y')
     }
+
+    def "only recompiles classes that use a changed member of an upstream class"() {
+        source api: ["class A { void foo() {} void bar() {} }"],
+            impl: ["class UsesFoo { void m(A a) { a.foo(); } }", "class UsesBar { void m(A a) { a.bar(); } }", "class UsesNone { A a; }"]
+        impl.snapshot { run language.compileTaskName }
+
+        when:
+        source api: ["class A { int foo() { return 0; } void bar() {} }"]
+        run "impl:${language.compileTaskName}"
+
+        then:
+        impl.recompiledClasses('UsesFoo')
+    }
+
+    @Unroll
+    def "recompiles classes that use a changed member of an upstream class through a subclass that does not use it (#subclassProject)"() {
+        source api: ["class X { void foo() {} }"]
+        source((subclassProject): ["class S extends X {}"])
+        source impl: ["class T { void m(S s) { s.foo(); } }", "class U { T t; }", "class Unrelated { S s; }"]
+        impl.snapshot { run language.compileTaskName }
+
+        when:
+        source api: ["class X { int foo() { return 0; } }"]
+        run "impl:${language.compileTaskName}"
+
+        then:
+        impl.recompiledClasses('T', 'U')
+
+        where:
+        subclassProject << ['impl', 'api']
+    }
 }
@@ -428,7 +428,7 @@ sourceSets {
         outputs.snapshot { run language.compileTaskName }
 
         when:
-        file("src/other/${language.name}/com/foo/Other.${language.name}").text = "package com.foo; public class Other { String change; }"
+        file("src/other/${language.name}/com/foo/Other.${language.name}").text = "package com.foo; public class Other implements java.io.Serializable {}"
         run language.compileTaskName
 
         then:
@@ -132,6 +132,74 @@ class A2{}
         outputs.recompiledClasses('A', 'B', 'C')
     }
 
+    def 'only recompile affected classes when a Java file in a joint compilation changes'() {
+        given:
+        file('src/main/groovy/JavaA.java') << 'public class JavaA { public static class Inner {} }'
+        source('class GroovyB extends JavaA { }')
+        source('class GroovyC { }')
+        file('src/main/groovy/JavaD.java') << 'public class JavaD { GroovyC c; }'
+
+        outputs.snapshot { run 'compileGroovy' }
+
+        when:
+        file('src/main/groovy/JavaA.java').text = 'public class JavaA { }'
+        run 'compileGroovy'
+
+        then:
+        outputs.recompiledClasses('JavaA', 'GroovyB')
+        outputs.deletedClasses('JavaA$Inner')
+    }
+
+    def 'deletes nested classes of a changed Java file in a package in a joint compilation'() {
+        given:
+        file('src/main/groovy/org/JavaA.java') << 'package org; public class JavaA { public static class Inner {} }'
+        file('src/main/groovy/org/JavaAlso.java') << 'package org; public class JavaAlso { public static class Inner {} }'
+        source('class GroovyB { }')
+
+        outputs.snapshot { run 'compileGroovy' }
+
+        when:
+        file('src/main/groovy/org/JavaA.java').text = 'package org; public class JavaA { }'
+        run 'compileGroovy'
+
+        then:
+        outputs.recompiledClasses('JavaA')
+        outputs.deletedClasses('JavaA$Inner')
+    }
+
+    def 'only recompile affected classes when a Groovy class used by a Java class changes'() {
+        given:
+        source('class GroovyA { }')
+        source('class GroovyB { }')
+        file('src/main/groovy/JavaC.java') << 'public class JavaC { GroovyA a; }'
+        file('src/main/groovy/JavaD.java') << 'public class JavaD { }'
+
+        outputs.snapshot { run 'compileGroovy' }
+
+        when:
+        file('src/main/groovy/GroovyA.groovy').text = 'class GroovyA { int a }'
+        run 'compileGroovy'
+
+        then:
+        outputs.recompiledClasses('GroovyA', 'JavaC')
+    }
+
+    def 'only recompile removed Java classes in a joint compilation'() {
+        given:
+        source('class GroovyA { }')
+        file('src/main/groovy/JavaB.java') << 'public class JavaB { }'
+
+        outputs.snapshot { run 'compileGroovy' }
+
+        when:
+        file('src/main/groovy/JavaB.java').delete()
+        run 'compileGroovy'
+
+        then:
+        outputs.noneRecompiled()
+        outputs.deletedClasses('JavaB')
+    }
+
     def "reports source type that does not support detection of source root"() {
         given:
         buildFile << "${language.compileTaskName}.source([file('extra'), file('other'), file('text-file.txt')])"
@@ -152,18 +220,21 @@ class A2{}
 
     def 'clear class source mapping file on full recompilation'() {
         given:
+        buildFile << """
+            ${language.compileTaskName}.source 'src/main/resources'
+        """
         source('class A { }')
         run 'compileGroovy'
 
         when:
-        file('src/main/groovy/B.java') << 'class B {}'
+        file('src/main/resources/foo.txt') << 'foo'
         // slightly modify the mapping file
         file('build/tmp/compileGroovy/source-classes-mapping.txt') << '''org/gradle/MyClass.groovy
  org.gradle.MyClass'''
         run 'compileGroovy', '--info'
 
         then:
-        outputContains("Full recompilation is required because non-Groovy file 'B.java' has been added.")
+        outputContains("Full recompilation is required because non-Groovy or Java file 'foo.txt' has been added.")
         !file('build/tmp/compileGroovy/source-classes-mapping.txt').text.contains('MyClass')
     }
 
@@ -185,8 +256,7 @@ class A2{}
 
     def "does recompile when a resource changes"() {
         // TODO wolfs:
-        //  Currently, a change to any non-Groovy file causes a full recompile.
-        //  Later, changes to Java files should be handled incrementally.
+        //  Currently, a change to any file that is neither Groovy nor Java causes a full recompile.
         //  Changes to the registration file for global transforms needs to cause a full recompile.
         //  Other resources can probably be used by AST transformations, so they probably should cause a full recompile as well.
         given:
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.classpath;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.DefaultTemporaryFileProvider;
+import org.gradle.api.internal.file.TestFiles;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.internal.Factories;
+import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
+import org.gradle.internal.concurrent.ParallelismConfigurationManagerFixture;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.operations.DefaultBuildOperationExecutor;
+import org.gradle.internal.operations.DefaultBuildOperationIdFactory;
+import org.gradle.internal.operations.DefaultBuildOperationListenerManager;
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory;
+import org.gradle.internal.progress.NoOpProgressLoggerFactory;
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.gradle.internal.work.WorkerLeaseService;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Snapshots a class path of 500 jars, as done on a cold daemon before the first incremental compilation.
+ * One of the jars is large enough to have its classes analyzed in several batches.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@State(Scope.Benchmark)
+public class ClasspathSnapshotBenchmark {
+    private static final int JAR_COUNT = 500;
+    private static final int CLASSES_PER_JAR = 50;
+    private static final int CLASSES_IN_LARGE_JAR = 5000;
+
+    @Param({"1", "4", "8"})
+    int threads;
+
+    private File tmpDir;
+    private List<File> classpath;
+    private WorkerLeaseService workerLeaseService;
+    private DefaultExecutorFactory executorFactory;
+    private DefaultBuildOperationExecutor buildOperationExecutor;
+    private ClasspathSnapshotFactory snapshotFactory;
+
+    @Setup(Level.Trial)
+    public void createClasspath() throws IOException {
+        tmpDir = Files.createTempDirectory("classpath").toFile();
+        classpath = Lists.newArrayList();
+        for (int jar = 0; jar < JAR_COUNT; jar++) {
+            classpath.add(createJar(jar, jar == JAR_COUNT / 2 ? CLASSES_IN_LARGE_JAR : CLASSES_PER_JAR));
+        }
+
+        ParallelismConfigurationManager parallelismConfigurationManager = new ParallelismConfigurationManagerFixture(true, threads);
+        workerLeaseService = new DefaultWorkerLeaseService(new DefaultResourceLockCoordinationService(), parallelismConfigurationManager);
+        executorFactory = new DefaultExecutorFactory();
+        buildOperationExecutor = new DefaultBuildOperationExecutor(
+            new DefaultBuildOperationListenerManager().getBroadcaster(), Time.clock(), new NoOpProgressLoggerFactory(),
+            new DefaultBuildOperationQueueFactory(workerLeaseService), executorFactory, parallelismConfigurationManager, new DefaultBuildOperationIdFactory()
+        );
+        StreamHasher streamHasher = TestFiles.streamHasher();
+        FileHasher fileHasher = TestFiles.fileHasher();
+        DefaultClasspathEntrySnapshotter snapshotter = new DefaultClasspathEntrySnapshotter(
+            fileHasher, streamHasher, new DefaultClassDependenciesAnalyzer(new StringInterner()),
+            TestFiles.fileOperations(tmpDir, new DefaultTemporaryFileProvider(Factories.constant(tmpDir))), buildOperationExecutor
+        );
+        snapshotFactory = new ClasspathSnapshotFactory(new UncachedClasspathEntrySnapshotter(fileHasher, snapshotter), buildOperationExecutor);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteClasspath() {
+        buildOperationExecutor.stop();
+        executorFactory.stop();
+        workerLeaseService.stop();
+        for (File jar : classpath) {
+            jar.delete();
+        }
+        tmpDir.delete();
+    }
+
+    @Benchmark
+    public ClasspathSnapshot snapshot() {
+        // Build operations can only be queued by a thread that holds a worker lease, like the thread of a task does
+        return workerLeaseService.withLocks(Collections.singleton(workerLeaseService.getWorkerLease()), new Factory<ClasspathSnapshot>() {
+            @Override
+            public ClasspathSnapshot create() {
+                return snapshotFactory.createSnapshot(classpath);
+            }
+        });
+    }
+
+    private File createJar(int jar, int classCount) throws IOException {
+        File file = new File(tmpDir, "lib" + jar + ".jar");
+        ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < classCount; i++) {
+                String className = "org/lib" + jar + "/C" + i;
+                outputStream.putNextEntry(new ZipEntry(className + ".class"));
+                outputStream.write(classBytes(className, jar == 0 ? "java/lang/Object" : "org/lib" + (jar - 1) + "/C0", i == 0 ? null : "org/lib" + jar + "/C" + (i - 1)));
+                outputStream.closeEntry();
+            }
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+
+    private static byte[] classBytes(String className, String superClassName, String referencedClassName) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, className, null, superClassName, null);
+        writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "CONSTANT", "I", null, className.hashCode()).visitEnd();
+        if (referencedClassName != null) {
+            writer.visitField(Opcodes.ACC_PRIVATE, "field", "L" + referencedClassName + ";", null, null).visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static class UncachedClasspathEntrySnapshotter implements ClasspathEntrySnapshotter {
+        private final FileHasher fileHasher;
+        private final DefaultClasspathEntrySnapshotter snapshotter;
+
+        UncachedClasspathEntrySnapshotter(FileHasher fileHasher, DefaultClasspathEntrySnapshotter snapshotter) {
+            this.fileHasher = fileHasher;
+            this.snapshotter = snapshotter;
+        }
+
+        @Override
+        public ClasspathEntrySnapshot createSnapshot(File classpathEntry) {
+            return snapshotter.createSnapshot(fileHasher.hash(classpathEntry), classpathEntry);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.JavaVersion;
+import org.gradle.internal.concurrent.CompositeStoppable;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the standard file managers of javac between compilations in this process.
+ *
+ * <p>A standard file manager opens and indexes each jar of the class path the first time javac looks up a class in it, and
+ * keeps the index until it is closed. Compilations that reuse a file manager do not open and index the jars that the
+ * file manager has already seen, which is most of the work when compiling many small projects against the same class path.</p>
+ *
+ * <p>A file manager is discarded when one of the jars it has seen has changed since it was last used. The pool is only used
+ * on Java 9 and later, where the jar indices belong to the file manager, and when enabled with a system property, as the
+ * open jars cannot be deleted on Windows while the file manager is pooled.</p>
+ *
+ * <p>javac sets the locations of a file manager, like the class output, native header output or boot class path, from the
+ * options of each compilation. Only the locations given by an option are set, so a released file manager has its locations
+ * reset to their defaults before it is reused. Some locations, like the boot class path, cannot be reset, so a file manager
+ * that was used with one of the options that set them is not reused. The release is not kept as a location and is part of
+ * the pool key.</p>
+ */
+class JavaFileManagerPool {
+    static final String REUSE_FILE_MANAGERS_PROPERTY = "org.gradle.internal.java.compile.reuse-file-managers";
+    private static final Set<String> PATH_OPTIONS = ImmutableSet.of(
+        "-classpath", "-cp", "--class-path",
+        "-bootclasspath", "--boot-class-path",
+        "-processorpath", "--processor-path",
+        "--module-path", "-p",
+        "--processor-module-path",
+        "--upgrade-module-path"
+    );
+    private static final String RELEASE_OPTION = "--release";
+    // Options that set locations which cannot be reset to their defaults, a file manager used with one of these is not reused
+    private static final Set<String> NON_RESETTABLE_OPTIONS = ImmutableSet.of(
+        "-bootclasspath", "--boot-class-path",
+        "-extdirs", "--extension-dirs",
+        "-endorseddirs", "--endorsed-dirs",
+        "--system",
+        "--patch-module",
+        "--module-source-path",
+        "--processor-module-path"
+    );
+    // The locations that are set by an option of each compilation and can be reset to their defaults
+    private static final Set<String> RESETTABLE_LOCATIONS = ImmutableSet.of(
+        "CLASS_OUTPUT", "SOURCE_OUTPUT", "NATIVE_HEADER_OUTPUT",
+        "CLASS_PATH", "SOURCE_PATH", "ANNOTATION_PROCESSOR_PATH",
+        "MODULE_PATH", "UPGRADE_MODULE_PATH"
+    );
+    private static final JavaFileManagerPool INSTANCE = new JavaFileManagerPool(Runtime.getRuntime().availableProcessors());
+
+    private final int maxIdlePerKey;
+    private final Map<Key, Deque<PooledFileManager>> idle = new HashMap<Key, Deque<PooledFileManager>>();
+
+    JavaFileManagerPool(int maxIdlePerKey) {
+        this.maxIdlePerKey = maxIdlePerKey;
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(REUSE_FILE_MANAGERS_PROPERTY) && JavaVersion.current().isJava9Compatible();
+    }
+
+    static JavaFileManagerPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given javac options and class path. The file manager is returned to the pool when closed.
+     */
+    PooledFileManager acquire(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Iterable<File> classpath) {
+        String release = null;
+        boolean reusable = true;
+        List<File> optionPaths = new ArrayList<File>();
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i);
+            String value;
+            int separator = option.indexOf('=');
+            if (option.startsWith("--") && separator > 0) {
+                value = option.substring(separator + 1);
+                option = option.substring(0, separator);
+            } else if (option.startsWith("-Xbootclasspath") && option.indexOf(':') > 0) {
+                value = option.substring(option.indexOf(':') + 1);
+                option = "-bootclasspath";
+            } else if (i + 1 < options.size()) {
+                value = options.get(i + 1);
+            } else {
+                value = null;
+            }
+            if (NON_RESETTABLE_OPTIONS.contains(option)) {
+                reusable = false;
+            }
+            if (value == null) {
+                continue;
+            }
+            if (option.equals(RELEASE_OPTION)) {
+                release = value;
+            } else if (PATH_OPTIONS.contains(option)) {
+                for (String path : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(value)) {
+                    optionPaths.add(new File(path));
+                }
+            }
+        }
+
+        Key key = new Key(compiler.getClass(), charset, release);
+        PooledFileManager fileManager = null;
+        if (reusable) {
+            synchronized (idle) {
+                Deque<PooledFileManager> fileManagers = idle.get(key);
+                fileManager = fileManagers == null ? null : fileManagers.poll();
+            }
+        }
+        if (fileManager != null && !fileManager.isUpToDate()) {
+            fileManager.discard();
+            fileManager = null;
+        }
+        if (fileManager == null) {
+            fileManager = new PooledFileManager(key, compiler.getStandardFileManager(null, null, charset));
+        }
+        fileManager.reusable = reusable;
+        fileManager.track(classpath);
+        fileManager.track(optionPaths);
+        return fileManager;
+    }
+
+    private void release(PooledFileManager fileManager) {
+        if (!fileManager.reusable || !fileManager.reset()) {
+            fileManager.discard();
+            return;
+        }
+        synchronized (idle) {
+            Deque<PooledFileManager> fileManagers = idle.get(fileManager.key);
+            if (fileManagers == null) {
+                fileManagers = new ArrayDeque<PooledFileManager>();
+                idle.put(fileManager.key, fileManagers);
+            }
+            if (fileManagers.size() < maxIdlePerKey) {
+                fileManagers.push(fileManager);
+                return;
+            }
+        }
+        fileManager.discard();
+    }
+
+    class PooledFileManager implements Closeable {
+        private final Key key;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, FileState> seenFiles = new HashMap<File, FileState>();
+        private boolean reusable;
+
+        private PooledFileManager(Key key, StandardJavaFileManager fileManager) {
+            this.key = key;
+            this.fileManager = fileManager;
+        }
+
+        StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        private void track(Iterable<File> classpath) {
+            for (File file : classpath) {
+                // Directories are listed again by each compilation, only the content of jars is kept
+                if (!seenFiles.containsKey(file) && !file.isDirectory()) {
+                    seenFiles.put(file, FileState.of(file));
+                }
+            }
+        }
+
+        private boolean isUpToDate() {
+            for (Map.Entry<File, FileState> entry : seenFiles.entrySet()) {
+                if (!entry.getValue().equals(FileState.of(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Flushes the file manager and resets its locations to their defaults, returns false when this fails.
+         */
+        private boolean reset() {
+            try {
+                fileManager.flush();
+                for (StandardLocation location : StandardLocation.values()) {
+                    if (RESETTABLE_LOCATIONS.contains(location.name())) {
+                        fileManager.setLocation(location, null);
+                    }
+                }
+                return true;
+            } catch (IOException | IllegalArgumentException | IllegalStateException | UnsupportedOperationException e) {
+                // Some locations cannot be reset by some file managers
+                return false;
+            }
+        }
+
+        private void discard() {
+            CompositeStoppable.stoppable(fileManager).stop();
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    private static class Key {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        // Sets the multi-release version that the jars are read with
+        private final String release;
+
+        Key(Class<?> compilerType, @Nullable Charset charset, @Nullable String release) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.release = release;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return compilerType.equals(key.compilerType) && Objects.equal(charset, key.charset) && Objects.equal(release, key.release);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(compilerType, charset, release);
+        }
+    }
+
+    private static class FileState {
+        private final long length;
+        private final long lastModified;
+
+        private FileState(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static FileState of(File file) {
+            return new FileState(file.length(), file.lastModified());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileState that = (FileState) o;
+            return length == that.length && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(length, lastModified);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 import it.unimi.dsi.fastutil.ints.IntSet;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.MemberSignatures;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -44,7 +45,9 @@ public ClassAnalysis read(Decoder decoder) throws Exception {
         boolean relatedToAll = decoder.readBoolean();
         Set<String> classes = stringSetSerializer.read(decoder);
         IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
-        return new ClassAnalysis(className, classes, relatedToAll, constants);
+        MemberSignatures memberSignatures = MemberSignatures.Serializer.INSTANCE.read(decoder);
+        IntSet usedMembers = IntSetSerializer.INSTANCE.read(decoder);
+        return new ClassAnalysis(className, classes, relatedToAll, constants, memberSignatures, usedMembers);
     }
 
     @Override
@@ -53,6 +56,8 @@ public void write(Encoder encoder, ClassAnalysis value) throws Exception {
         encoder.writeBoolean(value.isDependencyToAll());
         stringSetSerializer.write(encoder, value.getClassDependencies());
         IntSetSerializer.INSTANCE.write(encoder, value.getConstants());
+        MemberSignatures.Serializer.INSTANCE.write(encoder, value.getMemberSignatures());
+        IntSetSerializer.INSTANCE.write(encoder, value.getUsedMembers());
     }
 
 }
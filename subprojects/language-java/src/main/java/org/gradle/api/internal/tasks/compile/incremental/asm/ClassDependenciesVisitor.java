@@ -18,11 +18,16 @@
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.MemberSignatures;
 import org.gradle.internal.classanalysis.AsmConstants;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Label;
@@ -31,6 +36,7 @@
 import org.objectweb.asm.Type;
 import org.objectweb.asm.TypePath;
 
+import javax.annotation.Nullable;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Set;
 
@@ -41,17 +47,23 @@ public class ClassDependenciesVisitor extends ClassVisitor {
     private final MethodVisitor methodVisitor;
     private final FieldVisitor fieldVisitor;
     private final IntSet constants;
+    private final IntSet usedMembers;
     private final Set<String> types;
     private final Predicate<String> typeFilter;
     private final StringInterner interner;
     private boolean isAnnotationType;
+    private boolean isInterface;
     private boolean dependencyToAll;
+    private String internalName;
+    private Hasher classSignature;
+    private final MemberSignatures.Builder memberSignatures = MemberSignatures.builder();
     private final RetentionPolicyVisitor retentionPolicyVisitor;
     private final AnnotationVisitor annotationVisitor;
 
     private ClassDependenciesVisitor(Predicate<String> typeFilter, ClassReader reader, StringInterner interner) {
         super(API);
         this.constants = new IntOpenHashSet(2);
+        this.usedMembers = new IntOpenHashSet();
         this.types = Sets.newHashSet();
         this.methodVisitor = new MethodVisitor();
         this.fieldVisitor = new FieldVisitor();
@@ -65,12 +77,20 @@ private ClassDependenciesVisitor(Predicate<String> typeFilter, ClassReader reade
     public static ClassAnalysis analyze(String className, ClassReader reader, StringInterner interner) {
         ClassDependenciesVisitor visitor = new ClassDependenciesVisitor(new ClassRelevancyFilter(className), reader, interner);
         reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-        return new ClassAnalysis(interner.intern(className), visitor.getClassDependencies(), visitor.isDependencyToAll(), visitor.getConstants());
+        return new ClassAnalysis(interner.intern(className), visitor.getClassDependencies(), visitor.isDependencyToAll(), visitor.getConstants(), visitor.getMemberSignatures(), visitor.getUsedMembers());
     }
 
     @Override
     public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
         isAnnotationType = isAnnotationType(interfaces);
+        isInterface = (access & Opcodes.ACC_INTERFACE) != 0;
+        internalName = name;
+        classSignature = Hashing.newHasher();
+        classSignature.putInt(access);
+        classSignature.putString(name);
+        putNullableString(classSignature, signature);
+        putNullableString(classSignature, superName);
+        putStrings(classSignature, interfaces);
         if (superName != null) {
             // superName can be null if what we are analyzing is `java.lang.Object`
             // which can happen when a custom Java SDK is on classpath (typically, android.jar)
@@ -90,13 +110,16 @@ public ModuleVisitor visitModule(String name, int access, String version) {
         return null;
     }
 
-    // performs a fast analysis of classes referenced in bytecode (method bodies)
+    // performs a fast analysis of classes and members referenced in bytecode (method bodies)
     // avoiding us to implement a costly visitor and potentially missing edge cases
     private void collectClassDependencies(ClassReader reader) {
         char[] charBuffer = new char[reader.getMaxStringLength()];
         for (int i = 1; i < reader.getItemCount(); i++) {
             int itemOffset = reader.getItem(i);
-            if (itemOffset > 0 && reader.readByte(itemOffset - 1) == 7) {
+            if (itemOffset > 0 && reader.readByte(itemOffset - 1) == 12) {
+                // A CONSTANT_NameAndType entry, used by every reference to a field or method, read the name of the member
+                usedMembers.add(MemberSignatures.memberKey(reader.readUTF8(itemOffset, charBuffer)));
+            } else if (itemOffset > 0 && reader.readByte(itemOffset - 1) == 7) {
                 // A CONSTANT_Class entry, read the class descriptor
                 String classDescriptor = reader.readUTF8(itemOffset, charBuffer);
                 Type type = Type.getObjectType(classDescriptor);
@@ -135,6 +158,51 @@ public IntSet getConstants() {
         return constants;
     }
 
+    public IntSet getUsedMembers() {
+        return usedMembers;
+    }
+
+    public MemberSignatures getMemberSignatures() {
+        return memberSignatures.build();
+    }
+
+    private void addMember(int access, String name, HashCode signature) {
+        if (isPrivate(access)) {
+            return;
+        }
+        // A class that declares a member with the same name as a changed member of a super type may no longer compile
+        usedMembers.add(MemberSignatures.memberKey(name));
+        memberSignatures.add(name, Longs.fromByteArray(signature.toByteArray()));
+    }
+
+    private static Hasher memberSignature(int access, String name, String desc, @Nullable String signature) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(name);
+        hasher.putInt(access);
+        hasher.putString(desc);
+        putNullableString(hasher, signature);
+        return hasher;
+    }
+
+    private static void putNullableString(Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putNull();
+        } else {
+            hasher.putString(value);
+        }
+    }
+
+    private static void putStrings(Hasher hasher, @Nullable String[] values) {
+        if (values == null) {
+            hasher.putNull();
+        } else {
+            hasher.putInt(values.length);
+            for (String value : values) {
+                hasher.putString(value);
+            }
+        }
+    }
+
     private boolean isAnnotationType(String[] interfaces) {
         return interfaces.length == 1 && interfaces[0].equals("java/lang/annotation/Annotation");
     }
@@ -148,6 +216,19 @@ public FieldVisitor visitField(int access, String name, String desc, String sign
             // two values are switched
             constants.add((name + '|' + value).hashCode()); //non-private const
         }
+        Hasher memberSignature = memberSignature(access, name, desc, signature);
+        if (value == null) {
+            memberSignature.putNull();
+        } else {
+            // Constant values are a String or a boxed primitive, which are distinguished by their type
+            memberSignature.putString(value.getClass().getName());
+            memberSignature.putString(value.toString());
+        }
+        HashCode signatureHash = memberSignature.hash();
+        if (isAnnotationType) {
+            classSignature.putHash(signatureHash);
+        }
+        addMember(access, name, signatureHash);
         return fieldVisitor;
     }
 
@@ -170,11 +251,43 @@ public MethodVisitor visitMethod(int access, String name, String desc, String si
         for (Type argType : methodType.getArgumentTypes()) {
             maybeAddDependentType(argType.getClassName());
         }
+        if (!"<clinit>".equals(name)) {
+            Hasher memberSignature = memberSignature(access, name, desc, signature);
+            putStrings(memberSignature, exceptions);
+            HashCode signatureHash = memberSignature.hash();
+            if (affectsSubtypes(access)) {
+                // Subtypes that do not declare this method may no longer compile when it changes
+                classSignature.putHash(signatureHash);
+            }
+            addMember(access, name, signatureHash);
+        }
         return methodVisitor;
     }
 
+    private boolean affectsSubtypes(int access) {
+        if (isPrivate(access)) {
+            return false;
+        }
+        return isAnnotationType || (access & Opcodes.ACC_ABSTRACT) != 0 || (isInterface && (access & Opcodes.ACC_STATIC) == 0);
+    }
+
+    @Override
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        if (internalName.equals(outerName)) {
+            // A member type can hide a type that a subtype uses
+            classSignature.putString(name);
+            classSignature.putInt(access);
+        }
+    }
+
+    @Override
+    public void visitEnd() {
+        memberSignatures.add("", Longs.fromByteArray(classSignature.hash().toByteArray()));
+    }
+
     @Override
     public org.objectweb.asm.AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+        classSignature.putString(desc);
         if (isAnnotationType && "Ljava/lang/annotation/Retention;".equals(desc)) {
             return retentionPolicyVisitor;
         } else {
@@ -22,8 +22,10 @@
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassChanges;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.deps.MemberSignatures;
 import org.gradle.internal.hash.HashCode;
 
+import javax.annotation.Nullable;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -69,6 +71,23 @@ public IntSet getRelevantConstants(ClasspathEntrySnapshot other, Set<String> aff
         return result;
     }
 
+    /**
+     * Returns the members that changed in the given classes since the other snapshot, or null when one of the classes was removed
+     * or changed in a way that affects all classes that depend on it.
+     */
+    @Nullable
+    public IntSet getChangedMembersSince(ClasspathEntrySnapshot other, Set<String> modifiedClasses) {
+        IntSet result = new IntOpenHashSet();
+        for (String modifiedClass : modifiedClasses) {
+            MemberSignatures current = data.getClassAnalysis().getMemberSignatures(modifiedClass);
+            MemberSignatures previous = other.getData().getClassAnalysis().getMemberSignatures(modifiedClass);
+            if (current == null || previous == null || !current.addChangedMembersSince(previous, result)) {
+                return null;
+            }
+        }
+        return result;
+    }
+
     public ClassChanges getChangedClassesSince(ClasspathEntrySnapshot other) {
         Set<String> modifiedClasses = modifiedSince(other);
         Set<String> addedClasses = addedSince(other);
@@ -15,9 +15,15 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
@@ -26,28 +32,46 @@
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
+/**
+ * Analyzes the classes of a classpath entry. The classes of a large entry are hashed and analyzed in batches, in parallel,
+ * and the results are added to the analysis in the order of the classes in the entry, as a class that appears twice in
+ * an entry is only analyzed the first time. The classes of a jar can only be read while the jar is visited, so the classes
+ * of its first batch are analyzed right away, and only the classes of the later batches are read into memory.
+ */
 public class DefaultClasspathEntrySnapshotter {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultClasspathEntrySnapshotter.class);
+    private static final int BATCH_SIZE = 500;
 
     private final FileHasher fileHasher;
     private final StreamHasher hasher;
     private final ClassDependenciesAnalyzer analyzer;
     private final FileOperations fileOperations;
+    private final BuildOperationExecutor buildOperationExecutor;
 
-    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations) {
+    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations, BuildOperationExecutor buildOperationExecutor) {
         this.fileHasher = fileHasher;
         this.hasher = streamHasher;
         this.analyzer = analyzer;
         this.fileOperations = fileOperations;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry) {
@@ -55,7 +79,11 @@ public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry)
         final ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator();
 
         try {
-            visit(classpathEntry, hashes, accumulator);
+            List<AnalyzeClasses> batches = visit(classpathEntry);
+            analyze(batches);
+            for (AnalyzeClasses batch : batches) {
+                batch.addTo(accumulator, hashes);
+            }
         } catch (Exception e) {
             accumulator.fullRebuildNeeded(classpathEntry + " could not be analyzed for incremental compilation. See the debug log for more details");
             if (LOGGER.isDebugEnabled()) {
@@ -66,22 +94,47 @@ public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry)
         return new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
 
-    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+    private List<AnalyzeClasses> visit(File classpathEntry) {
+        List<AnalyzeClasses> batches = Lists.newArrayList();
         if (hasExtension(classpathEntry, ".jar")) {
-            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(accumulator, hashes));
+            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(classpathEntry, batches));
         }
         if (classpathEntry.isDirectory()) {
-            fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes));
+            fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(classpathEntry, batches));
+        }
+        return batches;
+    }
+
+    private void analyze(List<AnalyzeClasses> allBatches) {
+        final List<AnalyzeClasses> batches = Lists.newArrayList();
+        for (AnalyzeClasses batch : allBatches) {
+            if (!batch.isAnalyzed()) {
+                batches.add(batch);
+            }
+        }
+        if (batches.size() <= 1) {
+            for (AnalyzeClasses batch : batches) {
+                batch.analyze();
+            }
+            return;
         }
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<AnalyzeClasses>>() {
+            @Override
+            public void execute(BuildOperationQueue<AnalyzeClasses> buildOperationQueue) {
+                for (AnalyzeClasses batch : batches) {
+                    buildOperationQueue.add(batch);
+                }
+            }
+        });
     }
 
     private abstract class EntryVisitor implements FileVisitor {
-        private final ClassDependentsAccumulator accumulator;
-        private final Map<String, HashCode> hashes;
+        private final File classpathEntry;
+        private final List<AnalyzeClasses> batches;
 
-        public EntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            this.accumulator = accumulator;
-            this.hashes = hashes;
+        public EntryVisitor(File classpathEntry, List<AnalyzeClasses> batches) {
+            this.classpathEntry = classpathEntry;
+            this.batches = batches;
         }
 
         @Override
@@ -93,51 +146,242 @@ public void visitFile(FileVisitDetails fileDetails) {
             if (!fileDetails.getName().endsWith(".class")) {
                 return;
             }
+            AnalyzeClasses batch = batches.isEmpty() ? null : batches.get(batches.size() - 1);
+            if (batch == null || batch.classFiles.size() == BATCH_SIZE) {
+                batch = new AnalyzeClasses(classpathEntry, batches.size());
+                batches.add(batch);
+            }
+            batch.classFiles.add(toClassFile(fileDetails, batches.size() == 1));
+        }
+
+        protected abstract ClassFile toClassFile(FileVisitDetails fileDetails, boolean firstBatch);
+    }
+
+    private class JarEntryVisitor extends EntryVisitor {
+
+        public JarEntryVisitor(File classpathEntry, List<AnalyzeClasses> batches) {
+            super(classpathEntry, batches);
+        }
+
+        @Override
+        protected ClassFile toClassFile(FileVisitDetails fileDetails, boolean firstBatch) {
+            if (firstBatch) {
+                // Most jars have a single batch, which doesn't need to be read into memory when it is analyzed while the jar is visited
+                ClassFile classFile = new JarClassFile(fileDetails);
+                classFile.analyze();
+                return classFile;
+            }
+            // The content of a jar entry can only be read while the jar is visited
+            return new JarClassFile(new JarEntryContent(fileDetails));
+        }
+    }
 
-            HashCode classFileHash = getHashCode(fileDetails);
+    private class JarClassFile extends ClassFile {
+
+        JarClassFile(FileTreeElement classFile) {
+            super(classFile);
+        }
 
+        @Override
+        protected HashCode getHashCode(FileTreeElement classFile) {
+            InputStream inputStream = classFile.open();
             try {
-                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
-                accumulator.addClass(analysis);
-                hashes.put(analysis.getClassName(), classFileHash);
+                return hasher.hash(inputStream);
+            } finally {
+                IoActions.closeQuietly(inputStream);
+            }
+        }
+    }
+
+    private class DirectoryEntryVisitor extends EntryVisitor {
+
+        public DirectoryEntryVisitor(File classpathEntry, List<AnalyzeClasses> batches) {
+            super(classpathEntry, batches);
+        }
+
+        @Override
+        protected ClassFile toClassFile(FileVisitDetails fileDetails, boolean firstBatch) {
+            return new ClassFile(fileDetails) {
+                @Override
+                protected HashCode getHashCode(FileTreeElement classFile) {
+                    return fileHasher.hash(classFile.getFile(), classFile.getSize(), classFile.getLastModified());
+                }
+            };
+        }
+    }
+
+    private abstract class ClassFile {
+        private final FileTreeElement classFile;
+        private HashCode hash;
+        private ClassAnalysis analysis;
+        private RuntimeException hashFailure;
+        private Exception analysisFailure;
+
+        ClassFile(FileTreeElement classFile) {
+            this.classFile = classFile;
+        }
+
+        protected abstract HashCode getHashCode(FileTreeElement classFile);
+
+        boolean isAnalyzed() {
+            return hash != null || hashFailure != null;
+        }
+
+        void analyze() {
+            try {
+                hash = getHashCode(classFile);
+            } catch (RuntimeException e) {
+                hashFailure = e;
+                return;
+            }
+            try {
+                analysis = analyzer.getClassAnalysis(hash, classFile);
             } catch (Exception e) {
-                accumulator.fullRebuildNeeded(fileDetails.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
+                analysisFailure = e;
+            }
+        }
+
+        void addTo(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
+            if (hashFailure != null) {
+                throw hashFailure;
+            }
+            if (analysisFailure != null) {
+                accumulator.fullRebuildNeeded(classFile.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
                 if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Could not analyze " + fileDetails.getName() + " for incremental compilation", e);
+                    LOGGER.debug("Could not analyze " + classFile.getName() + " for incremental compilation", analysisFailure);
                 }
+                return;
             }
+            accumulator.addClass(analysis);
+            hashes.put(analysis.getClassName(), hash);
         }
-
-        protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
     }
 
-    private class JarEntryVisitor extends EntryVisitor {
+    private static class AnalyzeClasses implements RunnableBuildOperation {
+        private final File classpathEntry;
+        private final int index;
+        private final List<ClassFile> classFiles = Lists.newArrayListWithCapacity(BATCH_SIZE);
+
+        AnalyzeClasses(File classpathEntry, int index) {
+            this.classpathEntry = classpathEntry;
+            this.index = index;
+        }
+
+        boolean isAnalyzed() {
+            // A batch is analyzed as a whole, so its last class tells whether it was
+            return classFiles.get(classFiles.size() - 1).isAnalyzed();
+        }
+
+        void analyze() {
+            for (ClassFile classFile : classFiles) {
+                classFile.analyze();
+            }
+        }
+
+        void addTo(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
+            for (ClassFile classFile : classFiles) {
+                classFile.addTo(accumulator, hashes);
+            }
+        }
 
-        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        @Override
+        public void run(BuildOperationContext context) {
+            analyze();
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Analyze classes " + index * BATCH_SIZE + "-" + (index * BATCH_SIZE + classFiles.size() - 1) + " of " + classpathEntry);
+        }
+    }
+
+    /**
+     * The content of a class in a jar, read into memory so it can be analyzed after the jar has been visited.
+     */
+    private static class JarEntryContent implements FileTreeElement {
+        private final String displayName;
+        private final RelativePath relativePath;
+        private final long lastModified;
+        private final int mode;
+        private final byte[] content;
+
+        JarEntryContent(FileVisitDetails fileDetails) {
+            this.displayName = fileDetails.toString();
+            this.relativePath = fileDetails.getRelativePath();
+            this.lastModified = fileDetails.getLastModified();
+            this.mode = fileDetails.getMode();
             InputStream inputStream = fileDetails.open();
             try {
-                return hasher.hash(inputStream);
+                this.content = ByteStreams.toByteArray(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             } finally {
                 IoActions.closeQuietly(inputStream);
             }
         }
-    }
 
-    private class DirectoryEntryVisitor extends EntryVisitor {
+        @Override
+        public File getFile() {
+            throw new UnsupportedOperationException("The content of " + displayName + " is not available as a file.");
+        }
 
-        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        @Override
+        public boolean isDirectory() {
+            return false;
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            return fileHasher.hash(fileDetails.getFile(), fileDetails.getSize(), fileDetails.getLastModified());
+        public long getLastModified() {
+            return lastModified;
         }
-    }
 
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public InputStream open() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void copyTo(OutputStream output) {
+            try {
+                output.write(content);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean copyTo(File target) {
+            throw new UnsupportedOperationException("Cannot copy " + displayName + " to a file.");
+        }
+
+        @Override
+        public String getName() {
+            return relativePath.getLastName();
+        }
+
+        @Override
+        public String getPath() {
+            return relativePath.getPathString();
+        }
+
+        @Override
+        public RelativePath getRelativePath() {
+            return relativePath;
+        }
+
+        @Override
+        public int getMode() {
+            return mode;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
 }
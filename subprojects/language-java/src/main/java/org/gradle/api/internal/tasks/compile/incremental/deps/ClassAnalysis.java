@@ -30,12 +30,16 @@ public class ClassAnalysis {
     private final Set<String> classDependencies;
     private final boolean dependencyToAll;
     private final IntSet constants;
+    private final MemberSignatures memberSignatures;
+    private final IntSet usedMembers;
 
-    public ClassAnalysis(String className, Set<String> classDependencies, boolean dependencyToAll, IntSet constants) {
+    public ClassAnalysis(String className, Set<String> classDependencies, boolean dependencyToAll, IntSet constants, MemberSignatures memberSignatures, IntSet usedMembers) {
         this.className = className;
         this.classDependencies = ImmutableSet.copyOf(classDependencies);
         this.dependencyToAll = dependencyToAll;
         this.constants = constants.isEmpty() ? IntSets.EMPTY_SET : constants;
+        this.memberSignatures = memberSignatures;
+        this.usedMembers = usedMembers.isEmpty() ? IntSets.EMPTY_SET : usedMembers;
     }
 
     public String getClassName() {
@@ -50,6 +54,17 @@ public IntSet getConstants() {
         return constants;
     }
 
+    public MemberSignatures getMemberSignatures() {
+        return memberSignatures;
+    }
+
+    /**
+     * The keys of the members this class uses or declares, see {@link MemberSignatures#memberKey(String)}.
+     */
+    public IntSet getUsedMembers() {
+        return usedMembers;
+    }
+
     public boolean isDependencyToAll() {
         return dependencyToAll;
     }
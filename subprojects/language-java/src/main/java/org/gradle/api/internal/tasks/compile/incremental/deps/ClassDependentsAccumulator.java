@@ -33,11 +33,21 @@ public class ClassDependentsAccumulator {
     private final Set<String> dependenciesToAll = Sets.newHashSet();
     private final Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
     private final ImmutableMap.Builder<String, IntSet> classesToConstants = ImmutableMap.builder();
+    private final ImmutableMap.Builder<String, MemberSignatures> classesToMemberSignatures = ImmutableMap.builder();
+    private final ImmutableMap.Builder<String, IntSet> classesToUsedMembers = ImmutableMap.builder();
     private final Set<String> seenClasses = Sets.newHashSet();
     private String fullRebuildCause;
 
     public void addClass(ClassAnalysis classAnalysis) {
-        addClass(classAnalysis.getClassName(), classAnalysis.isDependencyToAll(), classAnalysis.getClassDependencies(), classAnalysis.getConstants());
+        String className = classAnalysis.getClassName();
+        if (seenClasses.contains(className)) {
+            return;
+        }
+        addClass(className, classAnalysis.isDependencyToAll(), classAnalysis.getClassDependencies(), classAnalysis.getConstants());
+        classesToMemberSignatures.put(className, classAnalysis.getMemberSignatures());
+        if (!classAnalysis.getUsedMembers().isEmpty()) {
+            classesToUsedMembers.put(className, classAnalysis.getUsedMembers());
+        }
     }
 
     public void addClass(String className, boolean dependencyToAll, Iterable<String> classDependencies, IntSet constants) {
@@ -100,7 +110,7 @@ public void fullRebuildNeeded(String fullRebuildCause) {
     }
 
     public ClassSetAnalysisData getAnalysis() {
-        return new ClassSetAnalysisData(ImmutableSet.copyOf(seenClasses), getDependentsMap(), getClassesToConstants(), fullRebuildCause);
+        return new ClassSetAnalysisData(ImmutableSet.copyOf(seenClasses), getDependentsMap(), getClassesToConstants(), classesToMemberSignatures.build(), classesToUsedMembers.build(), fullRebuildCause);
     }
 
     private static <K, V> Map<K, Set<V>> asMap(Multimap<K, V> multimap) {
@@ -23,6 +23,8 @@
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingData;
 import org.gradle.api.internal.tasks.compile.incremental.processing.GeneratedResource;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -110,13 +112,80 @@ public DependentsSet getRelevantDependents(String className, IntSet constants) {
 
         Set<String> resultClasses = new HashSet<String>();
         Set<GeneratedResource> resultResources = new HashSet<GeneratedResource>(resourcesDependingOnAllOthers);
-        recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, deps.getDependentClasses());
-        recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, classesDependingOnAllOthers);
+        if (classDependenciesFromAnnotationProcessing.isEmpty() && resourceDependenciesFromAnnotationProcessing.isEmpty()) {
+            // Only the dependencies between classes are relevant, so they can be followed by index
+            classAnalysis.addTransitiveDependents(deps.getDependentClasses(), resultClasses);
+            classAnalysis.addTransitiveDependents(classesDependingOnAllOthers, resultClasses);
+        } else {
+            recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, deps.getDependentClasses());
+            recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, classesDependingOnAllOthers);
+        }
         resultClasses.remove(className);
 
         return DependentsSet.dependents(resultClasses, resultResources);
     }
 
+    /**
+     * Returns the dependents of the given classes, of which only the given members have changed. A dependent that uses none of these
+     * members does not need to be recompiled itself, but it may pass them on to its own dependents: a subtype inherits the members,
+     * and its users reference them with the subtype as owner. So the dependents of an unaffected class are checked in turn.
+     */
+    public DependentsSet getRelevantDependents(Iterable<String> classes, IntSet constants, IntSet changedMembers) {
+        String fullRebuildCause = annotationProcessingData.getFullRebuildCause();
+        if (fullRebuildCause != null) {
+            return DependentsSet.dependencyToAll(fullRebuildCause);
+        }
+        Set<String> visitedClasses = new HashSet<String>();
+        Set<String> affectedDependents = new HashSet<String>();
+        Deque<String> unaffectedDependents = new ArrayDeque<String>();
+        for (String className : classes) {
+            DependentsSet deps = getDependents(className);
+            if (deps.isDependencyToAll()) {
+                return deps;
+            }
+            visitedClasses.add(className);
+            filterDependents(deps, changedMembers, visitedClasses, affectedDependents, unaffectedDependents);
+        }
+        if (!constants.isEmpty()) {
+            return DependentsSet.dependencyToAll();
+        }
+        while (!unaffectedDependents.isEmpty()) {
+            DependentsSet deps = getDependents(unaffectedDependents.removeFirst());
+            if (!deps.isDependencyToAll()) {
+                filterDependents(deps, changedMembers, visitedClasses, affectedDependents, unaffectedDependents);
+            }
+        }
+        Set<String> classesDependingOnAllOthers = annotationProcessingData.getGeneratedTypesDependingOnAllOthers();
+        Set<GeneratedResource> resourcesDependingOnAllOthers = annotationProcessingData.getGeneratedResourcesDependingOnAllOthers();
+        if (affectedDependents.isEmpty() && classesDependingOnAllOthers.isEmpty() && resourcesDependingOnAllOthers.isEmpty()) {
+            return DependentsSet.empty();
+        }
+
+        Set<String> resultClasses = new HashSet<String>();
+        Set<GeneratedResource> resultResources = new HashSet<GeneratedResource>(resourcesDependingOnAllOthers);
+        if (classDependenciesFromAnnotationProcessing.isEmpty() && resourceDependenciesFromAnnotationProcessing.isEmpty()) {
+            classAnalysis.addTransitiveDependents(affectedDependents, resultClasses);
+            classAnalysis.addTransitiveDependents(classesDependingOnAllOthers, resultClasses);
+        } else {
+            recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, affectedDependents);
+            recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, classesDependingOnAllOthers);
+        }
+        return DependentsSet.dependents(resultClasses, resultResources);
+    }
+
+    private void filterDependents(DependentsSet deps, IntSet changedMembers, Set<String> visitedClasses, Set<String> affectedDependents, Deque<String> unaffectedDependents) {
+        for (String dependent : deps.getDependentClasses()) {
+            if (!visitedClasses.add(dependent)) {
+                continue;
+            }
+            if (classAnalysis.usesAnyMember(dependent, changedMembers)) {
+                affectedDependents.add(dependent);
+            } else {
+                unaffectedDependents.add(dependent);
+            }
+        }
+    }
+
     public Set<String> getTypesToReprocess() {
         return annotationProcessingData.getAggregatedTypes();
     }
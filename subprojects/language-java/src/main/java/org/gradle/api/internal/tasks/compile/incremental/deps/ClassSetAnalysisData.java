@@ -18,7 +18,7 @@
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntSets;
 import org.apache.commons.lang.StringUtils;
@@ -28,23 +28,103 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.IntSetSerializer;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
+/**
+ * The dependencies between the classes of a compilation or of a classpath entry.
+ *
+ * Each class name is kept once, in a sorted array, and classes refer to each other by their index in it. The dependents
+ * of all classes are kept in one array of indices, with the offset of the dependents of each class in a second array,
+ * and the classes that are a dependency to all others in a bit set. This keeps the analysis of large modules small,
+ * and lets transitive dependents be found by walking indices instead of looking up names.
+ */
 public class ClassSetAnalysisData {
     public static final String PACKAGE_INFO = "package-info";
 
-    private final Set<String> classes;
-    private final Map<String, DependentsSet> dependents;
+    private final String[] classNames;
+    private final BitSet classes;
+    private final int[] dependentsOffsets;
+    private final int[] dependents;
+    private final BitSet dependenciesToAll;
+    private final Map<String, String> dependencyToAllReasons;
     private final Map<String, IntSet> classesToConstants;
+    private final Map<String, MemberSignatures> classesToMemberSignatures;
+    private final Map<String, IntSet> classesToUsedMembers;
     private final String fullRebuildCause;
 
     public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, String fullRebuildCause) {
+        this(classes, dependents, classesToConstants, Collections.<String, MemberSignatures>emptyMap(), Collections.<String, IntSet>emptyMap(), fullRebuildCause);
+    }
+
+    public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants,
+                                Map<String, MemberSignatures> classesToMemberSignatures, Map<String, IntSet> classesToUsedMembers, String fullRebuildCause) {
+        TreeSet<String> allClassNames = new TreeSet<String>(classes);
+        allClassNames.addAll(classesToConstants.keySet());
+        allClassNames.addAll(classesToMemberSignatures.keySet());
+        allClassNames.addAll(classesToUsedMembers.keySet());
+        int dependentsCount = 0;
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            allClassNames.add(entry.getKey());
+            if (!entry.getValue().isDependencyToAll()) {
+                allClassNames.addAll(entry.getValue().getDependentClasses());
+                dependentsCount += entry.getValue().getDependentClasses().size();
+            }
+        }
+        this.classNames = allClassNames.toArray(new String[0]);
+        this.classes = new BitSet(classNames.length);
+        for (String className : classes) {
+            this.classes.set(indexOf(className));
+        }
+        this.dependentsOffsets = new int[classNames.length + 1];
+        this.dependents = new int[dependentsCount];
+        this.dependenciesToAll = new BitSet(classNames.length);
+        ImmutableMap.Builder<String, String> dependencyToAllReasons = ImmutableMap.builder();
+        int offset = 0;
+        for (int i = 0; i < classNames.length; i++) {
+            dependentsOffsets[i] = offset;
+            DependentsSet dependentsSet = dependents.get(classNames[i]);
+            if (dependentsSet == null) {
+                continue;
+            }
+            if (dependentsSet.isDependencyToAll()) {
+                dependenciesToAll.set(i);
+                if (dependentsSet.getDescription() != null) {
+                    dependencyToAllReasons.put(classNames[i], dependentsSet.getDescription());
+                }
+                continue;
+            }
+            int start = offset;
+            for (String dependent : dependentsSet.getDependentClasses()) {
+                this.dependents[offset++] = indexOf(dependent);
+            }
+            Arrays.sort(this.dependents, start, offset);
+        }
+        dependentsOffsets[classNames.length] = offset;
+        this.dependencyToAllReasons = dependencyToAllReasons.build();
+        this.classesToConstants = classesToConstants;
+        this.classesToMemberSignatures = classesToMemberSignatures;
+        this.classesToUsedMembers = classesToUsedMembers;
+        this.fullRebuildCause = fullRebuildCause;
+    }
+
+    private ClassSetAnalysisData(String[] classNames, BitSet classes, int[] dependentsOffsets, int[] dependents, BitSet dependenciesToAll, Map<String, String> dependencyToAllReasons,
+                                 Map<String, IntSet> classesToConstants, Map<String, MemberSignatures> classesToMemberSignatures, Map<String, IntSet> classesToUsedMembers, String fullRebuildCause) {
+        this.classNames = classNames;
         this.classes = classes;
+        this.dependentsOffsets = dependentsOffsets;
         this.dependents = dependents;
+        this.dependenciesToAll = dependenciesToAll;
+        this.dependencyToAllReasons = dependencyToAllReasons;
         this.classesToConstants = classesToConstants;
+        this.classesToMemberSignatures = classesToMemberSignatures;
+        this.classesToUsedMembers = classesToUsedMembers;
         this.fullRebuildCause = fullRebuildCause;
     }
 
@@ -53,22 +133,132 @@ public DependentsSet getDependents(String className) {
             return DependentsSet.dependencyToAll(fullRebuildCause);
         }
         if (className.endsWith(PACKAGE_INFO)) {
-            String packageName = className.equals(PACKAGE_INFO) ? null : StringUtils.removeEnd(className, "." + PACKAGE_INFO);
-            return getDependentsOfPackage(packageName);
+            return getDependentsOfPackage(packageNameOf(className));
+        }
+        int index = indexOf(className);
+        if (index < 0) {
+            return DependentsSet.empty();
+        }
+        if (dependenciesToAll.get(index)) {
+            String reason = dependencyToAllReasons.get(className);
+            return reason == null ? DependentsSet.dependencyToAll() : DependentsSet.dependencyToAll(reason);
+        }
+        int start = dependentsOffsets[index];
+        int end = dependentsOffsets[index + 1];
+        if (start == end) {
+            return DependentsSet.empty();
+        }
+        ImmutableSet.Builder<String> dependentClasses = ImmutableSet.builder();
+        for (int i = start; i < end; i++) {
+            dependentClasses.add(classNames[dependents[i]]);
+        }
+        return DependentsSet.dependentClasses(dependentClasses.build());
+    }
+
+    private DependentsSet getDependentsOfPackage(@Nullable String packageName) {
+        BitSet typesInPackage = classesInPackage(packageName);
+        ImmutableSet.Builder<String> dependentClasses = ImmutableSet.builder();
+        for (int i = typesInPackage.nextSetBit(0); i >= 0; i = typesInPackage.nextSetBit(i + 1)) {
+            dependentClasses.add(classNames[i]);
+        }
+        return DependentsSet.dependentClasses(dependentClasses.build());
+    }
+
+    /**
+     * Adds the given classes, and the classes that transitively depend on them, to the given set. Nested classes are
+     * followed but not added, and the dependents of a class that is a dependency to all are not followed.
+     */
+    public void addTransitiveDependents(Iterable<String> dependentClasses, Set<String> result) {
+        BitSet visited = new BitSet(classNames.length);
+        int[] queue = new int[classNames.length];
+        int tail = 0;
+        for (String className : dependentClasses) {
+            int index = indexOf(className);
+            if (index < 0) {
+                // Not in this analysis, so only a package-info can have dependents
+                addDependent(className, result);
+                tail = enqueueDependents(className, index, visited, queue, tail);
+            } else {
+                tail = enqueue(index, visited, queue, tail);
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int index = queue[head];
+            addDependent(classNames[index], result);
+            tail = enqueueDependents(classNames[index], index, visited, queue, tail);
+        }
+    }
+
+    private int enqueueDependents(String className, int index, BitSet visited, int[] queue, int tail) {
+        if (fullRebuildCause != null) {
+            return tail;
+        }
+        if (className.endsWith(PACKAGE_INFO)) {
+            BitSet typesInPackage = classesInPackage(packageNameOf(className));
+            for (int i = typesInPackage.nextSetBit(0); i >= 0; i = typesInPackage.nextSetBit(i + 1)) {
+                tail = enqueue(i, visited, queue, tail);
+            }
+            return tail;
+        }
+        if (index < 0 || dependenciesToAll.get(index)) {
+            return tail;
+        }
+        for (int i = dependentsOffsets[index]; i < dependentsOffsets[index + 1]; i++) {
+            tail = enqueue(dependents[i], visited, queue, tail);
+        }
+        return tail;
+    }
+
+    private static int enqueue(int index, BitSet visited, int[] queue, int tail) {
+        if (visited.get(index)) {
+            return tail;
+        }
+        visited.set(index);
+        queue[tail] = index;
+        return tail + 1;
+    }
+
+    private static void addDependent(String className, Set<String> result) {
+        if (!className.contains("$")) {
+            result.add(className);
         }
-        DependentsSet dependentsSet = dependents.get(className);
-        return dependentsSet == null ? DependentsSet.empty() : dependentsSet;
     }
 
-    private DependentsSet getDependentsOfPackage(String packageName) {
-        Set<String> typesInPackage = Sets.newHashSet();
-        for (String type : classes) {
-            int i = type.lastIndexOf(".");
-            if (i < 0 && packageName == null || i > 0 && type.substring(0, i).equals(packageName)) {
-                typesInPackage.add(type);
+    /**
+     * Finds the classes of a package. The names of the classes of a package and of its sub-packages are next to each other in
+     * the sorted names, so only those are looked at.
+     */
+    private BitSet classesInPackage(@Nullable String packageName) {
+        BitSet result = new BitSet();
+        if (packageName == null) {
+            for (int i = classes.nextSetBit(0); i >= 0; i = classes.nextSetBit(i + 1)) {
+                if (classNames[i].indexOf('.') < 0) {
+                    result.set(i);
+                }
+            }
+            return result;
+        }
+        String prefix = packageName + ".";
+        int start = Arrays.binarySearch(classNames, prefix);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        for (int i = start; i < classNames.length && classNames[i].startsWith(prefix); i++) {
+            if (classes.get(i) && classNames[i].indexOf('.', prefix.length()) < 0) {
+                result.set(i);
             }
         }
-        return DependentsSet.dependentClasses(typesInPackage);
+        return result;
+    }
+
+    @Nullable
+    private static String packageNameOf(String packageInfo) {
+        return packageInfo.equals(PACKAGE_INFO) ? null : StringUtils.removeEnd(packageInfo, "." + PACKAGE_INFO);
+    }
+
+    private int indexOf(String className) {
+        int index = Arrays.binarySearch(classNames, className);
+        return index < 0 ? -1 : index;
     }
 
     public IntSet getConstants(String className) {
@@ -79,6 +269,31 @@ public IntSet getConstants(String className) {
         return integers;
     }
 
+    /**
+     * Returns the signatures of the members of the given class, or null when they are not known.
+     */
+    @Nullable
+    public MemberSignatures getMemberSignatures(String className) {
+        return classesToMemberSignatures.get(className);
+    }
+
+    /**
+     * Returns true when the given class uses or declares one of the given members, see {@link MemberSignatures#memberKey(String)}.
+     */
+    public boolean usesAnyMember(String className, IntSet members) {
+        IntSet usedMembers = classesToUsedMembers.get(className);
+        if (usedMembers == null) {
+            return false;
+        }
+        IntIterator iterator = members.iterator();
+        while (iterator.hasNext()) {
+            if (usedMembers.contains(iterator.nextInt())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
 
         private final StringInterner interner;
@@ -89,104 +304,142 @@ public Serializer(StringInterner interner) {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
-
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> classes = ImmutableSet.builder();
+            String[] classNames = new String[count];
+            String previous = "";
             for (int i = 0; i < count; i++) {
-                classes.add(readClassName(decoder, classNameMap));
+                int commonPrefix = decoder.readSmallInt();
+                previous = interner.intern(previous.substring(0, commonPrefix) + decoder.readString());
+                classNames[i] = previous;
             }
+            BitSet classes = readBitSet(decoder);
+            BitSet dependenciesToAll = readBitSet(decoder);
+
+            int[] dependentsOffsets = new int[count + 1];
+            int[] dependents = new int[decoder.readSmallInt()];
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                dependentsOffsets[i] = offset;
+                int dependentsCount = decoder.readSmallInt();
+                int dependent = 0;
+                for (int j = 0; j < dependentsCount; j++) {
+                    dependent += decoder.readSmallInt();
+                    dependents[offset++] = dependent;
+                }
+            }
+            dependentsOffsets[count] = offset;
 
             count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
+            ImmutableMap.Builder<String, String> dependencyToAllReasons = ImmutableMap.builder();
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+                dependencyToAllReasons.put(classNames[decoder.readSmallInt()], decoder.readString());
             }
 
             count = decoder.readSmallInt();
             ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builder();
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
+                String className = classNames[decoder.readSmallInt()];
                 IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
                 classesToConstantsBuilder.put(className, constants);
             }
 
+            count = decoder.readSmallInt();
+            ImmutableMap.Builder<String, MemberSignatures> classesToMemberSignatures = ImmutableMap.builder();
+            for (int i = 0; i < count; i++) {
+                classesToMemberSignatures.put(classNames[decoder.readSmallInt()], MemberSignatures.Serializer.INSTANCE.read(decoder));
+            }
+
+            count = decoder.readSmallInt();
+            ImmutableMap.Builder<String, IntSet> classesToUsedMembers = ImmutableMap.builder();
+            for (int i = 0; i < count; i++) {
+                classesToUsedMembers.put(classNames[decoder.readSmallInt()], IntSetSerializer.INSTANCE.read(decoder));
+            }
+
             String fullRebuildCause = decoder.readNullableString();
 
-            return new ClassSetAnalysisData(classes.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), fullRebuildCause);
+            return new ClassSetAnalysisData(classNames, classes, dependentsOffsets, dependents, dependenciesToAll, dependencyToAllReasons.build(), classesToConstantsBuilder.build(),
+                classesToMemberSignatures.build(), classesToUsedMembers.build(), fullRebuildCause);
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
-            encoder.writeSmallInt(value.classes.size());
-            for (String clazz : value.classes) {
-                writeClassName(clazz, classNameMap, encoder);
+            String[] classNames = value.classNames;
+            encoder.writeSmallInt(classNames.length);
+            // Names are sorted, so most of them share a long prefix with the previous one
+            String previous = "";
+            for (String className : classNames) {
+                int commonPrefix = commonPrefixLength(previous, className);
+                encoder.writeSmallInt(commonPrefix);
+                encoder.writeString(className.substring(commonPrefix));
+                previous = className;
             }
+            writeBitSet(value.classes, encoder);
+            writeBitSet(value.dependenciesToAll, encoder);
 
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
+            encoder.writeSmallInt(value.dependents.length);
+            for (int i = 0; i < classNames.length; i++) {
+                int start = value.dependentsOffsets[i];
+                int end = value.dependentsOffsets[i + 1];
+                encoder.writeSmallInt(end - start);
+                // Dependents are sorted, so write the difference to the previous one
+                int dependent = 0;
+                for (int j = start; j < end; j++) {
+                    encoder.writeSmallInt(value.dependents[j] - dependent);
+                    dependent = value.dependents[j];
+                }
+            }
+
+            encoder.writeSmallInt(value.dependencyToAllReasons.size());
+            for (Map.Entry<String, String> entry : value.dependencyToAllReasons.entrySet()) {
+                encoder.writeSmallInt(value.indexOf(entry.getKey()));
+                encoder.writeString(entry.getValue());
             }
 
             encoder.writeSmallInt(value.classesToConstants.size());
             for (Map.Entry<String, IntSet> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
+                encoder.writeSmallInt(value.indexOf(entry.getKey()));
                 IntSetSerializer.INSTANCE.write(encoder, entry.getValue());
             }
-            encoder.writeNullableString(value.fullRebuildCause);
-        }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            byte b = decoder.readByte();
-            if (b == 1) {
-                return DependentsSet.dependencyToAll(decoder.readNullableString());
+            encoder.writeSmallInt(value.classesToMemberSignatures.size());
+            for (Map.Entry<String, MemberSignatures> entry : value.classesToMemberSignatures.entrySet()) {
+                encoder.writeSmallInt(value.indexOf(entry.getKey()));
+                MemberSignatures.Serializer.INSTANCE.write(encoder, entry.getValue());
             }
-            int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-            for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+
+            encoder.writeSmallInt(value.classesToUsedMembers.size());
+            for (Map.Entry<String, IntSet> entry : value.classesToUsedMembers.entrySet()) {
+                encoder.writeSmallInt(value.indexOf(entry.getKey()));
+                IntSetSerializer.INSTANCE.write(encoder, entry.getValue());
             }
-            return DependentsSet.dependentClasses(builder.build());
+            encoder.writeNullableString(value.fullRebuildCause);
         }
 
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
-            if (dependentsSet.isDependencyToAll()) {
-                encoder.writeByte((byte) 1);
-                encoder.writeNullableString(dependentsSet.getDescription());
-            } else {
-                encoder.writeByte((byte) 2);
-                encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
-                for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
+        private static int commonPrefixLength(String previous, String className) {
+            int length = Math.min(previous.length(), className.length());
+            int i = 0;
+            while (i < length && previous.charAt(i) == className.charAt(i)) {
+                i++;
             }
+            if (i > 0 && Character.isHighSurrogate(className.charAt(i - 1))) {
+                i--;
+            }
+            return i;
         }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = interner.intern(decoder.readString());
-                classNameMap.put(id, className);
-                return className;
+        private static BitSet readBitSet(Decoder decoder) throws IOException {
+            long[] words = new long[decoder.readSmallInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = decoder.readLong();
             }
-            return classNameMap.get(id);
+            return BitSet.valueOf(words);
         }
 
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
-                encoder.writeSmallInt(id);
+        private static void writeBitSet(BitSet bitSet, Encoder encoder) throws IOException {
+            long[] words = bitSet.toLongArray();
+            encoder.writeSmallInt(words.length);
+            for (long word : words) {
+                encoder.writeLong(word);
             }
         }
     }
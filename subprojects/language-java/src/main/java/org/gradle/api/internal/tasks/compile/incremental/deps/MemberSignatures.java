@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.deps;
+
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.util.Arrays;
+
+/**
+ * The signatures of the non-private members of a class, used to find the members that changed between two versions of the class.
+ *
+ * <p>Each member is kept as the hash of its name together with a 64 bit hash of its signature, which includes the name. The class
+ * itself is kept as a member with an empty name, whose signature covers everything that can affect classes that use none of the
+ * changed members, like the super types, the member types and the abstract methods of the class.</p>
+ */
+public class MemberSignatures {
+    public static final int CLASS_MEMBER = memberKey("");
+    public static final MemberSignatures EMPTY = new MemberSignatures(new int[0], new long[0]);
+
+    // Sorted by key, then by signature
+    private final int[] keys;
+    private final long[] signatures;
+
+    private MemberSignatures(int[] keys, long[] signatures) {
+        this.keys = keys;
+        this.signatures = signatures;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The key that is used for the member with the given name, both in the signatures of a class and in the members used by a class.
+     * Overloads share a key, as adding an overload can change which member a class uses. Names can share a key as well, which only
+     * causes more classes to be recompiled.
+     */
+    public static int memberKey(String name) {
+        return name.hashCode();
+    }
+
+    /**
+     * Adds the keys of the members that were added, removed or changed since the previous version of the class to the given set.
+     *
+     * @return false when the class itself has changed, so every class that depends on it is affected.
+     */
+    public boolean addChangedMembersSince(MemberSignatures previous, IntSet changedMembers) {
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < previous.keys.length) {
+            int key;
+            if (j == previous.keys.length) {
+                key = keys[i++];
+            } else if (i == keys.length) {
+                key = previous.keys[j++];
+            } else {
+                int comparison = compare(keys[i], signatures[i], previous.keys[j], previous.signatures[j]);
+                if (comparison == 0) {
+                    i++;
+                    j++;
+                    continue;
+                }
+                key = comparison < 0 ? keys[i++] : previous.keys[j++];
+            }
+            if (key == CLASS_MEMBER) {
+                return false;
+            }
+            changedMembers.add(key);
+        }
+        return true;
+    }
+
+    private static int compare(int key, long signature, int otherKey, long otherSignature) {
+        int comparison = Ints.compare(key, otherKey);
+        return comparison != 0 ? comparison : Longs.compare(signature, otherSignature);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MemberSignatures that = (MemberSignatures) o;
+        return Arrays.equals(keys, that.keys) && Arrays.equals(signatures, that.signatures);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(signatures);
+    }
+
+    public static class Builder {
+        private int[] keys = new int[8];
+        private long[] signatures = new long[8];
+        private int count;
+
+        private Builder() {
+        }
+
+        public Builder add(String name, long signature) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                signatures = Arrays.copyOf(signatures, count * 2);
+            }
+            keys[count] = memberKey(name);
+            signatures[count] = signature;
+            count++;
+            return this;
+        }
+
+        public MemberSignatures build() {
+            if (count == 0) {
+                return EMPTY;
+            }
+            // Sort the keys together with the position of their signature, then the signatures of each run of overloads
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = ((long) keys[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            int[] sortedKeys = new int[count];
+            long[] sortedSignatures = new long[count];
+            for (int i = 0; i < count; i++) {
+                sortedKeys[i] = (int) (order[i] >> 32);
+                sortedSignatures[i] = signatures[(int) order[i]];
+            }
+            int runStart = 0;
+            for (int i = 1; i <= count; i++) {
+                if (i == count || sortedKeys[i] != sortedKeys[runStart]) {
+                    Arrays.sort(sortedSignatures, runStart, i);
+                    runStart = i;
+                }
+            }
+            return new MemberSignatures(sortedKeys, sortedSignatures);
+        }
+    }
+
+    public static class Serializer extends AbstractSerializer<MemberSignatures> {
+        public static final Serializer INSTANCE = new Serializer();
+
+        private Serializer() {
+        }
+
+        @Override
+        public MemberSignatures read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            if (count == 0) {
+                return EMPTY;
+            }
+            int[] keys = new int[count];
+            long[] signatures = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = decoder.readInt();
+                signatures[i] = decoder.readLong();
+            }
+            return new MemberSignatures(keys, signatures);
+        }
+
+        @Override
+        public void write(Encoder encoder, MemberSignatures value) throws Exception {
+            encoder.writeSmallInt(value.keys.length);
+            for (int i = 0; i < value.keys.length; i++) {
+                encoder.writeInt(value.keys[i]);
+                encoder.writeLong(value.signatures[i]);
+            }
+        }
+    }
+}
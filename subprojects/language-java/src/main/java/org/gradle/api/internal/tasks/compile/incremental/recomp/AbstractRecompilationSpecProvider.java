@@ -60,8 +60,11 @@ protected boolean deleteStaleFilesIn(PatternSet filesToDelete, final File destin
         return StaleOutputCleaner.cleanOutputs(deleter, toDelete, destinationDir);
     }
 
-    protected void processClasspathChanges(CurrentCompilation current, PreviousCompilation previous, RecompilationSpec spec) {
-        ClasspathEntryChangeProcessor classpathEntryChangeProcessor = new ClasspathEntryChangeProcessor(current.getClasspathSnapshot(), previous);
+    /**
+     * @param trackUsedMembers whether the compiled classes reference every member of a classpath class they use, so that only the classes using a changed member need to be recompiled.
+     */
+    protected void processClasspathChanges(CurrentCompilation current, PreviousCompilation previous, RecompilationSpec spec, boolean trackUsedMembers) {
+        ClasspathEntryChangeProcessor classpathEntryChangeProcessor = new ClasspathEntryChangeProcessor(current.getClasspathSnapshot(), previous, trackUsedMembers);
         ClasspathSnapshot currentSnapshots = current.getClasspathSnapshot();
 
         Set<File> previousCompilationEntries = previous.getClasspath();
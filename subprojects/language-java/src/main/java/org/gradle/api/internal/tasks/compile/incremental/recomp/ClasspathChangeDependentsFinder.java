@@ -18,6 +18,7 @@
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshot;
 import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathSnapshot;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassChanges;
@@ -33,10 +34,12 @@ public class ClasspathChangeDependentsFinder {
 
     private final ClasspathSnapshot classpathSnapshot;
     private final PreviousCompilation previousCompilation;
+    private final boolean trackUsedMembers;
 
-    public ClasspathChangeDependentsFinder(ClasspathSnapshot classpathSnapshot, PreviousCompilation previousCompilation) {
+    public ClasspathChangeDependentsFinder(ClasspathSnapshot classpathSnapshot, PreviousCompilation previousCompilation, boolean trackUsedMembers) {
         this.classpathSnapshot = classpathSnapshot;
         this.previousCompilation = previousCompilation;
+        this.trackUsedMembers = trackUsedMembers;
     }
 
     public DependentsSet getActualDependents(InputFileDetails entryChangeDetails, File classpathEntry) {
@@ -89,9 +92,14 @@ private DependentsSet handleModified(File classpathEntry, final ClasspathEntrySn
         DependentsSet affectedOnClasspath = collectDependentsFromClasspath(Sets.union(classChanges.getModified(), classChanges.getAdded()));
         if (affectedOnClasspath.isDependencyToAll()) {
             return affectedOnClasspath;
-        } else {
-            return previousCompilation.getDependents(affectedOnClasspath.getDependentClasses(), currentSnapshot.getRelevantConstants(previous, affectedOnClasspath.getDependentClasses()));
         }
+        IntSet constants = currentSnapshot.getRelevantConstants(previous, affectedOnClasspath.getDependentClasses());
+        IntSet changedMembers = trackUsedMembers && classChanges.getAdded().isEmpty() ? currentSnapshot.getChangedMembersSince(previous, classChanges.getModified()) : null;
+        if (changedMembers == null) {
+            return previousCompilation.getDependents(affectedOnClasspath.getDependentClasses(), constants);
+        }
+        // Only some members of the modified classes changed, so only the dependents that reference one of them by name, directly or through a subtype, are affected
+        return previousCompilation.getDependents(affectedOnClasspath.getDependentClasses(), constants, changedMembers);
     }
 
     private DependentsSet collectDependentsFromClasspath(Set<String> modified) {
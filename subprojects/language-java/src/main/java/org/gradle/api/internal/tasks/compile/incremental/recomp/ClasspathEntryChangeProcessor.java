@@ -23,8 +23,8 @@
 public class ClasspathEntryChangeProcessor {
     private final ClasspathChangeDependentsFinder dependentsFinder;
 
-    public ClasspathEntryChangeProcessor(ClasspathSnapshot classpathSnapshot, PreviousCompilation previousCompilation) {
-        this.dependentsFinder = new ClasspathChangeDependentsFinder(classpathSnapshot, previousCompilation);
+    public ClasspathEntryChangeProcessor(ClasspathSnapshot classpathSnapshot, PreviousCompilation previousCompilation, boolean trackUsedMembers) {
+        this.dependentsFinder = new ClasspathChangeDependentsFinder(classpathSnapshot, previousCompilation, trackUsedMembers);
     }
 
     public void processChange(InputFileDetails input, RecompilationSpec spec) {
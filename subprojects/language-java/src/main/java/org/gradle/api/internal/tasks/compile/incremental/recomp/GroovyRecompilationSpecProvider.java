@@ -66,7 +66,8 @@ public RecompilationSpec provideRecompilationSpec(CurrentCompilation current, Pr
             return spec;
         }
 
-        processClasspathChanges(current, previous, spec);
+        // Groovy code can use members dynamically, without referencing them in the compiled classes
+        processClasspathChanges(current, previous, spec, false);
         processOtherChanges(previous, spec);
 
         spec.getClassesToProcess().addAll(previous.getTypesToReprocess());
@@ -106,10 +107,15 @@ private void prepareFilePatterns(Set<String> relativeSourcePathsToCompile, Patte
         for (String relativeSourcePath : relativeSourcePathsToCompile) {
             filesToRecompilePatterns.include(relativeSourcePath);
 
-            sourceFileClassNameConverter.getClassNames(relativeSourcePath)
-                .stream()
-                .map(staleClass -> staleClass.replaceAll("\\.", "/").concat(".class"))
-                .forEach(classesToDelete::include);
+            boolean javaSource = GroovySourceFileClassNameConverter.isJavaSource(relativeSourcePath);
+            for (String staleClass : sourceFileClassNameConverter.getClassNames(relativeSourcePath)) {
+                String path = staleClass.replaceAll("\\.", "/");
+                classesToDelete.include(path.concat(".class"));
+                if (javaSource) {
+                    // Only the class named after the file is recorded for a Java source compiled without debug information
+                    classesToDelete.include(path.concat("$*.class"));
+                }
+            }
         }
     }
 
@@ -128,8 +134,8 @@ private void processOtherChanges(PreviousCompilation previous, RecompilationSpec
             }
 
             File changedFile = fileChange.getFile();
-            if (!FileUtils.hasExtension(changedFile, ".groovy")) {
-                spec.setFullRebuildCause(rebuildClauseForChangedNonSourceFile("non-Groovy file", fileChange), null);
+            if (!FileUtils.hasExtension(changedFile, ".groovy") && !FileUtils.hasExtension(changedFile, ".java")) {
+                spec.setFullRebuildCause(rebuildClauseForChangedNonSourceFile("non-Groovy or Java file", fileChange), null);
                 return;
             }
 
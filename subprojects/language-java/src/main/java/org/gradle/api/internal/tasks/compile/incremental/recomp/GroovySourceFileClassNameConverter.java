@@ -19,10 +19,17 @@
 import com.google.common.collect.Multimap;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+/**
+ * Maps the source files of a Groovy compilation to the classes compiled from them and back.
+ *
+ * <p>The classes of the Java source files of a joint compilation are found in the output directory by their source file attribute,
+ * as javac does not report the classes it compiles. Nested classes that are not recorded are mapped to the source file of their outermost class.</p>
+ */
 public class GroovySourceFileClassNameConverter {
     private final Multimap<String, String> sourceClassesMapping;
     private final Map<String, String> classSourceMapping;
@@ -37,7 +44,20 @@ private Map<String, String> constructReverseMapping(Multimap<String, String> sou
     }
 
     public Collection<String> getClassNames(String sourceFileRelativePath) {
-        return sourceClassesMapping.get(sourceFileRelativePath);
+        Collection<String> classNames = sourceClassesMapping.get(sourceFileRelativePath);
+        if (classNames.isEmpty() && isJavaSource(sourceFileRelativePath)) {
+            // A Java source file that was not part of the previous compilation
+            return Collections.singleton(getJavaClassName(sourceFileRelativePath));
+        }
+        return classNames;
+    }
+
+    public static boolean isJavaSource(String sourceFileRelativePath) {
+        return sourceFileRelativePath.endsWith(".java");
+    }
+
+    public static String getJavaClassName(String javaSourceFileRelativePath) {
+        return javaSourceFileRelativePath.substring(0, javaSourceFileRelativePath.length() - ".java".length()).replace('/', '.');
     }
 
     boolean isEmpty() {
@@ -45,6 +65,13 @@ boolean isEmpty() {
     }
 
     Optional<String> getRelativeSourcePath(String fqcn) {
-        return Optional.ofNullable(classSourceMapping.get(fqcn));
+        String relativeSourcePath = classSourceMapping.get(fqcn);
+        if (relativeSourcePath == null) {
+            int nestedClassSeparator = fqcn.indexOf('$');
+            if (nestedClassSeparator > 0) {
+                relativeSourcePath = classSourceMapping.get(fqcn.substring(0, nestedClassSeparator));
+            }
+        }
+        return Optional.ofNullable(relativeSourcePath);
     }
 }
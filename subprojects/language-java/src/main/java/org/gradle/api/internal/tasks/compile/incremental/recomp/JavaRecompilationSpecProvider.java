@@ -61,7 +61,7 @@ public boolean isIncremental() {
     @Override
     public RecompilationSpec provideRecompilationSpec(CurrentCompilation current, PreviousCompilation previous) {
         RecompilationSpec spec = new RecompilationSpec();
-        processClasspathChanges(current, previous, spec);
+        processClasspathChanges(current, previous, spec, true);
         processOtherChanges(current, previous, spec);
         spec.getClassesToProcess().addAll(previous.getTypesToReprocess());
         return spec;
@@ -44,6 +44,10 @@ public DependentsSet getDependents(Set<String> allClasses, IntSet constants) {
         return getClassAnalysis().getRelevantDependents(allClasses, constants);
     }
 
+    public DependentsSet getDependents(Set<String> allClasses, IntSet constants, IntSet changedMembers) {
+        return getClassAnalysis().getRelevantDependents(allClasses, constants, changedMembers);
+    }
+
     private ClassSetAnalysis getClassAnalysis() {
         if (classAnalysis == null) {
             classAnalysis = previousCompilationOutputAnalyzer.getAnalysis(data.getDestinationDir()).withAnnotationProcessingData(data.getAnnotationProcessingData());
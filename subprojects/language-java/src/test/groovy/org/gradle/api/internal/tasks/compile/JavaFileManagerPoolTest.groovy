@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import javax.tools.StandardLocation
+import java.nio.charset.StandardCharsets
+
+class JavaFileManagerPoolTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def compiler = Mock(JavaCompiler)
+    def pool = new JavaFileManagerPool(2)
+    def jar = temporaryFolder.createFile("lib.jar")
+    def classesDir = temporaryFolder.createDir("classes")
+
+    def "reuses a released file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        def first = pool.acquire(compiler, null, [], [jar, classesDir])
+        first.close()
+        def second = pool.acquire(compiler, null, [], [jar, classesDir])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.flush()
+        0 * fileManager.close()
+        second.fileManager.is(fileManager)
+    }
+
+    def "does not share a file manager that is in use"() {
+        when:
+        def first = pool.acquire(compiler, null, [], [jar])
+        def second = pool.acquire(compiler, null, [], [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >> { Mock(StandardJavaFileManager) }
+        !first.fileManager.is(second.fileManager)
+    }
+
+    def "does not reuse a file manager for a different encoding"() {
+        when:
+        pool.acquire(compiler, null, [], [jar]).close()
+        pool.acquire(compiler, StandardCharsets.UTF_8, [], [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+        1 * compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8) >> Mock(StandardJavaFileManager)
+    }
+
+    def "discards a file manager when a jar it has seen changes"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def other = Mock(StandardJavaFileManager)
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager, other]
+        pool.acquire(compiler, null, [], [jar]).close()
+
+        when:
+        jar << "changed"
+        def pooled = pool.acquire(compiler, null, [], [])
+
+        then:
+        1 * fileManager.close()
+        pooled.fileManager.is(other)
+    }
+
+    def "keeps a limited number of idle file managers"() {
+        def fileManagers = [Mock(StandardJavaFileManager), Mock(StandardJavaFileManager), Mock(StandardJavaFileManager)]
+        compiler.getStandardFileManager(null, null, null) >>> fileManagers
+
+        when:
+        def pooled = (1..3).collect { pool.acquire(compiler, null, [], [jar]) }
+        pooled.each { it.close() }
+
+        then:
+        0 * fileManagers[0].close()
+        0 * fileManagers[1].close()
+        1 * fileManagers[2].close()
+    }
+
+    def "resets the locations set by a compilation before reusing a file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+
+        when:
+        pool.acquire(compiler, null, ["-d", "out", "-s", "generated", "-h", "headers"], [jar]).close()
+
+        then:
+        1 * fileManager.setLocation(StandardLocation.CLASS_OUTPUT, null)
+        1 * fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, null)
+        1 * fileManager.setLocation(StandardLocation.NATIVE_HEADER_OUTPUT, null)
+        1 * fileManager.setLocation(StandardLocation.CLASS_PATH, null)
+        1 * fileManager.setLocation(StandardLocation.SOURCE_PATH, null)
+        1 * fileManager.setLocation(StandardLocation.ANNOTATION_PROCESSOR_PATH, null)
+        0 * fileManager.setLocation(StandardLocation.PLATFORM_CLASS_PATH, _)
+        0 * fileManager.close()
+    }
+
+    def "discards a file manager whose locations cannot be reset"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, null) >> { throw new IllegalArgumentException() }
+
+        when:
+        pool.acquire(compiler, null, [], [jar]).close()
+
+        then:
+        1 * fileManager.close()
+    }
+
+    @Unroll
+    def "does not reuse a file manager that was used with #option"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        pool.acquire(compiler, null, [option, value], [jar]).close()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.close()
+
+        where:
+        option                    | value
+        "-bootclasspath"          | "rt.jar"
+        "--system"                | "jdk"
+        "--patch-module"          | "mod=patch"
+        "--module-source-path"    | "src"
+        "--processor-module-path" | "processors"
+    }
+
+    def "does not reuse a file manager for a different release"() {
+        when:
+        pool.acquire(compiler, null, ["--release", "8"], [jar]).close()
+        pool.acquire(compiler, null, ["--release", "11"], [jar])
+        pool.acquire(compiler, null, ["--release=8"], [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >> { Mock(StandardJavaFileManager) }
+    }
+
+    @Unroll
+    def "discards a file manager when a jar of the #option it has seen changes"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def other = Mock(StandardJavaFileManager)
+        def otherJar = temporaryFolder.createFile("other.jar")
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager, other]
+        pool.acquire(compiler, null, [option, [otherJar, jar].join(File.pathSeparator)], []).close()
+
+        when:
+        jar << "changed"
+        def pooled = pool.acquire(compiler, null, [], [])
+
+        then:
+        1 * fileManager.close()
+        pooled.fileManager.is(other)
+
+        where:
+        option << ["-processorpath", "-classpath", "--module-path"]
+    }
+}
@@ -25,6 +25,7 @@ import org.gradle.api.internal.tasks.compile.incremental.analyzer.annotations.Us
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.annotations.UsesRuntimeAnnotation
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.annotations.UsesSourceAnnotation
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis
+import org.gradle.api.internal.tasks.compile.incremental.deps.MemberSignatures
 import org.gradle.api.internal.tasks.compile.incremental.test.HasInnerClass
 import org.gradle.api.internal.tasks.compile.incremental.test.HasNonPrivateConstants
 import org.gradle.api.internal.tasks.compile.incremental.test.HasPrivateConstants
@@ -104,6 +105,19 @@ class DefaultClassDependenciesAnalyzerTest extends Specification {
         analyze(SomeSourceAnnotation).dependencyToAll
     }
 
+    def "knows the members a class uses or declares"() {
+        expect:
+        def usedMembers = analyze(SomeOtherClass).usedMembers
+        ["foo", "out", "println", "<init>"].each {
+            assert usedMembers.contains(MemberSignatures.memberKey(it))
+        }
+        !usedMembers.contains(MemberSignatures.memberKey("field"))
+
+        and:
+        analyze(SomeClass).usedMembers.contains(MemberSignatures.memberKey("field"))
+        !analyze(SomeClass).usedMembers.contains(MemberSignatures.memberKey("stuff"))
+    }
+
     InputStream classStream(Class aClass) {
         aClass.classLoader.getResourceAsStream(aClass.getName().replace(".", "/") + ".class")
     }
@@ -17,9 +17,12 @@
 package org.gradle.api.internal.tasks.compile.incremental.classpath
 
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.deps.MemberSignatures
 import org.gradle.internal.hash.HashCode
 import spock.lang.Specification
 
+import static org.gradle.api.internal.tasks.compile.incremental.deps.MemberSignatures.memberKey
+
 class ClasspathEntrySnapshotTest extends Specification {
 
     def analysis = Stub(ClassSetAnalysisData)
@@ -68,4 +71,22 @@ class ClasspathEntrySnapshotTest extends Specification {
         s2.getChangedClassesSince(s1).added == [] as Set
         s1.getChangedClassesSince(s3).added == ["A", "B", "C"] as Set
     }
+
+    def "knows changed members of modified classes"() {
+        def previousAnalysis = Mock(ClassSetAnalysisData) {
+            getMemberSignatures("A") >> MemberSignatures.builder().add("", 1).add("foo", 1).build()
+            getMemberSignatures("B") >> MemberSignatures.builder().add("", 2).add("bar", 1).build()
+        }
+        def currentAnalysis = Mock(ClassSetAnalysisData) {
+            getMemberSignatures("A") >> MemberSignatures.builder().add("", 1).add("foo", 2).build()
+            getMemberSignatures("B") >> MemberSignatures.builder().add("", 3).add("bar", 1).build()
+        }
+        def previous = snapshot(["A": HashCode.fromInt(0xaa), "B": HashCode.fromInt(0xbb), "C": HashCode.fromInt(0xcc)], previousAnalysis)
+        def current = snapshot(["A": HashCode.fromInt(0xab), "B": HashCode.fromInt(0xbc)], currentAnalysis)
+
+        expect:
+        current.getChangedMembersSince(previous, ["A"] as Set) == [memberKey("foo")] as Set
+        current.getChangedMembersSince(previous, ["A", "B"] as Set) == null
+        current.getChangedMembersSince(previous, ["C"] as Set) == null
+    }
 }
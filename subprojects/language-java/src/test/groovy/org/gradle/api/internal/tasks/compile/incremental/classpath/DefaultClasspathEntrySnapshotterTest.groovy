@@ -17,6 +17,8 @@
 package org.gradle.api.internal.tasks.compile.incremental.classpath
 
 import org.gradle.api.file.ConfigurableFileTree
+import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.file.FileOperations
@@ -25,6 +27,7 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.StreamHasher
+import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
@@ -40,7 +43,8 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
     def streamHasher = Mock(StreamHasher)
     def classDependenciesAnalyzer = Mock(ClassDependenciesAnalyzer)
     def fileOperations = Mock(FileOperations)
-    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations)
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, buildOperationExecutor)
 
     def "creates snapshot for an empty entry"() {
         expect:
@@ -85,4 +89,75 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.classAnalysis
     }
+
+    def "analyzes the classes of a large entry in batches and keeps their order"() {
+        def entry = temp.createDir("foo")
+        def classFiles = (0..<1200).collect { temp.createFile("foo/C${it}.class") }
+        def fileTree = Mock(ConfigurableFileTree)
+        fileOperations.fileTree(entry) >> fileTree
+        fileTree.visit(_) >> { FileVisitor visitor ->
+            classFiles.each { visitor.visitFile(new DefaultFileVisitDetails(it, null, null)) }
+        }
+        fileHasher.hash(_, _, _) >> { File file, long length, long lastModified -> HashCode.fromInt(file.name.hashCode()) }
+        classDependenciesAnalyzer.getClassAnalysis(_, _) >> { HashCode hash, details ->
+            Stub(ClassAnalysis) {
+                getClassName() >> details.name - ".class"
+            }
+        }
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        buildOperationExecutor.operations*.displayName == [
+            "Analyze classes 0-499 of ${entry}",
+            "Analyze classes 500-999 of ${entry}",
+            "Analyze classes 1000-1199 of ${entry}"
+        ]*.toString()
+        snapshot.hashes.size() == 1200
+        snapshot.hashes["C1199"] == HashCode.fromInt("C1199.class".hashCode())
+    }
+
+    def "analyzes the classes of a small jar while visiting it"() {
+        def entry = temp.createFile("foo.jar")
+        def hash = HashCode.fromInt(1)
+        def classDetails = Stub(FileVisitDetails) {
+            getName() >> "Foo.class"
+            open() >> new ByteArrayInputStream(new byte[0])
+        }
+        def fileTree = Mock(FileTree)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        1 * fileOperations.zipTree(entry) >> fileTree
+        1 * fileTree.visit(_) >> { FileVisitor visitor -> visitor.visitFile(classDetails) }
+        1 * streamHasher.hash(_) >> hash
+        1 * classDependenciesAnalyzer.getClassAnalysis(hash, classDetails) >> Stub(ClassAnalysis) {
+            getClassName() >> "Foo"
+        }
+        0 * _._
+
+        and:
+        buildOperationExecutor.operations.empty
+        snapshot.hashes == ["Foo": hash]
+    }
+
+    def "a class that cannot be analyzed causes a full rebuild"() {
+        def entry = temp.createDir("foo")
+        def f1 = temp.createFile("foo/Foo.class")
+        def fileTree = Mock(ConfigurableFileTree)
+        fileOperations.fileTree(entry) >> fileTree
+        fileTree.visit(_) >> { FileVisitor visitor -> visitor.visitFile(new DefaultFileVisitDetails(f1, null, null)) }
+        fileHasher.hash(_, _, _) >> HashCode.fromInt(1)
+        classDependenciesAnalyzer.getClassAnalysis(_, _) >> { throw new RuntimeException("broken") }
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        snapshot.hashes.isEmpty()
+        snapshot.data.classAnalysis.getDependents("Foo").description == "Foo.class could not be analyzed for incremental compilation. See the debug log for more details"
+    }
 }
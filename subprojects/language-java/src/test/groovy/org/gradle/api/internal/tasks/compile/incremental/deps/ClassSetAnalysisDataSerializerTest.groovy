@@ -33,28 +33,61 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
     @Subject serializer = new ClassSetAnalysisData.Serializer(new StringInterner())
 
     def "serializes"() {
-        def data = new ClassSetAnalysisData(["A", "B", "C", "D"] as Set,
-            ["A": dependentClasses("B", "C"), "B": dependentClasses("C"), "C": dependentClasses(), "D": dependencyToAll(),],
-            [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET]
-            ,"Because"
+        def data = new ClassSetAnalysisData(["A", "B", "C", "D", "org.a.Foo", "org.a.package-info", "org.b.Bar"] as Set,
+            ["A": dependentClasses("B", "C"), "B": dependentClasses("C"), "C": dependentClasses(), "D": dependencyToAll("Because"), "org.a.Foo": dependentClasses("org.b.Bar", "A")],
+            [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET],
+            null
         )
-        def os = new ByteArrayOutputStream()
-        def e = new OutputStreamBackedEncoder(os)
 
         when:
-        serializer.write(e, data)
-        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+        ClassSetAnalysisData read = serializeAndRead(data)
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
-
-        ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+        ["A", "B", "C", "org.a.Foo", "org.b.Bar", "Unknown"].each {
+            assert read.getDependents(it).dependentClasses == data.getDependents(it).dependentClasses
         }
+        read.getDependents("A").dependentClasses == ["B", "C"] as Set
+        read.getDependents("org.a.Foo").dependentClasses == ["A", "org.b.Bar"] as Set
+        read.getDependents("D").dependencyToAll
+        read.getDependents("D").description == "Because"
+        read.getDependents("org.a.package-info").dependentClasses == ["org.a.Foo", "org.a.package-info"] as Set
+        read.getConstants("C") == [1, 2] as Set
+        read.getConstants("D") == [] as Set
+        read.getConstants("A") == [] as Set
+    }
+
+    def "serializes member signatures and used members"() {
+        def signatures = MemberSignatures.builder().add("", 1).add("foo", 2).build()
+        def data = new ClassSetAnalysisData(["A", "B"] as Set, ["A": dependentClasses("B")], [:],
+            [A: signatures, B: MemberSignatures.EMPTY], [B: new IntOpenHashSet([MemberSignatures.memberKey("foo")]) as IntSet], null)
+
+        when:
+        ClassSetAnalysisData read = serializeAndRead(data)
+
+        then:
+        read.getMemberSignatures("A") == signatures
+        read.getMemberSignatures("B") == MemberSignatures.EMPTY
+        read.getMemberSignatures("C") == null
+        read.usesAnyMember("B", new IntOpenHashSet([MemberSignatures.memberKey("foo")]))
+        !read.usesAnyMember("A", new IntOpenHashSet([MemberSignatures.memberKey("foo")]))
+    }
+
+    def "serializes full rebuild cause"() {
+        def data = new ClassSetAnalysisData(["A", "B"] as Set, ["A": dependentClasses("B")], [:], "Because")
+
+        when:
+        ClassSetAnalysisData read = serializeAndRead(data)
+
+        then:
+        read.getDependents("A").dependencyToAll
+        read.getDependents("A").description == "Because"
+    }
 
-        read.dependents["D"].dependencyToAll
-        read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
-        read.fullRebuildCause == "Because"
+    private ClassSetAnalysisData serializeAndRead(ClassSetAnalysisData data) {
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+        serializer.write(e, data)
+        e.flush()
+        return serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
     }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps
 
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet
 import it.unimi.dsi.fastutil.ints.IntSet
 import it.unimi.dsi.fastutil.ints.IntSets
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingData
@@ -126,6 +127,20 @@ class ClassSetAnalysisTest extends Specification {
         deps.dependentClasses == ["c", "d"] as Set
     }
 
+    def "recurses into the classes of a package when its package-info is a dependent"() {
+        def a = analysis([
+            "org.Annotation": dependentClasses("org.a.package-info"),
+            "org.a.package-info": dependentClasses(),
+            "org.a.Foo": dependentClasses("org.Bar"),
+            "org.a.b.Baz": dependentClasses(),
+            "org.Bar": dependentClasses(),
+        ])
+        def deps = a.getRelevantDependents("org.Annotation", IntSets.EMPTY_SET)
+
+        expect:
+        deps.dependentClasses == ["org.a.package-info", "org.a.Foo", "org.Bar"] as Set
+    }
+
     def "handles cycles with inner classes"() {
         def a = analysis([
             "a": dependentClasses('a$b'),
@@ -204,6 +219,42 @@ class ClassSetAnalysisTest extends Specification {
         a.isDependencyToAll("DoesNotMatter")
     }
 
+    def "only includes dependents that use a changed member, together with their own dependents"() {
+        def data = new ClassSetAnalysisData(["A", "B", "C", "D", "E", "F"] as Set,
+            ["A": dependentClasses("B", "C"), "B": dependentClasses("D"), "C": dependentClasses("E"), "E": dependentClasses("F")],
+            [:],
+            [:],
+            ["B": members("foo", "bar"), "C": members("baz"), "D": members("other"), "F": members("qux")],
+            null)
+        def a = new ClassSetAnalysis(data)
+
+        expect:
+        a.getRelevantDependents(["A"], IntSets.EMPTY_SET, members("foo")).dependentClasses == ["B", "D"] as Set
+        a.getRelevantDependents(["A"], IntSets.EMPTY_SET, members("foo", "baz")).dependentClasses == ["B", "C", "D", "E", "F"] as Set
+        a.getRelevantDependents(["A"], IntSets.EMPTY_SET, members("other")).dependentClasses == ["D"] as Set
+        a.getRelevantDependents(["A"], IntSets.EMPTY_SET, members("unused")).dependentClasses.isEmpty()
+        a.getRelevantDependents(["A"], new IntOpenHashSet([1]), members("foo")).dependencyToAll
+    }
+
+    def "includes transitive dependents that use a changed member through an unaffected dependent"() {
+        // S extends A without using foo, T calls foo on an S
+        def data = new ClassSetAnalysisData(["A", "S", "T", "U"] as Set,
+            ["A": dependentClasses("S"), "S": dependentClasses("T"), "T": dependentClasses("U")],
+            [:],
+            [:],
+            ["T": members("foo")],
+            null)
+        def a = new ClassSetAnalysis(data)
+
+        expect:
+        a.getRelevantDependents(["A"], IntSets.EMPTY_SET, members("foo")).dependentClasses == ["T", "U"] as Set
+        a.getRelevantDependents(["A"], IntSets.EMPTY_SET, members("bar")).dependentClasses.isEmpty()
+    }
+
+    private static IntSet members(String... names) {
+        new IntOpenHashSet(names.collect { MemberSignatures.memberKey(it) })
+    }
+
     private static DependentsSet dependentSet(boolean dependencyToAll, Collection<String> classes) {
         dependencyToAll ? DependentsSet.dependencyToAll() : dependentClasses(classes as Set)
     }
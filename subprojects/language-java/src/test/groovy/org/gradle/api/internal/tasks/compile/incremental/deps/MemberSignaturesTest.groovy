@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.deps
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.compile.incremental.deps.MemberSignatures.memberKey
+
+class MemberSignaturesTest extends Specification {
+
+    def changedMembers = new IntOpenHashSet()
+
+    def "has no changed members when the signatures are the same"() {
+        def previous = signatures("", 1, "foo", 2, "bar", 3)
+        def current = signatures("bar", 3, "foo", 2, "", 1)
+
+        expect:
+        current.addChangedMembersSince(previous, changedMembers)
+        changedMembers.isEmpty()
+        current == previous
+    }
+
+    def "knows added, removed and changed members"() {
+        def previous = signatures("", 1, "changed", 2, "removed", 3, "same", 4)
+        def current = signatures("", 1, "changed", 5, "added", 6, "same", 4)
+
+        expect:
+        current.addChangedMembersSince(previous, changedMembers)
+        changedMembers == [memberKey("changed"), memberKey("removed"), memberKey("added")] as Set
+    }
+
+    def "knows an added overload"() {
+        def previous = signatures("", 1, "foo", 3, "foo", 2)
+        def current = signatures("", 1, "foo", 2, "foo", 4, "foo", 3)
+
+        expect:
+        current.addChangedMembersSince(previous, changedMembers)
+        changedMembers == [memberKey("foo")] as Set
+    }
+
+    def "knows a changed member whose signature differs only in the upper half"() {
+        def previous = signatures("", 1, "foo", 2L)
+        def current = signatures("", 1, "foo", 2L | (1L << 40))
+
+        expect:
+        current.addChangedMembersSince(previous, changedMembers)
+        changedMembers == [memberKey("foo")] as Set
+    }
+
+    def "knows changed members whose names share a key"() {
+        assert memberKey("Aa") == memberKey("BB")
+        def previous = signatures("", 1, "Aa", 2, "BB", 3)
+        def current = signatures("", 1, "Aa", 2, "BB", 4)
+
+        expect:
+        current.addChangedMembersSince(previous, changedMembers)
+        changedMembers == [memberKey("BB")] as Set
+    }
+
+    def "knows when the class itself changed"() {
+        def previous = signatures("", 1, "foo", 2)
+        def current = signatures("", 7, "foo", 2)
+
+        expect:
+        !current.addChangedMembersSince(previous, changedMembers)
+    }
+
+    private static MemberSignatures signatures(Object... namesAndSignatures) {
+        def builder = MemberSignatures.builder()
+        for (int i = 0; i < namesAndSignatures.length; i += 2) {
+            builder.add(namesAndSignatures[i] as String, namesAndSignatures[i + 1] as long)
+        }
+        builder.build()
+    }
+}
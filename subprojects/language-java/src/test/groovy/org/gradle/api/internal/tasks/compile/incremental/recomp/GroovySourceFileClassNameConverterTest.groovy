@@ -35,6 +35,7 @@ class GroovySourceFileClassNameConverterTest extends Specification {
         sourceClassesMapping.put('MyClass.groovy', 'org.gradle.MyClass1')
         sourceClassesMapping.put('MyClass.groovy', 'org.gradle.MyClass2')
         sourceClassesMapping.put('YourClass.groovy', 'org.gradle.YourClass')
+        sourceClassesMapping.put('org/gradle/JavaClass.java', 'org.gradle.JavaClass')
 
         converter = new GroovySourceFileClassNameConverter(sourceClassesMapping)
     }
@@ -45,10 +46,12 @@ class GroovySourceFileClassNameConverterTest extends Specification {
         converter.getClassNames(file) == classes
 
         where:
-        file                | classes
-        'MyClass.groovy'    | ['org.gradle.MyClass1', 'org.gradle.MyClass2'] as Set
-        'YourClass.groovy'  | ['org.gradle.YourClass'] as Set
-        'OtherClass.groovy' | [] as Set
+        file                           | classes
+        'MyClass.groovy'               | ['org.gradle.MyClass1', 'org.gradle.MyClass2'] as Set
+        'YourClass.groovy'             | ['org.gradle.YourClass'] as Set
+        'OtherClass.groovy'            | [] as Set
+        'org/gradle/JavaClass.java'    | ['org.gradle.JavaClass'] as Set
+        'org/gradle/NewJavaClass.java' | ['org.gradle.NewJavaClass'] as Set
     }
 
     @Unroll
@@ -56,10 +59,14 @@ class GroovySourceFileClassNameConverterTest extends Specification {
         expect:
         converter.getRelativeSourcePath(fqcn) == file
         where:
-        fqcn                    | file
-        'org.gradle.MyClass1'   | Optional.of('MyClass.groovy')
-        'org.gradle.MyClass2'   | Optional.of('MyClass.groovy')
-        'org.gradle.YourClass'  | Optional.of('YourClass.groovy')
-        'org.gradle.OtherClass' | Optional.empty()
+        fqcn                            | file
+        'org.gradle.MyClass1'           | Optional.of('MyClass.groovy')
+        'org.gradle.MyClass2'           | Optional.of('MyClass.groovy')
+        'org.gradle.YourClass'          | Optional.of('YourClass.groovy')
+        'org.gradle.OtherClass'         | Optional.empty()
+        'org.gradle.JavaClass'          | Optional.of('org/gradle/JavaClass.java')
+        'org.gradle.JavaClass$Inner'    | Optional.of('org/gradle/JavaClass.java')
+        'org.gradle.MyClass1$_closure1' | Optional.of('MyClass.groovy')
+        'org.gradle.OtherClass$Inner'   | Optional.empty()
     }
 }
@@ -30,6 +30,7 @@ dependencies {
     implementation(project(":coreApi"))
     implementation(project(":modelCore"))
     implementation(project(":core"))
+    implementation(project(":execution"))
     implementation(project(":files"))
     implementation(project(":fileCollections"))
     implementation(project(":persistentCache"))
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Parses a C++ header that is mostly declarations, with the occasional directive, comment and line continuation.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@State(Scope.Benchmark)
+public class CSourceParserBenchmark {
+    @Param({"100", "5000"})
+    int lines;
+
+    private final CSourceParser parser = new RegexBackedCSourceParser();
+    private File header;
+
+    @Setup(Level.Trial)
+    public void createHeader() throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append("/*\n * Licensed under the Apache License, Version 2.0.\n */\n");
+        content.append("#ifndef HEADER_H\n#define HEADER_H\n");
+        for (int i = 0; i < lines; i++) {
+            switch (i % 20) {
+                case 0:
+                    content.append("#include \"header").append(i).append(".h\"\n");
+                    break;
+                case 1:
+                    content.append("#include <system").append(i).append(".h>\n");
+                    break;
+                case 2:
+                    content.append("#define MACRO").append(i).append("(a, b) \\\n    FUNCTION(a, b)\n");
+                    break;
+                case 3:
+                    content.append("// Returns the value of field").append(i).append(", or \"none\" when unset\n");
+                    break;
+                default:
+                    content.append("    virtual int method").append(i).append("(const std::string& value, int count) const; /* docs */\n");
+            }
+        }
+        content.append("#endif\n");
+        header = File.createTempFile("header", ".h");
+        Files.write(header.toPath(), content.toString().getBytes(Charset.defaultCharset()));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteHeader() {
+        header.delete();
+    }
+
+    @Benchmark
+    public IncludeDirectives parse() {
+        return parser.parseSource(header);
+    }
+}
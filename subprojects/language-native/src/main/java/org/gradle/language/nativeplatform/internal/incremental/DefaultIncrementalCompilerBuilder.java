@@ -50,6 +50,7 @@ public class DefaultIncrementalCompilerBuilder implements IncrementalCompilerBui
     private final Deleter deleter;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final IncludeFileLookupCache includeFileLookupCache;
     private final TaskFileVarFactory fileVarFactory;
 
     public DefaultIncrementalCompilerBuilder(
@@ -59,6 +60,7 @@ public DefaultIncrementalCompilerBuilder(
         Deleter deleter,
         DirectoryFileTreeFactory directoryFileTreeFactory,
         FileSystemSnapshotter fileSystemSnapshotter,
+        IncludeFileLookupCache includeFileLookupCache,
         TaskFileVarFactory fileVarFactory
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
@@ -66,6 +68,7 @@ public DefaultIncrementalCompilerBuilder(
         this.deleter = deleter;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.fileSystemSnapshotter = fileSystemSnapshotter;
+        this.includeFileLookupCache = includeFileLookupCache;
         this.fileVarFactory = fileVarFactory;
         this.sourceParser = sourceParser;
     }
@@ -84,6 +87,7 @@ public IncrementalCompiler newCompiler(TaskInternal task, FileCollection sourceF
             deleter,
             directoryFileTreeFactory,
             fileSystemSnapshotter,
+            includeFileLookupCache,
             fileVarFactory
         );
     }
@@ -95,6 +99,7 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
         private final Deleter deleter;
         private final DirectoryFileTreeFactory directoryFileTreeFactory;
         private final FileSystemSnapshotter fileSystemSnapshotter;
+        private final IncludeFileLookupCache includeFileLookupCache;
 
         private final Map<String, String> macros;
         private final Provider<Boolean> importAware;
@@ -119,6 +124,7 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
             Deleter deleter,
             DirectoryFileTreeFactory directoryFileTreeFactory,
             FileSystemSnapshotter fileSystemSnapshotter,
+            IncludeFileLookupCache includeFileLookupCache,
             TaskFileVarFactory fileVarFactory
         ) {
             this.taskOutputs = task.getOutputs();
@@ -134,6 +140,7 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
             this.deleter = deleter;
             this.directoryFileTreeFactory = directoryFileTreeFactory;
             this.fileSystemSnapshotter = fileSystemSnapshotter;
+            this.includeFileLookupCache = includeFileLookupCache;
             this.sourceParser = sourceParser;
         }
 
@@ -150,7 +157,7 @@ public Set<File> getFiles() {
             List<File> includeRoots = ImmutableList.copyOf(includeDirs);
             compileStateCache = compilationStateCacheFactory.create(taskPath);
             DefaultSourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(sourceParser, importAware.get());
-            DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(includeRoots, fileSystemSnapshotter);
+            DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(includeRoots, includeFileLookupCache);
             IncludeDirectives includeDirectives = directivesForMacros(macros);
             IncrementalCompileFilesFactory incrementalCompileFilesFactory = new IncrementalCompileFilesFactory(includeDirectives, sourceIncludesParser, dependencyParser, fileSystemSnapshotter);
             IncrementalCompileProcessor incrementalCompileProcessor = new IncrementalCompileProcessor(compileStateCache, incrementalCompileFilesFactory, buildOperationExecutor);
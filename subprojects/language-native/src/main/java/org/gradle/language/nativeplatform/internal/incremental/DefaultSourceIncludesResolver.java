@@ -33,26 +33,25 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
     private static final MissingIncludeFile MISSING_INCLUDE_FILE = new MissingIncludeFile();
-    private final FileSystemSnapshotter fileSystemSnapshotter;
-    private final Map<File, DirectoryContents> includeRoots = new HashMap<File, DirectoryContents>();
+    private final IncludeFileLookupCache lookupCache;
     private final FixedIncludePath includePath;
 
     public DefaultSourceIncludesResolver(List<File> includePaths, FileSystemSnapshotter fileSystemSnapshotter) {
-        this.fileSystemSnapshotter = fileSystemSnapshotter;
-        List<DirectoryContents> includeDirs = new ArrayList<DirectoryContents>(includePaths.size());
-        for (File includeDir : includePaths) {
-            includeDirs.add(toDir(includeDir));
-        }
-        this.includePath = new FixedIncludePath(includeDirs);
+        this(includePaths, new IncludeFileLookupCache(fileSystemSnapshotter));
+    }
+
+    public DefaultSourceIncludesResolver(List<File> includePaths, IncludeFileLookupCache lookupCache) {
+        this.lookupCache = lookupCache;
+        this.includePath = lookupCache.getIncludePath(includePaths);
     }
 
     @Override
@@ -257,22 +256,13 @@ public IncludeFile resolveInclude(@Nullable File sourceFile, String includePath)
         return path.searchForDependency(includePath, sourceFile != null);
     }
 
-    private DirectoryContents toDir(File includeDir) {
-        DirectoryContents directoryContents = includeRoots.get(includeDir);
-        if (directoryContents == null) {
-            directoryContents = new DirectoryContents(includeDir);
-            includeRoots.put(includeDir, directoryContents);
-        }
-        return directoryContents;
-    }
-
     private IncludePath prependSourceDir(File sourceFile, FixedIncludePath includePaths) {
         File sourceDir = sourceFile.getParentFile();
         if (includePaths.startsWith(sourceDir)) {
             // Source dir already at the start of the path, just use the include path
             return includePaths;
         }
-        return new PrefixedIncludePath(toDir(sourceDir), includePaths);
+        return new PrefixedIncludePath(lookupCache.getDirectory(sourceDir), includePaths);
     }
 
     private static abstract class IncludePath {
@@ -300,9 +290,9 @@ IncludeFile searchForDependency(String includePath, boolean quotedPath) {
         }
     }
 
-    private static class FixedIncludePath extends IncludePath {
+    static class FixedIncludePath extends IncludePath {
         private final List<DirectoryContents> directories;
-        private final Map<String, CachedIncludeFile> cachedLookups = new HashMap<String, CachedIncludeFile>();
+        private final Map<String, CachedIncludeFile> cachedLookups = new ConcurrentHashMap<String, CachedIncludeFile>();
 
         FixedIncludePath(List<DirectoryContents> directories) {
             this.directories = directories;
@@ -335,12 +325,26 @@ public boolean startsWith(File sourceDir) {
         }
     }
 
-    private class DirectoryContents {
+    static class DirectoryContents {
         private final File searchDir;
-        private final Map<String, CachedIncludeFile> contents = new HashMap<String, CachedIncludeFile>();
+        private final FileSystemSnapshotter fileSystemSnapshotter;
+        private final Map<String, CachedIncludeFile> contents = new ConcurrentHashMap<String, CachedIncludeFile>();
+        private volatile boolean lookupsOutsideSearchDir;
 
-        DirectoryContents(File searchDir) {
+        DirectoryContents(File searchDir, FileSystemSnapshotter fileSystemSnapshotter) {
             this.searchDir = searchDir;
+            this.fileSystemSnapshotter = fileSystemSnapshotter;
+        }
+
+        File getSearchDir() {
+            return searchDir;
+        }
+
+        /**
+         * Has this directory been searched for an include path that refers to a parent directory, such as {@code ../common.h}?
+         */
+        boolean hasLookupsOutsideSearchDir() {
+            return lookupsOutsideSearchDir;
         }
 
         CachedIncludeFile get(String includePath) {
@@ -349,6 +353,9 @@ CachedIncludeFile get(String includePath) {
                 return includeFile;
             }
 
+            if (includePath.contains("..")) {
+                lookupsOutsideSearchDir = true;
+            }
             File candidate = new File(searchDir, includePath);
             HashCode contentHash = fileSystemSnapshotter.getRegularFileContentHash(candidate);
             includeFile = contentHash != null ? new SystemIncludeFile(candidate, includePath, contentHash) : MISSING_INCLUDE_FILE;
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.execution.OutputChangeListener;
+import org.gradle.internal.snapshot.FileSystemSnapshotter;
+import org.gradle.language.nativeplatform.internal.incremental.DefaultSourceIncludesResolver.DirectoryContents;
+import org.gradle.language.nativeplatform.internal.incremental.DefaultSourceIncludesResolver.FixedIncludePath;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the lookups of include files in include directories, so that the native compile tasks of a build that share include directories,
+ * such as the system and third-party include directories, search each of them only once for a given include path.
+ *
+ * <p>The lookups in a directory are discarded before the outputs of a task in or above the directory change, as the files found
+ * there may change as well. Parsing the include files is cached separately, by file content.</p>
+ */
+public class IncludeFileLookupCache implements OutputChangeListener {
+    private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final Map<File, DirectoryContents> directories = new ConcurrentHashMap<File, DirectoryContents>();
+    private final Map<List<File>, FixedIncludePath> includePaths = new ConcurrentHashMap<List<File>, FixedIncludePath>();
+
+    public IncludeFileLookupCache(FileSystemSnapshotter fileSystemSnapshotter, ListenerManager listenerManager) {
+        this(fileSystemSnapshotter);
+        listenerManager.addListener(this);
+    }
+
+    IncludeFileLookupCache(FileSystemSnapshotter fileSystemSnapshotter) {
+        this.fileSystemSnapshotter = fileSystemSnapshotter;
+    }
+
+    DirectoryContents getDirectory(File searchDir) {
+        DirectoryContents directory = directories.get(searchDir);
+        if (directory == null) {
+            synchronized (this) {
+                directory = getOrCreateDirectory(searchDir);
+            }
+        }
+        return directory;
+    }
+
+    FixedIncludePath getIncludePath(List<File> includeDirs) {
+        FixedIncludePath includePath = includePaths.get(includeDirs);
+        if (includePath == null) {
+            synchronized (this) {
+                // Create the include path together with its directories, so that it does not outlive a directory that is discarded meanwhile
+                includePath = includePaths.get(includeDirs);
+                if (includePath == null) {
+                    List<DirectoryContents> searchDirs = new ArrayList<DirectoryContents>(includeDirs.size());
+                    for (File includeDir : includeDirs) {
+                        searchDirs.add(getOrCreateDirectory(includeDir));
+                    }
+                    includePath = new FixedIncludePath(searchDirs);
+                    includePaths.put(ImmutableList.copyOf(includeDirs), includePath);
+                }
+            }
+        }
+        return includePath;
+    }
+
+    private DirectoryContents getOrCreateDirectory(File searchDir) {
+        DirectoryContents directory = directories.get(searchDir);
+        if (directory == null) {
+            directory = new DirectoryContents(searchDir, fileSystemSnapshotter);
+            directories.put(searchDir, directory);
+        }
+        return directory;
+    }
+
+    @Override
+    public synchronized void beforeOutputChange() {
+        directories.clear();
+        includePaths.clear();
+    }
+
+    @Override
+    public synchronized void beforeOutputChange(Iterable<String> affectedOutputPaths) {
+        boolean discarded = false;
+        Iterator<DirectoryContents> iterator = directories.values().iterator();
+        while (iterator.hasNext()) {
+            DirectoryContents directory = iterator.next();
+            // Lookups of parent directories could have found a file anywhere, so discard them as well
+            if (directory.hasLookupsOutsideSearchDir() || isAffected(directory.getSearchDir().getAbsolutePath(), affectedOutputPaths)) {
+                iterator.remove();
+                discarded = true;
+            }
+        }
+        if (discarded) {
+            includePaths.clear();
+        }
+    }
+
+    private static boolean isAffected(String searchDir, Iterable<String> affectedOutputPaths) {
+        for (String outputPath : affectedOutputPaths) {
+            if (isSameOrAncestor(outputPath, searchDir) || isSameOrAncestor(searchDir, outputPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSameOrAncestor(String path, String other) {
+        return other.startsWith(path) && (other.length() == path.length() || other.charAt(path.length()) == File.separatorChar);
+    }
+}
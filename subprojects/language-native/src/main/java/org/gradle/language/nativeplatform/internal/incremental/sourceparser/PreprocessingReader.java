@@ -23,7 +23,15 @@
  * This code is largely adopted from org.apache.tools.ant.filters.StripJavaComments.
  */
 public class PreprocessingReader {
+    private static final int BUFFER_SIZE = 8192;
+
     private final Reader reader;
+    /**
+     * The characters read from the underlying reader and not yet consumed. Reading in chunks avoids a call to the (possibly synchronized) reader per character.
+     */
+    private final char[] chars = new char[BUFFER_SIZE];
+    private int charsPos;
+    private int charsEnd;
     /**
      * The read-ahead characters, used for reading ahead up to 2 characters and pushing back into stream.
      * A value of -1 indicates that no character is in the buffer.
@@ -71,6 +79,37 @@ public boolean readNextLine(Appendable buffer) throws IOException {
         return read;
     }
 
+    /**
+     * Collects the next preprocessor directive line from the filtered stream into the given buffer, starting with the '#' character. Does not include the line separators.
+     * Lines that are not directives are skipped without being collected.
+     *
+     * @return true if a directive line is available, false when end of stream reached.
+     */
+    public boolean readNextDirectiveLine(Appendable buffer) throws IOException {
+        int ch;
+        while ((ch = read()) >= 0) {
+            if (ch == '#') {
+                buffer.append('#');
+                readNextLine(buffer);
+                return true;
+            }
+            if (!Character.isWhitespace(ch) && ch != 0) {
+                // Not a directive, skip the remainder of the line
+                skipLine();
+            }
+        }
+        return false;
+    }
+
+    private void skipLine() throws IOException {
+        int ch;
+        while ((ch = read()) >= 0) {
+            if (ch == '\n' || ch == '\r') {
+                return;
+            }
+        }
+    }
+
     /**
      * Returns the next character in the filtered stream:
      * <ul>
@@ -153,7 +192,15 @@ private int next() throws IOException {
             return ch;
         }
 
-        return reader.read();
+        if (charsPos == charsEnd) {
+            int count = reader.read(chars);
+            if (count <= 0) {
+                return -1;
+            }
+            charsPos = 0;
+            charsEnd = count;
+        }
+        return chars[charsPos++];
     }
 
     private void pushBack(int ch) {
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.internal.event.ListenerManager
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.FileSystemSnapshotter
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IncludeFileLookupCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def fileSystemSnapshotter = Mock(FileSystemSnapshotter)
+    def listenerManager = Mock(ListenerManager)
+    def testDirectory = temporaryFolder.testDirectory
+    def systemIncludeDir = testDirectory.createDir("system")
+    def libraryIncludeDir = testDirectory.createDir("library")
+    def header = systemIncludeDir.file("test.h")
+    def hash = HashCode.fromInt(123)
+    def cache = new IncludeFileLookupCache(fileSystemSnapshotter, listenerManager)
+
+    def "registers for output changes"() {
+        when:
+        def cache = new IncludeFileLookupCache(fileSystemSnapshotter, listenerManager)
+
+        then:
+        1 * listenerManager.addListener({ it.is(cache) })
+    }
+
+    def "shares lookups between resolvers with the same include path"() {
+        when:
+        def first = resolver([libraryIncludeDir, systemIncludeDir]).resolveInclude(null, "test.h")
+        def second = resolver([libraryIncludeDir, systemIncludeDir]).resolveInclude(null, "test.h")
+
+        then:
+        first.file == header
+        second == first
+        1 * fileSystemSnapshotter.getRegularFileContentHash(libraryIncludeDir.file("test.h")) >> null
+        1 * fileSystemSnapshotter.getRegularFileContentHash(header) >> hash
+        0 * fileSystemSnapshotter._
+    }
+
+    def "shares directory lookups between different include paths"() {
+        when:
+        resolver([systemIncludeDir]).resolveInclude(null, "test.h")
+        def result = resolver([libraryIncludeDir, systemIncludeDir]).resolveInclude(null, "test.h")
+
+        then:
+        result.file == header
+        1 * fileSystemSnapshotter.getRegularFileContentHash(header) >> hash
+        1 * fileSystemSnapshotter.getRegularFileContentHash(libraryIncludeDir.file("test.h")) >> null
+        0 * fileSystemSnapshotter._
+    }
+
+    def "discards lookups when outputs in or above an include directory change"() {
+        given:
+        fileSystemSnapshotter.getRegularFileContentHash(header) >> hash
+        resolver([systemIncludeDir]).resolveInclude(null, "test.h")
+
+        when:
+        cache.beforeOutputChange([outputPath(output)])
+        resolver([systemIncludeDir]).resolveInclude(null, "test.h")
+
+        then:
+        1 * fileSystemSnapshotter.getRegularFileContentHash(header) >> hash
+
+        where:
+        output << ["system/test.h", "system", ""]
+    }
+
+    def "keeps lookups when outputs elsewhere change"() {
+        given:
+        fileSystemSnapshotter.getRegularFileContentHash(header) >> hash
+        resolver([systemIncludeDir]).resolveInclude(null, "test.h")
+
+        when:
+        cache.beforeOutputChange([outputPath("library/test.h"), outputPath("system-other")])
+        resolver([systemIncludeDir]).resolveInclude(null, "test.h")
+
+        then:
+        0 * fileSystemSnapshotter._
+    }
+
+    def "discards lookups of parent directories when any output changes"() {
+        given:
+        fileSystemSnapshotter.getRegularFileContentHash(_) >> hash
+        resolver([systemIncludeDir]).resolveInclude(null, "../test.h")
+
+        when:
+        cache.beforeOutputChange([outputPath("library/test.h")])
+        def result = resolver([systemIncludeDir]).resolveInclude(null, "../test.h")
+
+        then:
+        result != null
+        1 * fileSystemSnapshotter.getRegularFileContentHash(new File(systemIncludeDir, "../test.h")) >> hash
+    }
+
+    def "discards all lookups when unknown outputs change"() {
+        given:
+        fileSystemSnapshotter.getRegularFileContentHash(header) >> hash
+        resolver([systemIncludeDir]).resolveInclude(null, "test.h")
+
+        when:
+        cache.beforeOutputChange()
+        resolver([systemIncludeDir]).resolveInclude(null, "test.h")
+
+        then:
+        1 * fileSystemSnapshotter.getRegularFileContentHash(header) >> hash
+    }
+
+    private DefaultSourceIncludesResolver resolver(List<File> includePath) {
+        new DefaultSourceIncludesResolver(includePath, cache)
+    }
+
+    private String outputPath(String path) {
+        path.empty ? testDirectory.absolutePath : testDirectory.file(path).absolutePath
+    }
+}
@@ -152,4 +152,47 @@ line comments.
         "inline comment" | "/* inline comment at the start */of the line" | " of the line"
         "line continuation" | "${BN} at the start of the content" | " at the start of the content"
     }
+
+    def "reads only directive lines"() {
+        when:
+        def reader = new PreprocessingReader(new StringReader("""
+int a;
+  #include "a.h"
+/* comment */ # define A \\
+  "b.h"
+int b; // #include "c.h"
+/* #include "d.h"
+#include "e.h" */
+#import <f.h>""".replace('\n', eol)))
+        def lines = []
+        def line = new StringBuilder()
+        while (reader.readNextDirectiveLine(line)) {
+            lines << line.toString()
+            line.setLength(0)
+        }
+
+        then:
+        lines == ['#include "a.h"', '# define A   "b.h"', '#import <f.h>']
+
+        where:
+        // A backslash followed by a bare carriage return does not continue a line
+        eol << ['\n', '\r\n']
+    }
+
+    def "reads directive lines from content larger than the read buffer"() {
+        when:
+        def content = new StringBuilder()
+        10000.times { content.append("int a${it};\n#include \"${it}.h\"\n") }
+        def reader = new PreprocessingReader(new StringReader(content.toString()))
+        def count = 0
+        def line = new StringBuilder()
+        while (reader.readNextDirectiveLine(line)) {
+            assert line.toString() == "#include \"${count}.h\""
+            line.setLength(0)
+            count++
+        }
+
+        then:
+        count == 10000
+    }
 }
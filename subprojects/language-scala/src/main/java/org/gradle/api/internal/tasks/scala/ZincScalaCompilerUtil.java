@@ -23,4 +23,24 @@ private ZincScalaCompilerUtil() {
     public static final String ZINC_CACHE_HOME_DIR_SYSTEM_PROPERTY = "org.gradle.zinc.home.dir";
     public static final String ZINC_DIR_SYSTEM_PROPERTY = "zinc.dir";
     public static final String ZINC_DIR_IGNORED_MESSAGE = "In order to guarantee parallel safe Scala compilation, Gradle does not support the '" + ZINC_DIR_SYSTEM_PROPERTY + "' system property and ignores any value provided.";
+    public static final String ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY = "zinc.analysis.cache.limit";
+
+    private static final long MEMORY_PER_CACHED_ANALYSIS = 32 * 1024 * 1024;
+    private static final int MIN_ANALYSIS_CACHE_LIMIT = 5;
+    private static final int MAX_ANALYSIS_CACHE_LIMIT = 100;
+
+    /**
+     * Sizes the caches that Zinc keeps for the lifetime of the compiler daemon, unless they are configured with system properties.
+     * This has to be done before Zinc is first used, as Zinc reads the sizes once.
+     *
+     * <p>Zinc keeps the loaded analysis of each analysis file, keyed by the file and the hash of its content, and reuses it for later
+     * compilations of the same module and of the modules that depend on it. It only keeps 5 of them by default, which is fewer than
+     * the number of modules of most builds, so the analysis files were read and parsed again by almost every compilation.</p>
+     */
+    public static void configureZincCaches(long maxMemory) {
+        if (System.getProperty(ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY) == null) {
+            long limit = Math.max(MIN_ANALYSIS_CACHE_LIMIT, Math.min(MAX_ANALYSIS_CACHE_LIMIT, maxMemory / MEMORY_PER_CACHED_ANALYSIS));
+            System.setProperty(ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY, String.valueOf(limit));
+        }
+    }
 }
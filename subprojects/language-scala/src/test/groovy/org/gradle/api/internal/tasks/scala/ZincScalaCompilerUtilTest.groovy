@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.scala
+
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.gradle.api.internal.tasks.scala.ZincScalaCompilerUtil.ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY
+
+class ZincScalaCompilerUtilTest extends Specification {
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def setup() {
+        System.clearProperty(ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY)
+    }
+
+    @Unroll
+    def "sizes the analysis cache for #maxMemoryMb MB of heap"() {
+        when:
+        ZincScalaCompilerUtil.configureZincCaches(maxMemoryMb * 1024L * 1024L)
+
+        then:
+        System.getProperty(ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY) == limit
+
+        where:
+        maxMemoryMb | limit
+        64          | "5"
+        512         | "16"
+        2048        | "64"
+        16384       | "100"
+    }
+
+    def "keeps the analysis cache size configured by the user"() {
+        System.setProperty(ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY, "3")
+
+        when:
+        ZincScalaCompilerUtil.configureZincCaches(Long.MAX_VALUE)
+
+        then:
+        System.getProperty(ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY) == "3"
+    }
+}
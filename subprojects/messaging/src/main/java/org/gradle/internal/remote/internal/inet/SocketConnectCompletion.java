@@ -23,7 +23,7 @@
 
 import java.nio.channels.SocketChannel;
 
-class SocketConnectCompletion implements ConnectCompletion {
+public class SocketConnectCompletion implements ConnectCompletion {
     private final SocketChannel socket;
 
     public SocketConnectCompletion(SocketChannel socket) {
@@ -88,6 +88,13 @@ public void stop() {
         };
     }
 
+    /**
+     * Creates the completion for an accepted connection. Subclasses may negotiate a different transport with the peer.
+     */
+    protected ConnectCompletion createConnectCompletion(SocketChannel socket, boolean allowRemote) {
+        return new SocketConnectCompletion(socket);
+    }
+
     private class Receiver implements Runnable {
         private final ServerSocketChannel serverSocket;
         private final Action<ConnectCompletion> action;
@@ -114,7 +121,7 @@ public void run() {
                         }
                         LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
                         try {
-                            action.execute(new SocketConnectCompletion(socket));
+                            action.execute(createConnectCompletion(socket, allowRemote));
                         } catch (Throwable t) {
                             socket.close();
                             throw t;
@@ -62,7 +62,7 @@ public ConnectCompletion connect(Address destinationAddress) throws org.gradle.i
                     continue;
                 }
                 LOGGER.debug("Connected to address {}.", socketChannel.socket().getRemoteSocketAddress());
-                return new SocketConnectCompletion(socketChannel);
+                return createConnectCompletion(socketChannel, address);
             }
             throw new org.gradle.internal.remote.internal.ConnectException(String.format("Could not connect to server %s. Tried addresses: %s.",
                     destinationAddress, candidateAddresses), lastFailure);
@@ -74,6 +74,13 @@ public ConnectCompletion connect(Address destinationAddress) throws org.gradle.i
         }
     }
 
+    /**
+     * Creates the completion for an established connection. Subclasses may negotiate a different transport with the peer.
+     */
+    protected ConnectCompletion createConnectCompletion(SocketChannel socketChannel, InetEndpoint address) {
+        return new SocketConnectCompletion(socketChannel);
+    }
+
     private SocketChannel tryConnect(InetEndpoint address, InetAddress candidate) throws IOException {
         SocketChannel socketChannel = SocketChannel.open();
 
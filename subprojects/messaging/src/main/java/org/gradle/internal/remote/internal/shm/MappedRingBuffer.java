@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.io.BufferCaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A single producer, single consumer ring buffer of bytes in a region of a memory mapped file, shared by two processes.
+ *
+ * <p>The region starts with a header holding the total number of bytes written and read so far, and flags that the producer and
+ * the consumer set before they wait for each other, each on its own cache line, followed by the data. Each process only ever updates
+ * its own position.</p>
+ *
+ * <p>The header is accessed with the volatile memory operations of {@link Unsafe}, which order the plain copies of the data around them
+ * for the other process as well. When these are not available, {@link #isSupported()} returns false and the ring buffer must not be used.</p>
+ */
+class MappedRingBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedRingBuffer.class);
+    private static final int WRITE_POSITION = 0;
+    private static final int READ_POSITION = 64;
+    private static final int CLOSED = 128;
+    private static final int READER_WAITING = 192;
+    private static final int WRITER_WAITING = 256;
+    private static final int HEADER_SIZE = 320;
+
+    private static final Unsafe UNSAFE;
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        Unsafe unsafe = null;
+        long addressOffset = -1;
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = (Unsafe) field.get(null);
+            addressOffset = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (Throwable e) {
+            LOGGER.debug("Cannot access the memory of mapped files, shared memory is not available.", e);
+            unsafe = null;
+        }
+        UNSAFE = unsafe;
+        ADDRESS_OFFSET = addressOffset;
+    }
+
+    private final long header;
+    private final ByteBuffer data;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * Returns true when ring buffers can be used in this process.
+     */
+    static boolean isSupported() {
+        return UNSAFE != null;
+    }
+
+    /**
+     * Returns the size of the region required for a ring buffer of the given capacity, which must be a power of two.
+     */
+    static int regionSize(int capacity) {
+        return HEADER_SIZE + capacity;
+    }
+
+    /**
+     * Creates a ring buffer over the region at the given index of a mapping holding consecutive regions of the given capacity.
+     */
+    static MappedRingBuffer forRegion(ByteBuffer mapping, int index, int capacity) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Shared memory ring buffers are not supported in this process.");
+        }
+        ByteBuffer region = mapping.duplicate();
+        int start = index * regionSize(capacity);
+        BufferCaster.cast(region).position(start);
+        BufferCaster.cast(region).limit(start + regionSize(capacity));
+        return new MappedRingBuffer(region.slice(), capacity);
+    }
+
+    private MappedRingBuffer(ByteBuffer region, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two.");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        // The mapping is page aligned and the regions are a multiple of the cache line size, so the header fields are naturally aligned
+        this.header = UNSAFE.getLong(region, ADDRESS_OFFSET);
+        BufferCaster.cast(region).position(HEADER_SIZE);
+        this.data = region.slice();
+    }
+
+    /**
+     * Copies as many of the given bytes as currently fit into the buffer, without blocking.
+     *
+     * @return the number of bytes written, 0 when the buffer is full.
+     */
+    int write(byte[] src, int offset, int length) {
+        long writePosition = UNSAFE.getLong(header + WRITE_POSITION);
+        long readPosition = UNSAFE.getLongVolatile(null, header + READ_POSITION);
+        int count = (int) Math.min(length, capacity - (writePosition - readPosition));
+        if (count <= 0) {
+            return 0;
+        }
+        copy(writePosition, count, src, offset, true);
+        UNSAFE.putLongVolatile(null, header + WRITE_POSITION, writePosition + count);
+        return count;
+    }
+
+    /**
+     * Copies as many bytes as are currently available from the buffer, without blocking.
+     *
+     * @return the number of bytes read, 0 when the buffer is empty.
+     */
+    int read(byte[] dest, int offset, int length) {
+        long readPosition = UNSAFE.getLong(header + READ_POSITION);
+        long writePosition = UNSAFE.getLongVolatile(null, header + WRITE_POSITION);
+        int count = (int) Math.min(length, writePosition - readPosition);
+        if (count <= 0) {
+            return 0;
+        }
+        copy(readPosition, count, dest, offset, false);
+        UNSAFE.putLongVolatile(null, header + READ_POSITION, readPosition + count);
+        return count;
+    }
+
+    /**
+     * Returns true when there are no bytes to read, to be called by the consumer.
+     */
+    boolean isEmpty() {
+        return UNSAFE.getLongVolatile(null, header + WRITE_POSITION) == UNSAFE.getLong(header + READ_POSITION);
+    }
+
+    /**
+     * Returns true when there is no space to write, to be called by the producer.
+     */
+    boolean isFull() {
+        return UNSAFE.getLong(header + WRITE_POSITION) - UNSAFE.getLongVolatile(null, header + READ_POSITION) == capacity;
+    }
+
+    /**
+     * Records that the consumer is about to wait for bytes to be written. The consumer must try to read again after this, as
+     * the producer may have written bytes before it saw the flag.
+     */
+    void readerWaiting() {
+        UNSAFE.putIntVolatile(null, header + READER_WAITING, 1);
+    }
+
+    /**
+     * Records that the producer is about to wait for bytes to be read. The producer must try to write again after this, as
+     * the consumer may have read bytes before it saw the flag.
+     */
+    void writerWaiting() {
+        UNSAFE.putIntVolatile(null, header + WRITER_WAITING, 1);
+    }
+
+    /**
+     * Clears the flag set by {@link #readerWaiting()}, to be called by the producer after writing.
+     *
+     * @return true when the consumer was waiting and needs to be woken up.
+     */
+    boolean takeReaderWaiting() {
+        return UNSAFE.getIntVolatile(null, header + READER_WAITING) != 0 && UNSAFE.compareAndSwapInt(null, header + READER_WAITING, 1, 0);
+    }
+
+    /**
+     * Clears the flag set by {@link #writerWaiting()}, to be called by the consumer after reading.
+     *
+     * @return true when the producer was waiting and needs to be woken up.
+     */
+    boolean takeWriterWaiting() {
+        return UNSAFE.getIntVolatile(null, header + WRITER_WAITING) != 0 && UNSAFE.compareAndSwapInt(null, header + WRITER_WAITING, 1, 0);
+    }
+
+    /**
+     * Marks that the producer will not write any more bytes.
+     */
+    void close() {
+        UNSAFE.putIntVolatile(null, header + CLOSED, 1);
+    }
+
+    boolean isClosed() {
+        return UNSAFE.getIntVolatile(null, header + CLOSED) != 0;
+    }
+
+    private void copy(long position, int count, byte[] bytes, int offset, boolean toBuffer) {
+        int index = (int) (position & mask);
+        int first = Math.min(count, capacity - index);
+        transfer(index, bytes, offset, first, toBuffer);
+        if (first < count) {
+            transfer(0, bytes, offset + first, count - first, toBuffer);
+        }
+    }
+
+    private void transfer(int index, byte[] bytes, int offset, int count, boolean toBuffer) {
+        BufferCaster.cast(data).position(index);
+        if (toBuffer) {
+            data.put(bytes, offset, count);
+        } else {
+            data.get(bytes, offset, count);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.remote.internal.inet.InetEndpoint;
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.util.List;
+
+/**
+ * A TCP address that also offers a shared memory transport to peers running on the same host. The peer connects using TCP
+ * and then negotiates whether to exchange messages through a memory mapped file in the given directory.
+ */
+public class SharedMemoryAddress implements InetEndpoint {
+    private final MultiChoiceAddress tcpAddress;
+    private final File directory;
+
+    public SharedMemoryAddress(MultiChoiceAddress tcpAddress, File directory) {
+        this.tcpAddress = tcpAddress;
+        this.directory = directory;
+    }
+
+    public MultiChoiceAddress getTcpAddress() {
+        return tcpAddress;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return tcpAddress.getDisplayName() + " (shared memory in " + directory + ")";
+    }
+
+    @Override
+    public int getPort() {
+        return tcpAddress.getPort();
+    }
+
+    @Override
+    public List<InetAddress> getCandidates() {
+        return tcpAddress.getCandidates();
+    }
+
+    @Override
+    public String toString() {
+        return getDisplayName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SharedMemoryAddress other = (SharedMemoryAddress) o;
+        return other.tcpAddress.equals(tcpAddress) && other.directory.equals(directory);
+    }
+
+    @Override
+    public int hashCode() {
+        return tcpAddress.hashCode();
+    }
+}
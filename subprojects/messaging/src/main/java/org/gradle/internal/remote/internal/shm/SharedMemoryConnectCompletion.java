@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.KryoBackedMessageSerializer;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.remote.internal.inet.SocketConnectCompletion;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+
+/**
+ * Negotiates the transport for a TCP connection with a peer that supports shared memory.
+ *
+ * <p>The accepting side creates and maps a file holding one ring buffer for each direction and sends its path over the socket,
+ * or an empty path when it cannot use shared memory. The file is only readable and writable by its owner. The initiating side maps
+ * the same file, provided it is in the shared memory directory of the address it connected to, and replies whether it did so. When
+ * either side cannot use shared memory, the connection continues over TCP.</p>
+ *
+ * <p>Any local process can connect to the accepting side, so it only ever maps the files it has created itself. The initiating side
+ * only connects to addresses it was given.</p>
+ */
+class SharedMemoryConnectCompletion implements ConnectCompletion {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMemoryConnectCompletion.class);
+    private static final int RING_BUFFER_CAPACITY = 1024 * 1024;
+    private static final int MAPPING_SIZE = 2 * MappedRingBuffer.regionSize(RING_BUFFER_CAPACITY);
+    private static final int INITIATOR_TO_ACCEPTOR = 0;
+    private static final int ACCEPTOR_TO_INITIATOR = 1;
+
+    private final SocketChannel socket;
+    private final File directory;
+    private final boolean initiator;
+
+    private SharedMemoryConnectCompletion(SocketChannel socket, File directory, boolean initiator) {
+        this.socket = socket;
+        this.directory = directory;
+        this.initiator = initiator;
+    }
+
+    static SharedMemoryConnectCompletion initiator(SocketChannel socket, File directory) {
+        return new SharedMemoryConnectCompletion(socket, directory, true);
+    }
+
+    static SharedMemoryConnectCompletion acceptor(SocketChannel socket, File directory) {
+        return new SharedMemoryConnectCompletion(socket, directory, false);
+    }
+
+    @Override
+    public String toString() {
+        return socket.socket().getLocalSocketAddress() + " to " + socket.socket().getRemoteSocketAddress();
+    }
+
+    @Override
+    public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
+        MappedByteBuffer mapping;
+        try {
+            mapping = initiator ? acceptOffer() : offer();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        if (mapping == null) {
+            return new SocketConnectCompletion(socket).create(serializer);
+        }
+        MappedRingBuffer initiatorToAcceptor = MappedRingBuffer.forRegion(mapping, INITIATOR_TO_ACCEPTOR, RING_BUFFER_CAPACITY);
+        MappedRingBuffer acceptorToInitiator = MappedRingBuffer.forRegion(mapping, ACCEPTOR_TO_INITIATOR, RING_BUFFER_CAPACITY);
+        if (initiator) {
+            return new SharedMemoryConnection<T>(socket, acceptorToInitiator, initiatorToAcceptor, new KryoBackedMessageSerializer(), serializer);
+        }
+        return new SharedMemoryConnection<T>(socket, initiatorToAcceptor, acceptorToInitiator, new KryoBackedMessageSerializer(), serializer);
+    }
+
+    @Nullable
+    private MappedByteBuffer offer() throws IOException {
+        File file = null;
+        MappedByteBuffer mapping = null;
+        if (MappedRingBuffer.isSupported() && directory.isDirectory() && isLocalPeer()) {
+            try {
+                file = createMappingFile();
+                mapping = map(file, true);
+            } catch (IOException e) {
+                LOGGER.debug("Could not create shared memory file in {}, using TCP.", directory, e);
+                deleteMappingFile(file);
+                file = null;
+            }
+        }
+
+        DataOutputStream outstr = new DataOutputStream(socket.socket().getOutputStream());
+        outstr.writeUTF(file == null ? "" : file.getAbsolutePath());
+        outstr.flush();
+        boolean accepted = new DataInputStream(socket.socket().getInputStream()).readBoolean();
+
+        // Both sides have mapped the file by now, or will never do so, so the file is no longer needed
+        deleteMappingFile(file);
+        return accepted ? mapping : null;
+    }
+
+    @Nullable
+    private MappedByteBuffer acceptOffer() throws IOException {
+        String path = new DataInputStream(socket.socket().getInputStream()).readUTF();
+        MappedByteBuffer mapping = null;
+        if (!path.isEmpty() && MappedRingBuffer.isSupported()) {
+            File file = new File(path);
+            try {
+                if (!isMappingFile(file)) {
+                    throw new IOException(String.format("Shared memory file %s is not a file in %s.", file, directory));
+                }
+                mapping = map(file, false);
+            } catch (IOException e) {
+                LOGGER.debug("Could not map shared memory file {}, using TCP.", path, e);
+            }
+        }
+
+        DataOutputStream outstr = new DataOutputStream(socket.socket().getOutputStream());
+        outstr.writeBoolean(mapping != null);
+        outstr.flush();
+        return mapping;
+    }
+
+    private File createMappingFile() throws IOException {
+        Path directoryPath = directory.toPath();
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            FileAttribute<?> ownerOnly = PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+            return Files.createTempFile(directoryPath, "connection", ".bin", ownerOnly).toFile();
+        }
+        return Files.createTempFile(directoryPath, "connection", ".bin").toFile();
+    }
+
+    private boolean isMappingFile(File file) throws IOException {
+        Path path = file.toPath();
+        return file.isAbsolute()
+            && Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+            && file.getParentFile().getCanonicalFile().equals(directory.getCanonicalFile());
+    }
+
+    private boolean isLocalPeer() {
+        InetAddress remoteAddress = socket.socket().getInetAddress();
+        if (remoteAddress.isLoopbackAddress()) {
+            return true;
+        }
+        try {
+            return NetworkInterface.getByInetAddress(remoteAddress) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static MappedByteBuffer map(File file, boolean create) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            if (create) {
+                randomAccessFile.setLength(MAPPING_SIZE);
+            } else if (randomAccessFile.length() != MAPPING_SIZE) {
+                throw new IOException(String.format("Unexpected size %d of shared memory file %s.", randomAccessFile.length(), file));
+            }
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, MAPPING_SIZE);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static void deleteMappingFile(@Nullable File file) {
+        // The file cannot be deleted while it is mapped on some platforms, so fall back to deleting it on exit
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
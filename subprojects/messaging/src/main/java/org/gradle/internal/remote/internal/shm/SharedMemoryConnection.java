@@ -0,0 +1,315 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.io.BufferCaster;
+import org.gradle.internal.remote.internal.MessageIOException;
+import org.gradle.internal.remote.internal.MessageSerializer;
+import org.gradle.internal.remote.internal.RecoverableMessageIOException;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A connection that exchanges messages with a peer on the same host through a pair of ring buffers in a memory mapped file.
+ *
+ * <p>The TCP socket the connection was negotiated over is kept open. A thread that finds nothing to read or no space to write
+ * spins briefly, then records in the ring buffer that it is waiting and blocks reading the socket. The peer sends a single
+ * byte over the socket to wake it up once it has written or read bytes. The socket also tells when the peer goes away.</p>
+ */
+public class SharedMemoryConnection<T> implements RemoteConnection<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMemoryConnection.class);
+    private static final int SPIN_COUNT = 100;
+    private static final byte DATA_AVAILABLE = 0;
+    private static final byte SPACE_AVAILABLE = 1;
+
+    private final SocketChannel socket;
+    private final MappedRingBuffer incoming;
+    private final MappedRingBuffer outgoing;
+    private final String remoteAddress;
+    private final ObjectWriter<T> objectWriter;
+    private final ObjectReader<T> objectReader;
+    private final OutputStream outstr;
+    private final FlushableEncoder encoder;
+    private final Doorbell doorbell = new Doorbell();
+    private volatile boolean stopped;
+
+    SharedMemoryConnection(SocketChannel socket, MappedRingBuffer incoming, MappedRingBuffer outgoing, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
+        this.socket = socket;
+        this.incoming = incoming;
+        this.outgoing = outgoing;
+        try {
+            socket.configureBlocking(true);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        remoteAddress = String.valueOf(socket.socket().getRemoteSocketAddress());
+        outstr = new RingBufferOutputStream();
+        objectReader = messageSerializer.newReader(streamSerializer.newDecoder(new RingBufferInputStream()));
+        encoder = streamSerializer.newEncoder(outstr);
+        objectWriter = messageSerializer.newWriter(encoder);
+    }
+
+    @Override
+    public String toString() {
+        return "shared memory connection from " + socket.socket().getLocalSocketAddress() + " to " + remoteAddress;
+    }
+
+    @Override
+    public T receive() throws MessageIOException {
+        try {
+            return objectReader.read();
+        } catch (EOFException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Discarding EOFException: {}", e.toString());
+            }
+            return null;
+        } catch (ObjectStreamException e) {
+            throw new RecoverableMessageIOException(String.format("Could not read message from '%s'.", remoteAddress), e);
+        } catch (ClassNotFoundException e) {
+            throw new RecoverableMessageIOException(String.format("Could not read message from '%s'.", remoteAddress), e);
+        } catch (IOException e) {
+            throw new RecoverableMessageIOException(String.format("Could not read message from '%s'.", remoteAddress), e);
+        } catch (Throwable e) {
+            throw new MessageIOException(String.format("Could not read message from '%s'.", remoteAddress), e);
+        }
+    }
+
+    @Override
+    public void dispatch(T message) throws MessageIOException {
+        try {
+            objectWriter.write(message);
+        } catch (ObjectStreamException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        } catch (ClassNotFoundException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        } catch (IOException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        } catch (Throwable e) {
+            throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        }
+    }
+
+    @Override
+    public void flush() throws MessageIOException {
+        try {
+            encoder.flush();
+            outstr.flush();
+        } catch (Throwable e) {
+            throw new MessageIOException(String.format("Could not write '%s'.", remoteAddress), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(new Closeable() {
+            @Override
+            public void close() {
+                flush();
+            }
+        }, new Closeable() {
+            @Override
+            public void close() {
+                stopped = true;
+                outgoing.close();
+            }
+        }, socket).stop();
+    }
+
+    /**
+     * Exchanges wake up signals with the peer over the socket. Both the receiving and the dispatching thread may wait for a signal at the
+     * same time, so one of them reads the socket on behalf of both.
+     */
+    private class Doorbell {
+        private final ByteBuffer incomingSignals = ByteBuffer.allocate(64);
+        private final ByteBuffer outgoingSignal = ByteBuffer.allocate(1);
+        private final boolean[] pending = new boolean[2];
+        private boolean reading;
+        private boolean disconnected;
+
+        /**
+         * Wakes up the thread of the peer waiting for the given signal.
+         */
+        void ring(byte signal) {
+            synchronized (outgoingSignal) {
+                BufferCaster.cast(outgoingSignal).clear();
+                outgoingSignal.put(signal);
+                BufferCaster.cast(outgoingSignal).flip();
+                try {
+                    while (outgoingSignal.hasRemaining()) {
+                        socket.write(outgoingSignal);
+                    }
+                } catch (IOException e) {
+                    // The peer has gone away, which the waiting threads of this end learn from the socket
+                    LOGGER.debug("Could not wake up the peer of {}.", SharedMemoryConnection.this, e);
+                }
+            }
+        }
+
+        /**
+         * Waits until the peer sends the given signal.
+         *
+         * @return false when this end has been stopped or the peer has gone away.
+         */
+        boolean await(byte signal) {
+            while (true) {
+                synchronized (this) {
+                    while (reading && !pending[signal] && !disconnected) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            throw UncheckedException.throwAsUncheckedException(e);
+                        }
+                    }
+                    if (pending[signal]) {
+                        pending[signal] = false;
+                        return true;
+                    }
+                    if (disconnected) {
+                        return false;
+                    }
+                    reading = true;
+                }
+                int nread;
+                try {
+                    BufferCaster.cast(incomingSignals).clear();
+                    nread = socket.read(incomingSignals);
+                } catch (IOException e) {
+                    nread = -1;
+                }
+                synchronized (this) {
+                    reading = false;
+                    if (nread < 0) {
+                        disconnected = true;
+                    }
+                    for (int i = 0; i < nread; i++) {
+                        byte received = incomingSignals.get(i);
+                        if (received == DATA_AVAILABLE || received == SPACE_AVAILABLE) {
+                            pending[received] = true;
+                        }
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private class RingBufferInputStream extends InputStream {
+        private final byte[] readBuffer = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            int nread = read(readBuffer, 0, 1);
+            if (nread <= 0) {
+                return nread;
+            }
+            return readBuffer[0];
+        }
+
+        @Override
+        public int read(byte[] dest, int offset, int max) throws IOException {
+            if (max == 0) {
+                return 0;
+            }
+            int attempts = 0;
+            while (true) {
+                int nread = incoming.read(dest, offset, max);
+                if (nread > 0) {
+                    if (incoming.takeWriterWaiting()) {
+                        doorbell.ring(SPACE_AVAILABLE);
+                    }
+                    return nread;
+                }
+                if (stopped) {
+                    return -1;
+                }
+                if (incoming.isClosed()) {
+                    // The peer publishes everything it has written before closing, so drain what is left
+                    return drain(dest, offset, max);
+                }
+                if (++attempts < SPIN_COUNT) {
+                    Thread.yield();
+                } else {
+                    incoming.readerWaiting();
+                    // Check again, as the peer may have written before it could see that this end is waiting
+                    if (incoming.isEmpty() && !doorbell.await(DATA_AVAILABLE)) {
+                        return drain(dest, offset, max);
+                    }
+                    attempts = 0;
+                }
+            }
+        }
+
+        private int drain(byte[] dest, int offset, int max) {
+            int nread = incoming.read(dest, offset, max);
+            return nread > 0 ? nread : -1;
+        }
+    }
+
+    private class RingBufferOutputStream extends OutputStream {
+        private final byte[] writeBuffer = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            writeBuffer[0] = (byte) b;
+            write(writeBuffer);
+        }
+
+        @Override
+        public void write(byte[] src, int offset, int max) throws IOException {
+            int remaining = max;
+            int currentPos = offset;
+            int attempts = 0;
+            while (remaining > 0) {
+                int count = outgoing.write(src, currentPos, remaining);
+                if (count > 0) {
+                    remaining -= count;
+                    currentPos += count;
+                    attempts = 0;
+                    if (outgoing.takeReaderWaiting()) {
+                        doorbell.ring(DATA_AVAILABLE);
+                    }
+                } else if (stopped) {
+                    throw new EOFException();
+                } else if (++attempts < SPIN_COUNT) {
+                    Thread.yield();
+                } else {
+                    outgoing.writerWaiting();
+                    // Check again, as the peer may have read before it could see that this end is waiting
+                    if (outgoing.isFull() && !doorbell.await(SPACE_AVAILABLE)) {
+                        throw new EOFException();
+                    }
+                    attempts = 0;
+                }
+            }
+        }
+    }
+}
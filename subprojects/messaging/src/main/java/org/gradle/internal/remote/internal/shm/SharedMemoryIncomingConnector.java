@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.inet.InetAddressFactory;
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
+import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
+
+import java.io.File;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+/**
+ * Accepts TCP connections, and offers local peers to move the connection to a shared memory transport once connected.
+ * Connections that accept remote peers always use TCP.
+ */
+public class SharedMemoryIncomingConnector extends TcpIncomingConnector {
+    private final File directory;
+
+    public SharedMemoryIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory addressFactory, IdGenerator<UUID> idGenerator, File directory) {
+        super(executorFactory, addressFactory, idGenerator);
+        this.directory = directory;
+    }
+
+    @Override
+    public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allowRemote) {
+        final ConnectionAcceptor acceptor = super.accept(action, allowRemote);
+        if (allowRemote) {
+            return acceptor;
+        }
+        final Address address = new SharedMemoryAddress((MultiChoiceAddress) acceptor.getAddress(), directory);
+        return new ConnectionAcceptor() {
+            @Override
+            public Address getAddress() {
+                return address;
+            }
+
+            @Override
+            public void requestStop() {
+                acceptor.requestStop();
+            }
+
+            @Override
+            public void stop() {
+                acceptor.stop();
+            }
+        };
+    }
+
+    @Override
+    protected ConnectCompletion createConnectCompletion(SocketChannel socket, boolean allowRemote) {
+        if (allowRemote) {
+            return super.createConnectCompletion(socket, allowRemote);
+        }
+        return SharedMemoryConnectCompletion.acceptor(socket, directory);
+    }
+}
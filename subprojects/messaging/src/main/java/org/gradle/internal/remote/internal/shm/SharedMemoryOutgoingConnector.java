@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.inet.InetEndpoint;
+import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+
+import java.nio.channels.SocketChannel;
+
+/**
+ * Connects using TCP, and moves the connection to a shared memory transport when the destination offers one and is running on the same host.
+ */
+public class SharedMemoryOutgoingConnector extends TcpOutgoingConnector {
+    @Override
+    protected ConnectCompletion createConnectCompletion(SocketChannel socketChannel, InetEndpoint address) {
+        if (address instanceof SharedMemoryAddress) {
+            return SharedMemoryConnectCompletion.initiator(socketChannel, ((SharedMemoryAddress) address).getDirectory());
+        }
+        return super.createConnectCompletion(socketChannel, address);
+    }
+}
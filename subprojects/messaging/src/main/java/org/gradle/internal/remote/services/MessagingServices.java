@@ -27,8 +27,10 @@
 import org.gradle.internal.remote.internal.hub.MessageHubBackedServer;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
-import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.gradle.internal.remote.internal.shm.SharedMemoryIncomingConnector;
+import org.gradle.internal.remote.internal.shm.SharedMemoryOutgoingConnector;
 
+import java.io.File;
 import java.util.UUID;
 
 /**
@@ -43,6 +45,13 @@
  * </ul>
  */
 public class MessagingServices {
+    /**
+     * Enables the shared memory transport for connections accepted from processes on the same host, such as worker processes.
+     */
+    public static final String SHARED_MEMORY_PROPERTY = "org.gradle.internal.remote.shared-memory";
+    private static final String SHARED_MEMORY_DIRECTORY_PROPERTY = "org.gradle.internal.remote.shared-memory.dir";
+    private static final File RAM_BACKED_DIRECTORY = new File("/dev/shm");
+
     private final IdGenerator<UUID> idGenerator = new UUIDGenerator();
 
     protected InetAddressFactory createInetAddressFactory() {
@@ -50,10 +59,18 @@ protected InetAddressFactory createInetAddressFactory() {
     }
 
     protected OutgoingConnector createOutgoingConnector() {
-        return new TcpOutgoingConnector();
+        return new SharedMemoryOutgoingConnector();
     }
 
     protected IncomingConnector createIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory) {
+        if (Boolean.getBoolean(SHARED_MEMORY_PROPERTY)) {
+            return new SharedMemoryIncomingConnector(
+                    executorFactory,
+                    inetAddressFactory,
+                    idGenerator,
+                    sharedMemoryDirectory()
+            );
+        }
         return new TcpIncomingConnector(
                 executorFactory,
                 inetAddressFactory,
@@ -61,6 +78,17 @@ protected IncomingConnector createIncomingConnector(ExecutorFactory executorFact
         );
     }
 
+    private static File sharedMemoryDirectory() {
+        String directory = System.getProperty(SHARED_MEMORY_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return new File(directory);
+        }
+        if (RAM_BACKED_DIRECTORY.isDirectory() && RAM_BACKED_DIRECTORY.canWrite()) {
+            return RAM_BACKED_DIRECTORY;
+        }
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
     protected MessagingClient createMessagingClient(OutgoingConnector outgoingConnector, ExecutorFactory executorFactory) {
         return new MessageHubBackedClient(
                 outgoingConnector,
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.remote.internal.shm
+
+import org.gradle.api.Action
+import org.gradle.internal.id.UUIDGenerator
+import org.gradle.internal.remote.internal.ConnectCompletion
+import org.gradle.internal.remote.internal.inet.InetAddressFactory
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress
+import org.gradle.internal.remote.internal.inet.SocketConnection
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Serializers
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Shared
+import spock.lang.Timeout
+
+import java.nio.channels.ServerSocketChannel
+import java.nio.channels.SocketChannel
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermission
+
+@Timeout(60)
+class SharedMemoryConnectorTest extends ConcurrentSpec {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Shared def serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER)
+    final def outgoingConnector = new SharedMemoryOutgoingConnector()
+
+    def "offers shared memory to local connections only"() {
+        def incomingConnector = incomingConnector(tmpDir.testDirectory)
+
+        when:
+        def localAcceptor = incomingConnector.accept(Mock(Action), false)
+        def remoteAcceptor = incomingConnector.accept(Mock(Action), true)
+
+        then:
+        localAcceptor.address instanceof SharedMemoryAddress
+        localAcceptor.address.directory == tmpDir.testDirectory
+        remoteAcceptor.address instanceof MultiChoiceAddress
+
+        cleanup:
+        localAcceptor?.stop()
+        remoteAcceptor?.stop()
+    }
+
+    def "can exchange messages over shared memory"() {
+        def incomingConnector = incomingConnector(tmpDir.testDirectory)
+        def messages = (1..2000).collect { "message ${it} ".padRight(1024, "x") }
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(serializer)
+            assert connection instanceof SharedMemoryConnection
+            assert connection.receive() == "hello"
+            messages.each { connection.dispatch(it) }
+            connection.stop()
+        } as Action, false)
+
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        connection.dispatch("hello")
+        connection.flush()
+        def received = []
+        def message
+        while ((message = connection.receive()) != null) {
+            received << message
+        }
+
+        then:
+        connection instanceof SharedMemoryConnection
+        received == messages
+
+        and:
+        tmpDir.testDirectory.list().length == 0
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    def "receive returns null when peer has stopped"() {
+        def incomingConnector = incomingConnector(tmpDir.testDirectory)
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            event.create(serializer).stop()
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        connection.receive() == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    def "wakes up a peer waiting for messages"() {
+        def incomingConnector = incomingConnector(tmpDir.testDirectory)
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(serializer)
+            // Give the peer time to stop spinning and wait for a signal
+            Thread.sleep(200)
+            connection.dispatch("bye")
+            connection.flush()
+            Thread.sleep(200)
+            connection.stop()
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        connection instanceof SharedMemoryConnection
+        connection.receive() == "bye"
+        connection.receive() == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    @Requires(TestPrecondition.FILE_PERMISSIONS)
+    def "creates the shared memory file readable and writable by the owner only"() {
+        def incomingConnector = incomingConnector(tmpDir.testDirectory)
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            event.create(serializer).stop()
+        } as Action, false)
+        def socket = SocketChannel.open(new InetSocketAddress(acceptor.address.candidates.first(), acceptor.address.port))
+        def path = new DataInputStream(socket.socket().inputStream).readUTF()
+        def permissions = Files.getPosixFilePermissions(new File(path).toPath())
+        def outstr = new DataOutputStream(socket.socket().outputStream)
+        outstr.writeBoolean(false)
+        outstr.flush()
+
+        then:
+        new File(path).parentFile == tmpDir.testDirectory
+        permissions == [PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE] as Set
+
+        cleanup:
+        socket?.close()
+        acceptor?.stop()
+    }
+
+    def "does not map a file outside of the shared memory directory of the address"() {
+        def otherFile = tmpDir.file("other/connection.bin").createFile()
+        def server = ServerSocketChannel.open()
+        server.bind(new InetSocketAddress(InetAddress.loopbackAddress, 0))
+        def address = new SharedMemoryAddress(new MultiChoiceAddress(UUID.randomUUID(), server.socket().localPort, [InetAddress.loopbackAddress]), tmpDir.createDir("shm"))
+        def accepted = null
+
+        when:
+        def connection = null
+        async {
+            start {
+                def socket = server.accept()
+                new DataOutputStream(socket.socket().outputStream).with {
+                    writeUTF(otherFile.absolutePath)
+                    flush()
+                }
+                accepted = new DataInputStream(socket.socket().inputStream).readBoolean()
+                socket.close()
+            }
+            connection = outgoingConnector.connect(address).create(serializer)
+        }
+
+        then:
+        accepted == false
+        connection instanceof SocketConnection
+
+        cleanup:
+        connection?.stop()
+        server?.close()
+    }
+
+    def "uses TCP when the shared memory directory is not available"() {
+        def incomingConnector = incomingConnector(tmpDir.file("missing"))
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(serializer)
+            connection.dispatch("bye")
+            connection.stop()
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        connection instanceof SocketConnection
+        connection.receive() == "bye"
+        connection.receive() == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    def incomingConnector(File directory) {
+        return new SharedMemoryIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator(), directory)
+    }
+}
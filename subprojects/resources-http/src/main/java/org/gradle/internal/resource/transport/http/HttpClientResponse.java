@@ -65,6 +65,20 @@ public void close() {
         }
     }
 
+    /**
+     * Closes the response without reading the rest of the content. The connection is discarded instead of being reused.
+     */
+    void abort() {
+        if (!closed) {
+            closed = true;
+            try {
+                httpResponse.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
     String getMethod() {
         return method;
     }
@@ -27,6 +27,7 @@
 import org.gradle.internal.resource.transfer.DefaultExternalResourceConnector;
 import org.gradle.internal.resource.transfer.ExternalResourceConnector;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 
 public class HttpConnectorFactory implements ResourceConnectorFactory {
@@ -39,9 +40,15 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
     );
 
     private SslContextFactory sslContextFactory;
+    private final ParallelRangeDownloader rangeDownloader;
 
     public HttpConnectorFactory(SslContextFactory sslContextFactory) {
+        this(sslContextFactory, null);
+    }
+
+    public HttpConnectorFactory(SslContextFactory sslContextFactory, @Nullable ParallelRangeDownloader rangeDownloader) {
         this.sslContextFactory = sslContextFactory;
+        this.rangeDownloader = rangeDownloader;
     }
 
     @Override
@@ -62,7 +69,9 @@ public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecif
             .withRedirectVerifier(connectionDetails.getRedirectVerifier())
             .build()
         );
-        HttpResourceAccessor accessor = new HttpResourceAccessor(http);
+        HttpResourceAccessor accessor = ParallelRangeDownloader.isEnabled()
+            ? new HttpResourceAccessor(http, rangeDownloader, connectionDetails.getPartialDownloadsDirectory())
+            : new HttpResourceAccessor(http);
         HttpResourceLister lister = new HttpResourceLister(accessor);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
         return new DefaultExternalResourceConnector(accessor, lister, uploader);
@@ -19,35 +19,82 @@
 import org.gradle.internal.IoActions;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceAccessor;
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 
 public class HttpResourceAccessor implements ExternalResourceAccessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
+    private final ParallelRangeDownloader rangeDownloader;
+    private final File partialDownloadsDirectory;
 
     public HttpResourceAccessor(HttpClientHelper http) {
+        this(http, null, null);
+    }
+
+    /**
+     * Creates an accessor which downloads large resources using the given downloader, keeping partial downloads in the given directory.
+     */
+    public HttpResourceAccessor(HttpClientHelper http, @Nullable ParallelRangeDownloader rangeDownloader, @Nullable File partialDownloadsDirectory) {
         this.http = http;
+        this.rangeDownloader = rangeDownloader;
+        this.partialDownloadsDirectory = partialDownloadsDirectory;
     }
 
     @Override
     @Nullable
-    public HttpResponseResource openResource(final URI uri, boolean revalidate) {
+    public ExternalResourceReadResponse openResource(final URI uri, boolean revalidate) {
         String location = uri.toString();
         LOGGER.debug("Constructing external resource: {}", location);
 
         HttpClientResponse response = http.performGet(location, revalidate);
         if (response != null) {
-            return wrapResponse(uri, response);
+            HttpResponseResource resource = wrapResponse(uri, response);
+            if (rangeDownloader != null && partialDownloadsDirectory != null) {
+                return downloadInRanges(resource);
+            }
+            return resource;
         }
 
         return null;
     }
 
+    @Override
+    @Nullable
+    public ExternalResourceReadResponse openResourceIfModified(URI uri, ExternalResourceMetaData cachedMetaData) {
+        String location = uri.toString();
+        LOGGER.debug("Constructing conditional external resource: {}", location);
+
+        HttpClientResponse response = http.performConditionalGet(location, cachedMetaData.getEtag(), cachedMetaData.getLastModified());
+        if (response != null) {
+            HttpResponseResource resource = wrapResponse(uri, response);
+            if (!resource.isUnmodified() && rangeDownloader != null && partialDownloadsDirectory != null) {
+                return downloadInRanges(resource);
+            }
+            return resource;
+        }
+
+        return null;
+    }
+
+    private ExternalResourceReadResponse downloadInRanges(HttpResponseResource resource) {
+        try {
+            ExternalResourceReadResponse download = rangeDownloader.download(http, resource, partialDownloadsDirectory);
+            return download != null ? download : resource;
+        } catch (IOException e) {
+            // Fall back to reading the response directly
+            LOGGER.debug("Could not start parallel download of {}.", resource.getURI(), e);
+            return resource;
+        }
+    }
+
     /**
      * Same as #getResource except that it always gives access to the response body,
      * irrespective of the returned HTTP status code. Never returns {@code null}.
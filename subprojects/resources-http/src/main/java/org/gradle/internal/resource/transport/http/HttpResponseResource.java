@@ -16,6 +16,7 @@
 package org.gradle.internal.resource.transport.http;
 
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.utils.DateUtils;
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData;
@@ -97,6 +98,11 @@ public String getContentType() {
         return response.getHeader(HttpHeaders.CONTENT_TYPE);
     }
 
+    @Override
+    public boolean isUnmodified() {
+        return getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+    }
+
     public boolean isLocal() {
         return false;
     }
@@ -116,6 +122,10 @@ public void close() {
         response.close();
     }
 
+    void abort() {
+        response.abort();
+    }
+
     private static String getEtag(HttpClientResponse response) {
         return response.getHeader(HttpHeaders.ETAG);
     }
@@ -0,0 +1,523 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpGet;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Downloads large resources as a number of byte ranges, which are requested in parallel.
+ *
+ * <p>The ranges are written to a partial file, and the ranges that are complete are recorded next to it. When a
+ * download fails, the partial file is kept, so that the next download of the same version of the resource only
+ * requests the ranges that are missing. A range request that fails part way through is retried from the last
+ * byte received.</p>
+ *
+ * <p>The content is streamed to the consumer in order as the ranges complete. The length and, when the server
+ * provides one, the SHA1 checksum of the content are verified before the end of the stream is reported, so the
+ * consumer never commits a corrupt file.</p>
+ */
+public class ParallelRangeDownloader implements Stoppable {
+    public static final String PARALLEL_DOWNLOAD_PROPERTY = "org.gradle.internal.http.parallel-download";
+    public static final String THRESHOLD_PROPERTY = "org.gradle.internal.http.parallel-download.threshold";
+    public static final String CHUNK_SIZE_PROPERTY = "org.gradle.internal.http.parallel-download.chunk-size";
+    public static final String CONNECTIONS_PROPERTY = "org.gradle.internal.http.parallel-download.connections";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelRangeDownloader.class);
+    private static final int MAX_ATTEMPTS_PER_RANGE = 3;
+    private static final int HEADER_SIZE = 8;
+    private static final byte RANGE_COMPLETE = 1;
+
+    private final ExecutorFactory executorFactory;
+    private final long threshold;
+    private final int chunkSize;
+    private final int connections;
+    private ManagedExecutor executor;
+
+    public ParallelRangeDownloader(ExecutorFactory executorFactory) {
+        this(executorFactory, Long.getLong(THRESHOLD_PROPERTY, 32 * 1024 * 1024), Integer.getInteger(CHUNK_SIZE_PROPERTY, 8 * 1024 * 1024), Integer.getInteger(CONNECTIONS_PROPERTY, 4));
+    }
+
+    ParallelRangeDownloader(ExecutorFactory executorFactory, long threshold, int chunkSize, int connections) {
+        this.executorFactory = executorFactory;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+        this.connections = connections;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PARALLEL_DOWNLOAD_PROPERTY);
+    }
+
+    /**
+     * Continues the given GET response as a parallel download, when the resource is large enough and the server
+     * accepts range requests for it.
+     *
+     * @return The response to read the content from, or null when the given response should be read directly.
+     */
+    @Nullable
+    public ExternalResourceReadResponse download(HttpClientHelper http, HttpResponseResource response, File partialDownloadsDirectory) throws IOException {
+        long length = response.getContentLength();
+        String validator = getValidator(response);
+        if (response.getStatusCode() != 200
+            || length < threshold
+            || validator == null
+            || !"bytes".equalsIgnoreCase(response.getHeaderValue(HttpHeaders.ACCEPT_RANGES))
+            || !isIdentityEncoded(response)) {
+            return null;
+        }
+
+        String key = HashUtil.sha1((response.getURI() + "\n" + validator + "\n" + length).getBytes(StandardCharsets.UTF_8)).asHexString();
+        GFileUtils.mkdirs(partialDownloadsDirectory);
+        PartialDownload partial = PartialDownload.open(new File(partialDownloadsDirectory, key + ".part"), new File(partialDownloadsDirectory, key + ".ranges"), length, chunkSize);
+        if (partial == null) {
+            // Another process or thread is downloading the same resource
+            return null;
+        }
+        LOGGER.info("Downloading {} in {} ranges, {} of them already present.", response.getURI(), partial.getRangeCount(), partial.getCompletedRangeCount());
+        RangedDownload download = new RangedDownload(http, response, validator, partial);
+        download.start(getExecutor());
+        return download;
+    }
+
+    private synchronized ManagedExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("HTTP range downloads", connections);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        CompositeStoppable.stoppable(executor).stop();
+        executor = null;
+    }
+
+    /**
+     * A strong validator identifies a single version of the resource, so it can be used to resume a download.
+     */
+    @Nullable
+    private static String getValidator(HttpResponseResource response) {
+        String etag = response.getHeaderValue(HttpHeaders.ETAG);
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.getHeaderValue(HttpHeaders.LAST_MODIFIED);
+    }
+
+    private static boolean isIdentityEncoded(HttpResponseResource response) {
+        // Ranges apply to the encoded content, but the client transparently decodes the content
+        String encoding = response.getHeaderValue(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || "identity".equalsIgnoreCase(encoding);
+    }
+
+    /**
+     * The content of a resource that is being downloaded, along with the record of the ranges which are complete:
+     * the chunk size followed by one byte for each range.
+     */
+    private static class PartialDownload {
+        private final File dataFile;
+        private final File rangesFile;
+        private final FileChannel data;
+        private final FileChannel ranges;
+        private final long length;
+        private final int chunkSize;
+        private final boolean[] completed;
+
+        private PartialDownload(File dataFile, File rangesFile, FileChannel data, FileChannel ranges, long length, int chunkSize, boolean[] completed) {
+            this.dataFile = dataFile;
+            this.rangesFile = rangesFile;
+            this.data = data;
+            this.ranges = ranges;
+            this.length = length;
+            this.chunkSize = chunkSize;
+            this.completed = completed;
+        }
+
+        @Nullable
+        static PartialDownload open(File dataFile, File rangesFile, long length, int chunkSize) throws IOException {
+            FileChannel ranges = FileChannel.open(rangesFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = ranges.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                ranges.close();
+                return null;
+            }
+            FileChannel data = null;
+            try {
+                data = FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                int rangeCount = (int) ((length + chunkSize - 1) / chunkSize);
+                boolean[] completed = new boolean[rangeCount];
+                if (!readCompletedRanges(ranges, data, length, chunkSize, completed)) {
+                    reset(ranges, data, length, chunkSize, rangeCount);
+                }
+                return new PartialDownload(dataFile, rangesFile, data, ranges, length, chunkSize, completed);
+            } catch (IOException | RuntimeException e) {
+                CompositeStoppable.stoppable(data, ranges).stop();
+                throw e;
+            }
+        }
+
+        private static boolean readCompletedRanges(FileChannel ranges, FileChannel data, long length, int chunkSize, boolean[] completed) throws IOException {
+            if (ranges.size() != HEADER_SIZE + completed.length || data.size() != length) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + completed.length);
+            while (buffer.hasRemaining()) {
+                if (ranges.read(buffer, buffer.position()) < 0) {
+                    return false;
+                }
+            }
+            buffer.flip();
+            if (buffer.getLong() != chunkSize) {
+                return false;
+            }
+            for (int i = 0; i < completed.length; i++) {
+                completed[i] = buffer.get() == RANGE_COMPLETE;
+            }
+            return true;
+        }
+
+        private static void reset(FileChannel ranges, FileChannel data, long length, int chunkSize, int rangeCount) throws IOException {
+            data.truncate(0);
+            if (length > 0) {
+                // Allocate the whole file up front, so that its length tells whether it can be resumed
+                writeFully(data, ByteBuffer.allocate(1), length - 1);
+            }
+            ranges.truncate(0);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + rangeCount);
+            buffer.putLong(chunkSize);
+            buffer.rewind();
+            writeFully(ranges, buffer, 0);
+        }
+
+        int getRangeCount() {
+            return completed.length;
+        }
+
+        int getCompletedRangeCount() {
+            int count = 0;
+            for (boolean complete : completed) {
+                if (complete) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean isComplete(int range) {
+            return completed[range];
+        }
+
+        long getStart(int range) {
+            return (long) range * chunkSize;
+        }
+
+        long getEnd(int range) {
+            return Math.min(length, getStart(range) + chunkSize);
+        }
+
+        void write(ByteBuffer buffer, long position) throws IOException {
+            writeFully(data, buffer, position);
+        }
+
+        int read(ByteBuffer buffer, long position) throws IOException {
+            return data.read(buffer, position);
+        }
+
+        synchronized void markComplete(int range) throws IOException {
+            data.force(false);
+            writeFully(ranges, ByteBuffer.wrap(new byte[]{RANGE_COMPLETE}), HEADER_SIZE + range);
+            completed[range] = true;
+        }
+
+        void close(boolean discard) {
+            // Closing the channel releases the lock
+            CompositeStoppable.stoppable(data, ranges).stop();
+            if (discard) {
+                GFileUtils.deleteQuietly(dataFile);
+                GFileUtils.deleteQuietly(rangesFile);
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    private static class ResourceChangedException extends IOException {
+        ResourceChangedException(String message) {
+            super(message);
+        }
+    }
+
+    private static class RangedDownload implements ExternalResourceReadResponse {
+        private final HttpClientHelper http;
+        private final HttpResponseResource response;
+        private final URI uri;
+        private final String validator;
+        private final PartialDownload partial;
+        private final List<CompletableFuture<Void>> ranges = new ArrayList<CompletableFuture<Void>>();
+        private volatile boolean cancelled;
+        private volatile boolean discard;
+        private boolean verified;
+        private boolean wasOpened;
+
+        RangedDownload(HttpClientHelper http, HttpResponseResource response, String validator, PartialDownload partial) {
+            this.http = http;
+            this.response = response;
+            this.uri = response.getURI();
+            this.validator = validator;
+            this.partial = partial;
+        }
+
+        void start(ManagedExecutor executor) {
+            if (partial.isComplete(0)) {
+                // The initial response would only repeat the first range
+                response.abort();
+            }
+            for (int i = 0; i < partial.getRangeCount(); i++) {
+                CompletableFuture<Void> result = new CompletableFuture<Void>();
+                ranges.add(result);
+                if (partial.isComplete(i)) {
+                    result.complete(null);
+                    continue;
+                }
+                final int range = i;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            downloadRange(range);
+                            result.complete(null);
+                        } catch (Throwable t) {
+                            result.completeExceptionally(t);
+                        }
+                    }
+                });
+            }
+        }
+
+        private void downloadRange(int range) throws IOException {
+            long position = partial.getStart(range);
+            long end = partial.getEnd(range);
+            IOException failure = null;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS_PER_RANGE && position < end && !cancelled; attempt++) {
+                try {
+                    if (range == 0 && attempt == 0) {
+                        // Read the first range from the response that started the download
+                        try {
+                            position = copy(response.openStream(), position, end);
+                        } finally {
+                            response.abort();
+                        }
+                    } else {
+                        HttpClientResponse rangeResponse = requestRange(position, end);
+                        try {
+                            position = copy(rangeResponse.getContent(), position, end);
+                        } finally {
+                            rangeResponse.abort();
+                        }
+                    }
+                } catch (ResourceChangedException e) {
+                    discard = true;
+                    throw e;
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to download range {} of {}.", range, uri, e);
+                    failure = e;
+                } catch (HttpRequestException e) {
+                    LOGGER.debug("Failed to download range {} of {}.", range, uri, e);
+                    failure = new IOException(e.getMessage(), e.getCause());
+                }
+            }
+            if (cancelled) {
+                throw new InterruptedIOException(String.format("Download of '%s' was cancelled.", uri));
+            }
+            if (position < end) {
+                throw failure != null ? failure : new IOException(String.format("Could not download range %d of '%s'.", range, uri));
+            }
+            partial.markComplete(range);
+        }
+
+        private HttpClientResponse requestRange(long start, long end) throws IOException {
+            HttpGet request = new HttpGet(uri);
+            request.addHeader(HttpHeaders.RANGE, "bytes=" + start + "-" + (end - 1));
+            // The server sends the whole resource instead of the range if it has changed
+            request.addHeader(HttpHeaders.IF_RANGE, validator);
+            HttpClientResponse rangeResponse = http.performRequest(request, false);
+            int statusCode = rangeResponse.getStatusLine().getStatusCode();
+            String contentRange = rangeResponse.getHeader(HttpHeaders.CONTENT_RANGE);
+            String expectedContentRange = "bytes " + start + "-" + (end - 1) + "/" + partial.length;
+            if (statusCode == 206 && expectedContentRange.equals(contentRange)) {
+                return rangeResponse;
+            }
+            rangeResponse.abort();
+            if (statusCode == 200 || statusCode == 206) {
+                throw new ResourceChangedException(String.format("Resource '%s' changed while it was being downloaded.", uri));
+            }
+            throw new IOException(String.format("Could not GET range of '%s'. Received status code %d from server: %s", uri, statusCode, rangeResponse.getStatusLine().getReasonPhrase()));
+        }
+
+        private long copy(InputStream input, long position, long end) throws IOException {
+            byte[] buffer = new byte[64 * 1024];
+            while (position < end && !cancelled) {
+                int read = input.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+                if (read < 0) {
+                    break;
+                }
+                partial.write(ByteBuffer.wrap(buffer, 0, read), position);
+                position += read;
+            }
+            return position;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            if (wasOpened) {
+                throw new IOException("Unable to open Stream as it was opened before.");
+            }
+            wasOpened = true;
+            return new RangedInputStream();
+        }
+
+        @Override
+        public ExternalResourceMetaData getMetaData() {
+            return response.getMetaData();
+        }
+
+        @Override
+        public void close() {
+            cancelled = true;
+            for (CompletableFuture<Void> range : ranges) {
+                try {
+                    range.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // Already reported to the consumer, or the consumer was not interested
+                }
+            }
+            response.abort();
+            partial.close(verified || discard);
+        }
+
+        private void awaitRange(int range) throws IOException {
+            try {
+                ranges.get(range).get();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException(String.format("Interrupted while downloading '%s'.", uri));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException(String.format("Could not download '%s'.", uri), cause);
+            }
+        }
+
+        private void verify(MessageDigest digest) throws IOException {
+            HashValue expected = response.getMetaData().getSha1();
+            if (expected != null) {
+                HashValue actual = new HashValue(digest.digest());
+                if (!expected.equals(actual)) {
+                    discard = true;
+                    throw new IOException(String.format("Downloaded content of '%s' has SHA1 %s, but the server reported %s.", uri, actual.asHexString(), expected.asHexString()));
+                }
+            }
+            verified = true;
+        }
+
+        private class RangedInputStream extends InputStream {
+            private final MessageDigest digest = createDigest();
+            private long position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] buffer = new byte[1];
+                int read = read(buffer, 0, 1);
+                return read < 0 ? -1 : buffer[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (position >= partial.length) {
+                    if (!verified) {
+                        verify(digest);
+                    }
+                    return -1;
+                }
+                int range = (int) (position / partial.chunkSize);
+                awaitRange(range);
+                int count = (int) Math.min(length, partial.getEnd(range) - position);
+                int read = partial.read(ByteBuffer.wrap(buffer, offset, count), position);
+                if (read < 0) {
+                    throw new IOException(String.format("Partial download of '%s' was truncated.", uri));
+                }
+                digest.update(buffer, offset, read);
+                position += read;
+                return read;
+            }
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -16,7 +16,10 @@
 
 package org.gradle.internal.resource.transport.http
 
+import org.apache.http.HttpStatus
+import org.apache.http.StatusLine
 import org.apache.http.client.methods.CloseableHttpResponse
+import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData
 import spock.lang.Specification
 
 class HttpResourceAccessorTest extends Specification {
@@ -34,4 +37,22 @@ class HttpResourceAccessorTest extends Specification {
         then:
         1 * response.close()
     }
+
+    def "revalidates resource with the validators of the cached metadata"() {
+        def lastModified = new Date(1000)
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, lastModified.time, 12, null, '"abc"', null)
+        def response = Mock(CloseableHttpResponse) {
+            getStatusLine() >> Stub(StatusLine) {
+                getStatusCode() >> HttpStatus.SC_NOT_MODIFIED
+            }
+        }
+        def http = Mock(HttpClientHelper)
+
+        when:
+        def resource = new HttpResourceAccessor(http).openResourceIfModified(uri, cachedMetaData)
+
+        then:
+        1 * http.performConditionalGet(uri.toString(), '"abc"', lastModified) >> new HttpClientResponse("GET", uri, response)
+        resource.unmodified
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.ssl.SSLContexts
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.hash.HashUtil
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+
+class ParallelRangeDownloaderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def executorFactory = new DefaultExecutorFactory()
+    def downloader = new ParallelRangeDownloader(executorFactory, 1000, 256, 3)
+    def http = new HttpClientHelper(httpSettings)
+    def content = new byte[2000]
+    def requests = new CopyOnWriteArrayList<String>()
+    def failingRanges = [] as Set
+    String sha1Header
+    HttpServer server
+
+    def setup() {
+        new Random(42).nextBytes(content)
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/file", { HttpExchange exchange -> serve(exchange) } as HttpHandler)
+        server.executor = Executors.newCachedThreadPool()
+        server.start()
+    }
+
+    def cleanup() {
+        server.stop(0)
+        server.executor.shutdownNow()
+        downloader.stop()
+        http.close()
+        executorFactory.stop()
+    }
+
+    def "downloads large resources in ranges"() {
+        when:
+        def response = accessor().openResource(uri, false)
+        def bytes = readAndClose(response)
+
+        then:
+        bytes == content
+        requests.first() == "full"
+        requests.contains("bytes=256-511")
+        requests.contains("bytes=1792-1999")
+        !requests.contains("bytes=0-255")
+        partialDownloads.list().length == 0
+    }
+
+    def "reads small resources directly"() {
+        def downloader = new ParallelRangeDownloader(executorFactory, 10000, 256, 3)
+
+        when:
+        def response = new HttpResourceAccessor(http, downloader, partialDownloads).openResource(uri, false)
+        def bytes = readAndClose(response)
+
+        then:
+        response instanceof HttpResponseResource
+        bytes == content
+        requests == ["full"]
+    }
+
+    def "resumes a failed download from the ranges already downloaded"() {
+        given:
+        failingRanges << 512
+
+        when:
+        readAndClose(accessor().openResource(uri, false))
+
+        then:
+        thrown(IOException)
+        requests.count { it == "bytes=512-767" } == 3
+        partialDownloads.list().length == 2
+
+        when:
+        failingRanges.clear()
+        requests.clear()
+        def bytes = readAndClose(accessor().openResource(uri, false))
+
+        then:
+        bytes == content
+        requests.contains("bytes=512-767")
+        !requests.contains("bytes=256-511")
+        partialDownloads.list().length == 0
+    }
+
+    def "discards the download when the checksum does not match"() {
+        given:
+        sha1Header = HashUtil.sha1("something else".bytes).asHexString()
+
+        when:
+        readAndClose(accessor().openResource(uri, false))
+
+        then:
+        def e = thrown(IOException)
+        e.message.contains("SHA1")
+        partialDownloads.list().length == 0
+    }
+
+    def "verifies the checksum reported by the server"() {
+        given:
+        sha1Header = HashUtil.sha1(content).asHexString()
+
+        expect:
+        readAndClose(accessor().openResource(uri, false)) == content
+    }
+
+    private HttpResourceAccessor accessor() {
+        new HttpResourceAccessor(http, downloader, partialDownloads)
+    }
+
+    private static byte[] readAndClose(def response) {
+        try {
+            return response.openStream().bytes
+        } finally {
+            response.close()
+        }
+    }
+
+    private File getPartialDownloads() {
+        temp.file("partial")
+    }
+
+    private URI getUri() {
+        new URI("http://127.0.0.1:${server.address.port}/file")
+    }
+
+    private void serve(HttpExchange exchange) {
+        try {
+            def headers = exchange.responseHeaders
+            headers.add("Accept-Ranges", "bytes")
+            headers.add("ETag", '"v1"')
+            if (sha1Header != null) {
+                headers.add("X-Checksum-Sha1", sha1Header)
+            }
+            def range = exchange.requestHeaders.getFirst("Range")
+            requests << (range ?: "full")
+            if (range == null) {
+                exchange.sendResponseHeaders(200, content.length)
+                exchange.responseBody.write(content)
+                return
+            }
+            def (start, end) = range.substring("bytes=".length()).split("-").collect { it as int }
+            if (failingRanges.contains(start)) {
+                exchange.sendResponseHeaders(500, -1)
+                return
+            }
+            headers.add("Content-Range", "bytes ${start}-${end}/${content.length}")
+            exchange.sendResponseHeaders(206, end - start + 1)
+            exchange.responseBody.write(content, start, end - start + 1)
+        } catch (IOException e) {
+            // The client closed the connection
+        } finally {
+            exchange.close()
+        }
+    }
+
+    private HttpSettings getHttpSettings() {
+        Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getTimeoutSettings() >> { new JavaSystemPropertiesHttpTimeoutSettings() }
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> SSLContexts.createDefault()
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.gradle.internal.resource;
 
 import org.gradle.api.Transformer;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 
 import java.io.File;
 import java.io.InputStream;
@@ -52,4 +53,9 @@ public <T> ExternalResourceReadResult<T> withContent(ContentAction<? extends T>
         }
         return result;
     }
+
+    @Override
+    public <T> ExternalResourceReadResult<T> withContentIfModified(ExternalResourceMetaData cachedMetaData, ContentAction<? extends T> readAction) {
+        return withContentIfPresent(readAction);
+    }
 }
@@ -108,6 +108,17 @@ public interface ExternalResource extends Resource {
     @Nullable
     <T> ExternalResourceReadResult<T> withContentIfPresent(ContentAction<? extends T> readAction) throws ResourceException;
 
+    /**
+     * Executes the given action against the binary contents and meta-data of this resource, if the resource exists and has been modified since
+     * it was read with the given meta-data. Where the transport supports it, this is done with a conditional request, so that the content of
+     * an unmodified resource is not transferred. Implementations that cannot tell whether the resource has been modified execute the action.
+     *
+     * @throws ResourceException on failure to read the content.
+     * @return null if the resource does not exist. When the resource has not been modified, the action is not executed and the result is {@link ExternalResourceReadResult#isUnmodified() unmodified}.
+     */
+    @Nullable
+    <T> ExternalResourceReadResult<T> withContentIfModified(ExternalResourceMetaData cachedMetaData, ContentAction<? extends T> readAction) throws ResourceException;
+
     /**
      * Copies the given content to this resource.
      *
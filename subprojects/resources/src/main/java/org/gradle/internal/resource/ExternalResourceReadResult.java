@@ -23,20 +23,32 @@
  */
 public class ExternalResourceReadResult<T> {
 
+    private static final ExternalResourceReadResult<?> UNMODIFIED = new ExternalResourceReadResult<Object>(0, null, true);
+
     private final long bytesRead;
     private final T result;
+    private final boolean unmodified;
 
-    private ExternalResourceReadResult(long bytesRead, T result) {
+    private ExternalResourceReadResult(long bytesRead, T result, boolean unmodified) {
         this.bytesRead = bytesRead;
         this.result = result;
+        this.unmodified = unmodified;
     }
 
     public static ExternalResourceReadResult<Void> of(long bytesRead) {
-        return new ExternalResourceReadResult<Void>(bytesRead, null);
+        return new ExternalResourceReadResult<Void>(bytesRead, null, false);
     }
 
     public static <T> ExternalResourceReadResult<T> of(long bytesRead, T t) {
-        return new ExternalResourceReadResult<T>(bytesRead, t);
+        return new ExternalResourceReadResult<T>(bytesRead, t, false);
+    }
+
+    /**
+     * The result of a conditional read of a resource that has not been modified, and whose content was not read.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExternalResourceReadResult<T> unmodified() {
+        return (ExternalResourceReadResult<T>) UNMODIFIED;
     }
 
     /**
@@ -62,4 +74,13 @@ public long getBytesRead() {
     public T getResult() {
         return result;
     }
+
+    /**
+     * Whether the content was not read, because the resource has not been modified since it was last read.
+     *
+     * @see ExternalResource#withContentIfModified(org.gradle.internal.resource.metadata.ExternalResourceMetaData, ExternalResource.ContentAction)
+     */
+    public boolean isUnmodified() {
+        return unmodified;
+    }
 }
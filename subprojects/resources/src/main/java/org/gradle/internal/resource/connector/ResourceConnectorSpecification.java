@@ -19,6 +19,8 @@
 import org.gradle.authentication.Authentication;
 import org.gradle.internal.verifier.HttpRedirectVerifier;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.util.Collection;
 
 public interface ResourceConnectorSpecification {
@@ -27,4 +29,10 @@ public interface ResourceConnectorSpecification {
     Collection<Authentication> getAuthentications();
 
     HttpRedirectVerifier getRedirectVerifier();
+
+    /**
+     * The directory to keep partially downloaded resources in, so that downloads can be resumed. Null when downloads cannot be resumed.
+     */
+    @Nullable
+    File getPartialDownloadsDirectory();
 }
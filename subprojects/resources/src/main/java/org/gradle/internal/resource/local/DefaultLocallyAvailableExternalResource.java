@@ -120,4 +120,11 @@ public <T> ExternalResourceReadResult<T> withContent(ContentAction<? extends T>
     public <T> ExternalResourceReadResult<T> withContentIfPresent(ContentAction<? extends T> readAction) throws ResourceException {
         return localFile.withContentIfPresent(readAction);
     }
+
+    @Override
+    @Nullable
+    public <T> ExternalResourceReadResult<T> withContentIfModified(ExternalResourceMetaData cachedMetaData, ContentAction<? extends T> readAction) throws ResourceException {
+        // The local copy is always current
+        return localFile.withContentIfPresent(readAction);
+    }
 }
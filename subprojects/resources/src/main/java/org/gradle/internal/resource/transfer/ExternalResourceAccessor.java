@@ -18,6 +18,7 @@
 
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaDataCompare;
 
 import javax.annotation.Nullable;
 import java.net.URI;
@@ -40,6 +41,32 @@ public interface ExternalResourceAccessor {
     @Nullable
     ExternalResourceReadResponse openResource(URI location, boolean revalidate) throws ResourceException;
 
+    /**
+     * Read the resource at the given location, unless it has not been modified since it was read with the given metadata.
+     *
+     * If the resource does not exist, this method should return null. If the resource has not been modified, this method
+     * should return a response that is {@link ExternalResourceReadResponse#isUnmodified() unmodified}.
+     *
+     * Implementations should use a conditional request where the transport supports it. By default, the metadata of the
+     * resource is fetched and compared with the given metadata before the resource is read.
+     *
+     * @param location The address of the resource to obtain
+     * @param cachedMetaData The metadata of the resource when it was last read
+     * @return The resource if it exists, otherwise null. Caller is responsible for closing the result.
+     * @throws ResourceException If the resource may exist, but not could be obtained for some reason.
+     */
+    @Nullable
+    default ExternalResourceReadResponse openResourceIfModified(URI location, ExternalResourceMetaData cachedMetaData) throws ResourceException {
+        ExternalResourceMetaData metaData = getMetaData(location, true);
+        if (metaData == null) {
+            return null;
+        }
+        if (ExternalResourceMetaDataCompare.isDefinitelyUnchanged(cachedMetaData, () -> metaData)) {
+            return new UnmodifiedExternalResourceReadResponse(metaData);
+        }
+        return openResource(location, true);
+    }
+
     /**
      * Obtains only the metadata about the resource.
      *
@@ -29,4 +29,13 @@ public interface ExternalResourceReadResponse extends Closeable {
     InputStream openStream() throws IOException;
 
     ExternalResourceMetaData getMetaData();
+
+    /**
+     * Returns true when this is the response to a conditional read of a resource that has not been modified. Such a response has no content.
+     *
+     * @see ExternalResourceAccessor#openResourceIfModified(java.net.URI, ExternalResourceMetaData)
+     */
+    default boolean isUnmodified() {
+        return false;
+    }
 }
@@ -115,6 +115,11 @@ class BuildOperationFiringExternalResourceDecoratorTest extends Specification {
             throw new UnsupportedOperationException()
         }
 
+        @Override
+        def <T> ExternalResourceReadResult<T> withContentIfModified(ExternalResourceMetaData cachedMetaData, ExternalResource.ContentAction<? extends T> readAction) throws ResourceException {
+            throw new UnsupportedOperationException()
+        }
+
         @Override
         ExternalResourceWriteResult put(ReadableContent source) throws ResourceException {
             throw new UnsupportedOperationException()
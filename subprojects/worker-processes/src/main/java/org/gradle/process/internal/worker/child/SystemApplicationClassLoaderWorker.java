@@ -30,10 +30,11 @@
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.services.LoggingServiceRegistry;
 import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.MessagingClient;
 import org.gradle.internal.remote.ObjectConnection;
-import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddressSerializer;
 import org.gradle.internal.remote.services.MessagingServices;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.InputStreamBackedDecoder;
@@ -97,7 +98,8 @@ public Void call() throws Exception {
         File gradleUserHomeDir = new File(gradleUserHomeDirPath);
 
         // Read server address and start connecting
-        MultiChoiceAddress serverAddress = new MultiChoiceAddressSerializer().read(decoder);
+        boolean sharedMemory = decoder.readBoolean();
+        Address serverAddress = sharedMemory ? new SharedMemoryAddressSerializer().read(decoder) : new MultiChoiceAddressSerializer().read(decoder);
         NativeServices.initialize(gradleUserHomeDir, false);
         DefaultServiceRegistry basicWorkerServices = new DefaultServiceRegistry(NativeServices.getInstance(), loggingServiceRegistry);
         basicWorkerServices.add(ExecutorFactory.class, new DefaultExecutorFactory());
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import org.gradle.internal.Cast;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.isolation.Isolatable;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter;
+import org.gradle.internal.state.DefaultManagedFactoryRegistry;
+import org.gradle.internal.state.Managed;
+import org.gradle.internal.state.ManagedFactory;
+import org.gradle.internal.state.ManagedFactoryRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Measures the cost of encoding and decoding isolated work parameters, as sent to a worker daemon with each request.
+ *
+ * The {@code bytesPerRequest} counter reports the encoded size of a single request.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class IsolatableSerializerBenchmark {
+    private static final ClassLoaderHierarchyHasher CLASS_LOADER_HASHER = new ClassLoaderHierarchyHasher() {
+        @Override
+        public HashCode getClassLoaderHash(ClassLoader classLoader) {
+            return HashCode.fromInt(123);
+        }
+    };
+
+    @Param({"1", "100"})
+    int fileCount;
+
+    private IsolatableSerializerRegistry serializerRegistry;
+    private Isolatable<?> parameters;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ManagedFactoryRegistry managedFactoryRegistry = new DefaultManagedFactoryRegistry().withFactories(new FileSetFactory());
+        serializerRegistry = IsolatableSerializerRegistry.create(CLASS_LOADER_HASHER, managedFactoryRegistry);
+
+        ImmutableList.Builder<File> files = ImmutableList.builder();
+        for (int i = 0; i < fileCount; i++) {
+            files.add(new File("build/classes/java/main/org/gradle/Thing" + i + ".class"));
+        }
+        Map<String, Object> values = ImmutableMap.<String, Object>builder()
+            .put("displayName", "compile Java")
+            .put("verbose", Boolean.FALSE)
+            .put("maxErrors", 100)
+            .put("timestamp", 1566393600000L)
+            .put("destinationDir", new File("build/classes/java/main"))
+            .put("sources", files.build())
+            .put("classpath", new FileSet(Sets.newLinkedHashSet(files.build())))
+            .build();
+        parameters = new DefaultValueSnapshotter(CLASS_LOADER_HASHER, managedFactoryRegistry).isolate(values);
+        encoded = encode();
+    }
+
+    @Benchmark
+    public void encode(Blackhole bh, EncodedSize size) throws Exception {
+        byte[] bytes = encode();
+        size.bytesPerRequest = bytes.length;
+        bh.consume(bytes);
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) throws Exception {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(encoded));
+        bh.consume(serializerRegistry.readIsolatable(decoder));
+    }
+
+    private byte[] encode() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializerRegistry.writeIsolatable(encoder, parameters);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodedSize {
+        public long bytesPerRequest;
+    }
+
+    /**
+     * An immutable managed value with a set of files as its state, in the style of a file collection parameter.
+     */
+    public static class FileSet implements Managed {
+        private final Set<File> files;
+
+        public FileSet(Set<File> files) {
+            this.files = files;
+        }
+
+        @Override
+        public Object unpackState() {
+            return files;
+        }
+
+        @Override
+        public boolean immutable() {
+            return true;
+        }
+
+        @Override
+        public Class<?> publicType() {
+            return FileSet.class;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return FileSetFactory.FACTORY_ID;
+        }
+    }
+
+    private static class FileSetFactory implements ManagedFactory {
+        private static final int FACTORY_ID = Objects.hashCode(FileSet.class.getName());
+
+        @Override
+        public <T> T fromState(Class<T> type, Object state) {
+            if (!type.isAssignableFrom(FileSet.class)) {
+                return null;
+            }
+            Set<File> files = Cast.uncheckedCast(state);
+            return type.cast(new FileSet(files));
+        }
+
+        @Override
+        public int getId() {
+            return FACTORY_ID;
+        }
+    }
+}
@@ -41,6 +41,19 @@ public interface WorkQueue {
      */
     <T extends WorkParameters> void submit(Class<? extends WorkAction<T>> workActionClass, Action<T> parameterAction);
 
+    /**
+     * Submits many pieces of work that use the same work action implementation to be executed asynchronously.  One piece
+     * of work is submitted for each of the given parameter actions.
+     *
+     * This behaves like calling {@link #submit(Class, Action)} for each parameter action, but the work is grouped into chunks that
+     * are scheduled, and reported as build operations, as a whole.  This is more efficient when submitting a large number of small
+     * pieces of work.  A failure of one piece of work does not prevent the other pieces in the same chunk from executing, and each
+     * failure is reported individually from {@link #await()} or from the surrounding task action.
+     *
+     * @since 6.0
+     */
+    <T extends WorkParameters> void submitAll(Class<? extends WorkAction<T>> workActionClass, Iterable<? extends Action<T>> parameterActions);
+
     /**
      * Blocks until all work associated with this queue is complete.  Note that when using this method inside
      * a task action, it will block completion of the task action until the submitted work is complete.  This means that other
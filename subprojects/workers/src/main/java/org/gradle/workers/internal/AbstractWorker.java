@@ -22,9 +22,13 @@
 import org.gradle.internal.operations.BuildOperationRef;
 import org.gradle.internal.operations.CallableBuildOperation;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public abstract class AbstractWorker implements BuildOperationAwareWorker {
 
     public static final Result RESULT = new Result();
+    public static final ChunkResult CHUNK_RESULT = new ChunkResult();
 
     private final BuildOperationExecutor buildOperationExecutor;
 
@@ -56,6 +60,33 @@ public BuildOperationDescriptor.Builder description() {
         });
     }
 
+    List<DefaultWorkResult> executeAllWrappedInBuildOperation(final String displayName, final List<? extends ActionExecutionSpec> specs, final BuildOperationRef parentBuildOperation, final Work work) {
+        return buildOperationExecutor.call(new CallableBuildOperation<List<DefaultWorkResult>>() {
+            @Override
+            public List<DefaultWorkResult> call(BuildOperationContext context) {
+                List<DefaultWorkResult> results = new ArrayList<DefaultWorkResult>(specs.size());
+                Throwable failure = null;
+                for (ActionExecutionSpec spec : specs) {
+                    DefaultWorkResult result = work.execute(spec);
+                    if (failure == null) {
+                        failure = result.getException();
+                    }
+                    results.add(result);
+                }
+                context.setResult(CHUNK_RESULT);
+                context.failed(failure);
+                return results;
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName(displayName)
+                    .parent(parentBuildOperation)
+                    .details(new ChunkDetails(getImplementationClassName(specs.get(0)), displayName, specs.size()));
+            }
+        });
+    }
+
     private static String getImplementationClassName(ActionExecutionSpec spec) {
         if (spec.getImplementationClass() == AdapterWorkAction.class) {
             AdapterWorkParameters parameters = (AdapterWorkParameters) spec.getParameters();
@@ -94,4 +125,36 @@ public String getDisplayName() {
     static class Result implements ExecuteWorkItemBuildOperationType.Result {
     }
 
+    static class ChunkDetails implements ExecuteWorkItemChunkBuildOperationType.Details {
+
+        private final String className;
+        private final String displayName;
+        private final int itemCount;
+
+        public ChunkDetails(String className, String displayName, int itemCount) {
+            this.className = className;
+            this.displayName = displayName;
+            this.itemCount = itemCount;
+        }
+
+        @Override
+        public String getClassName() {
+            return className;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public int getItemCount() {
+            return itemCount;
+        }
+
+    }
+
+    static class ChunkResult implements ExecuteWorkItemChunkBuildOperationType.Result {
+    }
+
 }
@@ -18,6 +18,14 @@
 
 import org.gradle.internal.operations.BuildOperationRef;
 
+import java.util.List;
+
 public interface BuildOperationAwareWorker extends Worker {
     DefaultWorkResult execute(ActionExecutionSpec spec, final BuildOperationRef parentBuildOperation);
+
+    /**
+     * Executes a chunk of work items one after the other, reporting a single build operation for the whole chunk.
+     * Returns the result of each work item, in the same order as the given specs.
+     */
+    List<DefaultWorkResult> executeAll(String displayName, List<? extends ActionExecutionSpec> specs, final BuildOperationRef parentBuildOperation);
 }
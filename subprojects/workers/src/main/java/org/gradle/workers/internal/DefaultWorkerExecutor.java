@@ -66,6 +66,7 @@
 
 public class DefaultWorkerExecutor implements WorkerExecutor {
     private final ConditionalExecutionQueue<DefaultWorkResult> executionQueue;
+    private final ConditionalExecutionQueue<DefaultWorkResult> inProcessExecutionQueue;
     private final WorkerFactory daemonWorkerFactory;
     private final WorkerFactory isolatedClassloaderWorkerFactory;
     private final WorkerFactory noIsolationWorkerFactory;
@@ -77,6 +78,7 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
     private final ClassLoaderStructureProvider classLoaderStructureProvider;
     private final ActionExecutionSpecFactory actionExecutionSpecFactory;
     private final Instantiator instantiator;
+    private final int maxChunkCount;
 
     public DefaultWorkerExecutor(WorkerFactory daemonWorkerFactory, WorkerFactory isolatedClassloaderWorkerFactory, WorkerFactory noIsolationWorkerFactory, JavaForkOptionsFactory forkOptionsFactory, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, AsyncWorkTracker asyncWorkTracker, WorkerDirectoryProvider workerDirectoryProvider, WorkerExecutionQueueFactory workerExecutionQueueFactory, ClassLoaderStructureProvider classLoaderStructureProvider, ActionExecutionSpecFactory actionExecutionSpecFactory, Instantiator instantiator) {
         this.daemonWorkerFactory = daemonWorkerFactory;
@@ -84,6 +86,7 @@ public DefaultWorkerExecutor(WorkerFactory daemonWorkerFactory, WorkerFactory is
         this.noIsolationWorkerFactory = noIsolationWorkerFactory;
         this.forkOptionsFactory = forkOptionsFactory;
         this.executionQueue = workerExecutionQueueFactory.create();
+        this.inProcessExecutionQueue = workerExecutionQueueFactory.createInProcessQueue();
         this.workerLeaseRegistry = workerLeaseRegistry;
         this.buildOperationExecutor = buildOperationExecutor;
         this.asyncWorkTracker = asyncWorkTracker;
@@ -91,6 +94,7 @@ public DefaultWorkerExecutor(WorkerFactory daemonWorkerFactory, WorkerFactory is
         this.classLoaderStructureProvider = classLoaderStructureProvider;
         this.actionExecutionSpecFactory = actionExecutionSpecFactory;
         this.instantiator = instantiator;
+        this.maxChunkCount = Math.max(1, workerExecutionQueueFactory.getMaxWorkerCount());
     }
 
     @Override
@@ -180,27 +184,64 @@ public void execute(T spec) {
     }
 
     private <T extends WorkParameters> AsyncWorkCompletion submitWork(Class<? extends WorkAction<T>> workActionClass, WorkerSpecInternal workerSpec, Action<T> parameterAction) {
+        T parameters = newParameters(getParameterType(workActionClass), parameterAction);
+        String description = getWorkerDisplayName(workActionClass, parameters);
+        DaemonForkOptions forkOptions = getDaemonForkOptions(workActionClass, workerSpec, parameters);
+        ActionExecutionSpec spec = newIsolatedSpec(description, workActionClass, parameters, forkOptions);
+
+        return submitWork(spec, workerSpec.getIsolationMode(), forkOptions);
+    }
+
+    private <T extends WorkParameters> List<AsyncWorkCompletion> submitAllWork(Class<? extends WorkAction<T>> workActionClass, WorkerSpecInternal workerSpec, Iterable<? extends Action<T>> parameterActions) {
+        Class<T> parameterType = getParameterType(workActionClass);
+        DaemonForkOptions forkOptions = null;
+        List<ActionExecutionSpec> specs = Lists.newArrayList();
+        for (Action<T> parameterAction : parameterActions) {
+            T parameters = newParameters(parameterType, parameterAction);
+            String description = getWorkerDisplayName(workActionClass, parameters);
+            if (forkOptions == null) {
+                // All items use the same action and parameter type, so they also share the same worker requirements
+                forkOptions = getDaemonForkOptions(workActionClass, workerSpec, parameters);
+            }
+            specs.add(newIsolatedSpec(description, workActionClass, parameters, forkOptions));
+        }
+
+        List<AsyncWorkCompletion> workItems = Lists.newArrayList();
+        if (specs.isEmpty()) {
+            return workItems;
+        }
+        int chunkSize = (specs.size() + maxChunkCount - 1) / maxChunkCount;
+        for (List<ActionExecutionSpec> chunk : Lists.partition(specs, chunkSize)) {
+            workItems.addAll(submitChunk(workActionClass.getName() + " (" + chunk.size() + " items)", chunk, workerSpec.getIsolationMode(), forkOptions));
+        }
+        return workItems;
+    }
+
+    private static <T extends WorkParameters> Class<T> getParameterType(Class<? extends WorkAction<T>> workActionClass) {
         ParameterizedType superType = (ParameterizedType) TypeToken.of(workActionClass).getSupertype(WorkAction.class).getType();
         Class<T> parameterType = Cast.uncheckedNonnullCast(TypeToken.of(superType.getActualTypeArguments()[0]).getRawType());
         if (parameterType == WorkParameters.class) {
             throw new IllegalArgumentException(String.format("Could not create worker parameters: must use a sub-type of %s as parameter type. Use %s for executions without parameters.", ModelType.of(WorkParameters.class).getDisplayName(), ModelType.of(WorkParameters.None.class).getDisplayName()));
         }
+        return parameterType;
+    }
+
+    @Nullable
+    private <T extends WorkParameters> T newParameters(Class<T> parameterType, Action<T> parameterAction) {
         T parameters = (parameterType == WorkParameters.None.class) ? null : instantiator.newInstance(parameterType);
         if (parameters != null) {
             parameterAction.execute(parameters);
         }
+        return parameters;
+    }
 
-        ActionExecutionSpec spec;
-        String description = getWorkerDisplayName(workActionClass, parameters);
-        DaemonForkOptions forkOptions = getDaemonForkOptions(workActionClass, workerSpec, parameters);
+    private <T extends WorkParameters> ActionExecutionSpec newIsolatedSpec(String description, Class<? extends WorkAction<T>> workActionClass, T parameters, DaemonForkOptions forkOptions) {
         try {
             // Isolate parameters in this thread prior to starting work in a separate thread
-            spec = actionExecutionSpecFactory.newIsolatedSpec(description, workActionClass, parameters, forkOptions.getClassLoaderStructure());
+            return actionExecutionSpecFactory.newIsolatedSpec(description, workActionClass, parameters, forkOptions.getClassLoaderStructure());
         } catch (Throwable t) {
             throw new WorkExecutionException(description, t);
         }
-
-        return submitWork(spec, workerSpec.getIsolationMode(), forkOptions);
     }
 
     private AsyncWorkCompletion submitWork(final ActionExecutionSpec spec, final IsolationMode isolationMode, final DaemonForkOptions daemonForkOptions) {
@@ -218,11 +259,37 @@ public DefaultWorkResult call() throws Exception {
                 }
             }
         });
-        executionQueue.submit(execution);
+        getExecutionQueue(isolationMode).submit(execution);
         asyncWorkTracker.registerWork(currentBuildOperation, execution);
         return execution;
     }
 
+    /**
+     * Submits a chunk of work items as a single execution, but registers each of its items, so that each failure is reported separately.
+     */
+    private List<AsyncWorkCompletion> submitChunk(final String displayName, final List<ActionExecutionSpec> specs, final IsolationMode isolationMode, final DaemonForkOptions daemonForkOptions) {
+        final WorkerLease currentWorkerWorkerLease = getCurrentWorkerLease();
+        final BuildOperationRef currentBuildOperation = buildOperationExecutor.getCurrentOperation();
+        WorkerFactory workerFactory = getWorkerFactory(isolationMode);
+        final List<DefaultWorkResult> results = Lists.newArrayListWithCapacity(specs.size());
+        WorkItemChunkExecution execution = new WorkItemChunkExecution(currentWorkerWorkerLease, new Callable<DefaultWorkResult>() {
+            @Override
+            public DefaultWorkResult call() throws Exception {
+                BuildOperationAwareWorker worker = workerFactory.getWorker(daemonForkOptions);
+                results.addAll(worker.executeAll(displayName, specs, currentBuildOperation));
+                return DefaultWorkResult.SUCCESS;
+            }
+        });
+        getExecutionQueue(isolationMode).submit(execution);
+        List<AsyncWorkCompletion> workItems = Lists.newArrayListWithCapacity(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            WorkItemInChunk workItem = new WorkItemInChunk(specs.get(i).getDisplayName(), execution, results, i);
+            asyncWorkTracker.registerWork(currentBuildOperation, workItem);
+            workItems.add(workItem);
+        }
+        return workItems;
+    }
+
     private static String getWorkerDisplayName(Class<?> workActionClass, WorkParameters parameters) {
         if (workActionClass == AdapterWorkAction.class) {
             AdapterWorkParameters adapterWorkParameters = (AdapterWorkParameters) parameters;
@@ -258,6 +325,17 @@ private WorkerFactory getWorkerFactory(IsolationMode isolationMode) {
         }
     }
 
+    private ConditionalExecutionQueue<DefaultWorkResult> getExecutionQueue(IsolationMode isolationMode) {
+        return isolationMode == IsolationMode.PROCESS ? executionQueue : inProcessExecutionQueue;
+    }
+
+    private void expandExecutionQueues() {
+        executionQueue.expand();
+        if (inProcessExecutionQueue != executionQueue) {
+            inProcessExecutionQueue.expand();
+        }
+    }
+
     /**
      * Wait for any outstanding work to complete.  Note that if there is uncompleted work associated
      * with the current build operation, we'll also temporarily expand the thread pool of the execution queue.
@@ -269,7 +347,7 @@ public void await() throws WorkerExecutionException {
         BuildOperationRef currentOperation = buildOperationExecutor.getCurrentOperation();
         try {
             if (asyncWorkTracker.hasUncompletedWork(currentOperation)) {
-                executionQueue.expand();
+                expandExecutionQueues();
             }
             asyncWorkTracker.waitForCompletion(currentOperation, RETAIN_PROJECT_LOCKS);
         } catch (DefaultMultiCauseException e) {
@@ -286,7 +364,7 @@ public boolean isSatisfiedBy(AsyncWorkCompletion workItem) {
                     return !workItem.isComplete();
                 }
             })) {
-                executionQueue.expand();
+                expandExecutionQueues();
             }
             asyncWorkTracker.waitForCompletion(currentOperation, workItems, RETAIN_PROJECT_LOCKS);
         } catch (DefaultMultiCauseException e) {
@@ -377,6 +455,51 @@ public void waitForCompletion() {
         }
     }
 
+    private static class WorkItemChunkExecution extends AbstractConditionalExecution<DefaultWorkResult> {
+        public WorkItemChunkExecution(WorkerLease parentWorkerLease, Callable<DefaultWorkResult> callable) {
+            super(callable, new LazyChildWorkerLeaseLock(parentWorkerLease));
+        }
+    }
+
+    private static class WorkItemInChunk implements AsyncWorkCompletion {
+        private final String description;
+        private final WorkItemChunkExecution chunk;
+        private final List<DefaultWorkResult> results;
+        private final int index;
+
+        public WorkItemInChunk(String description, WorkItemChunkExecution chunk, List<DefaultWorkResult> results, int index) {
+            this.description = description;
+            this.chunk = chunk;
+            this.results = results;
+            this.index = index;
+        }
+
+        @Override
+        public void waitForCompletion() {
+            DefaultWorkResult result;
+            try {
+                chunk.await();
+                result = results.get(index);
+            } catch (Throwable t) {
+                // The chunk could not be executed, so none of its items were
+                throw new WorkExecutionException(description, t);
+            }
+            if (!result.isSuccess()) {
+                throw new WorkExecutionException(description, result.getException());
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            return chunk.isComplete();
+        }
+
+        @Override
+        public void cancel() {
+            chunk.cancel();
+        }
+    }
+
     private static class LazyChildWorkerLeaseLock implements ResourceLock {
         private final WorkerLease parentWorkerLease;
         private WorkerLease child;
@@ -440,6 +563,11 @@ public <T extends WorkParameters> void submit(Class<? extends WorkAction<T>> wor
             workItems.add(workerExecutor.submitWork(workActionClass, spec, parameterAction));
         }
 
+        @Override
+        public <T extends WorkParameters> void submitAll(Class<? extends WorkAction<T>> workActionClass, Iterable<? extends Action<T>> parameterActions) {
+            workItems.addAll(workerExecutor.submitAllWork(workActionClass, spec, parameterActions));
+        }
+
         @Override
         public void await() throws WorkerExecutionException {
             workerExecutor.await(workItems);
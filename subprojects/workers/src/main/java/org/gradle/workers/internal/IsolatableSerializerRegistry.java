@@ -19,7 +19,9 @@
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.internal.Cast;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
@@ -52,10 +54,15 @@
 import org.gradle.internal.state.ManagedFactory;
 import org.gradle.internal.state.ManagedFactoryRegistry;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.gradle.internal.classloader.ClassLoaderUtils.*;
 
@@ -81,6 +88,16 @@ public class IsolatableSerializerRegistry extends DefaultSerializerRegistry {
     private static final byte ISOLATABLE_TYPE = (byte) 0;
     private static final byte ARRAY_TYPE = (byte) 1;
     private static final byte OTHER_TYPE = (byte) 2;
+    private static final byte NULL_TYPE = (byte) 3;
+    private static final byte STRING_TYPE = (byte) 4;
+    private static final byte FILE_TYPE = (byte) 5;
+    private static final byte SET_TYPE = (byte) 6;
+    private static final byte LIST_TYPE = (byte) 7;
+    private static final byte BOOLEAN_TYPE = (byte) 8;
+    private static final byte INTEGER_TYPE = (byte) 9;
+    private static final byte LONG_TYPE = (byte) 10;
+    private static final byte IMMUTABLE_SET_TYPE = (byte) 11;
+    private static final byte IMMUTABLE_LIST_TYPE = (byte) 12;
 
     private final Map<Byte, IsolatableSerializer<?>> isolatableSerializers = Maps.newHashMap();
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
@@ -144,31 +161,107 @@ private void writeIsolatableSequence(Encoder encoder, Collection<Isolatable<?>>
 
     private Object readState(Decoder decoder) throws Exception {
         byte stateType = decoder.readByte();
-        Object state;
-        if (stateType == ISOLATABLE_TYPE) {
-            state = readIsolatable(decoder);
-        } else if (stateType == ARRAY_TYPE) {
-            String stateClassName = decoder.readString();
-            Class<?> stateClass = fromClassName(stateClassName);
-            int size = decoder.readInt();
-            state = Array.newInstance(stateClass, size);
-            for (int i = 0; i < size; i++) {
-                Array.set(state, i, readState(decoder));
-            }
-        } else {
-            String stateClassName = decoder.readString();
-            Class<?> stateClass = fromClassName(stateClassName);
-            useJavaSerialization(stateClass);
-            state = build(stateClass).read(decoder);
+        switch (stateType) {
+            case ISOLATABLE_TYPE:
+                return readIsolatable(decoder);
+            case ARRAY_TYPE:
+                String componentClassName = decoder.readString();
+                Class<?> componentClass = fromClassName(componentClassName);
+                int size = decoder.readInt();
+                Object array = Array.newInstance(componentClass, size);
+                for (int i = 0; i < size; i++) {
+                    Array.set(array, i, readState(decoder));
+                }
+                return array;
+            case NULL_TYPE:
+                return null;
+            case STRING_TYPE:
+                return decoder.readString();
+            case FILE_TYPE:
+                return new File(decoder.readString());
+            case BOOLEAN_TYPE:
+                return decoder.readBoolean();
+            case INTEGER_TYPE:
+                return decoder.readInt();
+            case LONG_TYPE:
+                return decoder.readLong();
+            case SET_TYPE:
+                int setSize = decoder.readSmallInt();
+                Set<Object> set = Sets.newLinkedHashSetWithExpectedSize(setSize);
+                for (int i = 0; i < setSize; i++) {
+                    set.add(readState(decoder));
+                }
+                return set;
+            case IMMUTABLE_SET_TYPE:
+                int immutableSetSize = decoder.readSmallInt();
+                ImmutableSet.Builder<Object> immutableSet = ImmutableSet.builderWithExpectedSize(immutableSetSize);
+                for (int i = 0; i < immutableSetSize; i++) {
+                    immutableSet.add(readState(decoder));
+                }
+                return immutableSet.build();
+            case LIST_TYPE:
+                int listSize = decoder.readSmallInt();
+                List<Object> list = new ArrayList<Object>(listSize);
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readState(decoder));
+                }
+                return list;
+            case IMMUTABLE_LIST_TYPE:
+                int immutableListSize = decoder.readSmallInt();
+                ImmutableList.Builder<Object> immutableList = ImmutableList.builderWithExpectedSize(immutableListSize);
+                for (int i = 0; i < immutableListSize; i++) {
+                    immutableList.add(readState(decoder));
+                }
+                return immutableList.build();
+            case OTHER_TYPE:
+                String stateClassName = decoder.readString();
+                Class<?> stateClass = fromClassName(stateClassName);
+                useJavaSerialization(stateClass);
+                return build(stateClass).read(decoder);
+            default:
+                throw new IllegalArgumentException("Unexpected state type: " + stateType);
         }
-
-        return state;
     }
 
-    private void writeState(Encoder encoder, Object state) throws Exception {
-        if (state instanceof Isolatable) {
+    /**
+     * Writes the unpacked state of a managed value.  The types commonly used as state (strings, files, primitive wrappers and
+     * sets or lists of these) are written directly, anything else falls back to Java serialization.  Sets and lists are only written
+     * directly for the implementations they are read back as, so the state keeps its collection type.
+     */
+    private void writeState(Encoder encoder, @Nullable Object state) throws Exception {
+        if (state == null) {
+            encoder.writeByte(NULL_TYPE);
+        } else if (state instanceof Isolatable) {
             encoder.writeByte(ISOLATABLE_TYPE);
             writeIsolatable(encoder, (Isolatable<?>) state);
+        } else if (state instanceof String) {
+            encoder.writeByte(STRING_TYPE);
+            encoder.writeString((String) state);
+        } else if (state.getClass() == File.class) {
+            encoder.writeByte(FILE_TYPE);
+            encoder.writeString(((File) state).getPath());
+        } else if (state instanceof Boolean) {
+            encoder.writeByte(BOOLEAN_TYPE);
+            encoder.writeBoolean((Boolean) state);
+        } else if (state instanceof Integer) {
+            encoder.writeByte(INTEGER_TYPE);
+            encoder.writeInt((Integer) state);
+        } else if (state instanceof Long) {
+            encoder.writeByte(LONG_TYPE);
+            encoder.writeLong((Long) state);
+        } else if (state.getClass() == LinkedHashSet.class) {
+            encoder.writeByte(SET_TYPE);
+            writeStateSequence(encoder, (Set<?>) state);
+        } else if (state instanceof ImmutableSet && !(state instanceof ImmutableSortedSet)) {
+            // A sorted set would be read back without its comparator, so it falls back to Java serialization
+            encoder.writeByte(IMMUTABLE_SET_TYPE);
+            writeStateSequence(encoder, (Set<?>) state);
+        } else if (state.getClass() == ArrayList.class) {
+            encoder.writeByte(LIST_TYPE);
+            writeStateSequence(encoder, (List<?>) state);
+        } else if (state instanceof ImmutableList) {
+            encoder.writeByte(IMMUTABLE_LIST_TYPE);
+            writeStateSequence(encoder, (List<?>) state);
         } else if (state.getClass().isArray()) {
             encoder.writeByte(ARRAY_TYPE);
             encoder.writeString(state.getClass().getComponentType().getName());
@@ -186,6 +279,13 @@ private void writeState(Encoder encoder, Object state) throws Exception {
         }
     }
 
+    private void writeStateSequence(Encoder encoder, Collection<?> elements) throws Exception {
+        encoder.writeSmallInt(elements.size());
+        for (Object element : elements) {
+            writeState(encoder, element);
+        }
+    }
+
     private interface IsolatableSerializer<T extends Isolatable<?>> extends Serializer<T> {
         Class<T> getIsolatableClass();
     }
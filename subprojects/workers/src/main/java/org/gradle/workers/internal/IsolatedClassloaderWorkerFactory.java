@@ -22,6 +22,8 @@
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.workers.IsolationMode;
 
+import java.util.List;
+
 public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
     private final BuildOperationExecutor buildOperationExecutor;
     private final ServiceRegistry serviceRegistry;
@@ -46,6 +48,17 @@ public DefaultWorkResult execute(ActionExecutionSpec spec) {
                     }
                 });
             }
+
+            @Override
+            public List<DefaultWorkResult> executeAll(String displayName, List<? extends ActionExecutionSpec> specs, BuildOperationRef parentBuildOperation) {
+                return executeAllWrappedInBuildOperation(displayName, specs, parentBuildOperation, new Work() {
+                    @Override
+                    public DefaultWorkResult execute(ActionExecutionSpec spec) {
+                        ClassLoader workerInfrastructureClassloader = classLoaderRegistry.getPluginsClassLoader();
+                        return new IsolatedClassloaderWorker(forkOptions.getClassLoaderStructure(), workerInfrastructureClassloader, serviceRegistry).execute(spec);
+                    }
+                });
+            }
         };
     }
 
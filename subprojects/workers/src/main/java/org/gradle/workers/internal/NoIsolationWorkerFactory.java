@@ -26,6 +26,7 @@
 import org.gradle.workers.WorkerExecutor;
 
 import javax.annotation.Nullable;
+import java.util.List;
 
 public class NoIsolationWorkerFactory implements WorkerFactory {
     private final BuildOperationExecutor buildOperationExecutor;
@@ -51,28 +52,35 @@ public BuildOperationAwareWorker getWorker(final DaemonForkOptions forkOptions)
         final WorkerExecutor workerExecutor = this.workerExecutor;
         final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
         return new AbstractWorker(buildOperationExecutor) {
+            private final Work work = new Work() {
+                @Override
+                public DefaultWorkResult execute(ActionExecutionSpec spec) {
+                    DefaultWorkResult result;
+                    try {
+                        result = ClassLoaderUtils.executeInClassloader(contextClassLoader, new Factory<DefaultWorkResult>() {
+                            @Nullable
+                            @Override
+                            public DefaultWorkResult create() {
+                                return workerServer.execute(spec);
+                            }
+                        });
+                    } finally {
+                        //TODO the async work tracker should wait for children of an operation to finish first.
+                        //It should not be necessary to call it here.
+                        workerExecutor.await();
+                    }
+                    return result;
+                }
+            };
+
             @Override
             public DefaultWorkResult execute(ActionExecutionSpec spec, BuildOperationRef parentBuildOperation) {
-                return executeWrappedInBuildOperation(spec, parentBuildOperation, new Work() {
-                    @Override
-                    public DefaultWorkResult execute(ActionExecutionSpec spec) {
-                        DefaultWorkResult result;
-                        try {
-                            result = ClassLoaderUtils.executeInClassloader(contextClassLoader, new Factory<DefaultWorkResult>() {
-                                @Nullable
-                                @Override
-                                public DefaultWorkResult create() {
-                                    return workerServer.execute(spec);
-                                }
-                            });
-                        } finally {
-                            //TODO the async work tracker should wait for children of an operation to finish first.
-                            //It should not be necessary to call it here.
-                            workerExecutor.await();
-                        }
-                        return result;
-                    }
-                });
+                return executeWrappedInBuildOperation(spec, parentBuildOperation, work);
+            }
+
+            @Override
+            public List<DefaultWorkResult> executeAll(String displayName, List<? extends ActionExecutionSpec> specs, BuildOperationRef parentBuildOperation) {
+                return executeAllWrappedInBuildOperation(displayName, specs, parentBuildOperation, work);
             }
         };
     }
@@ -22,6 +22,9 @@
 import org.gradle.process.internal.health.memory.JvmMemoryStatus;
 import org.gradle.process.internal.worker.WorkerProcess;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class WorkerDaemonClient implements BuildOperationAwareWorker, Stoppable {
     public static final String DISABLE_EXPIRATION_PROPERTY_KEY = "org.gradle.workers.internal.disable-daemons-expiration";
     private final DaemonForkOptions forkOptions;
@@ -46,6 +49,15 @@ public DefaultWorkResult execute(final ActionExecutionSpec spec, final BuildOper
         return execute(spec);
     }
 
+    @Override
+    public List<DefaultWorkResult> executeAll(String displayName, List<? extends ActionExecutionSpec> specs, BuildOperationRef parentBuildOperation) {
+        List<DefaultWorkResult> results = new ArrayList<DefaultWorkResult>(specs.size());
+        for (ActionExecutionSpec spec : specs) {
+            results.add(execute(spec));
+        }
+        return results;
+    }
+
     @Override
     public DefaultWorkResult execute(ActionExecutionSpec spec) {
         uses++;
@@ -25,6 +25,8 @@
 import org.gradle.api.specs.Spec;
 import org.gradle.initialization.SessionLifecycleListener;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
@@ -41,14 +43,17 @@
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 
 public class WorkerDaemonClientsManager implements Stoppable {
 
     private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
+    public static final String PRESTART_DAEMONS_PROPERTY = "org.gradle.workers.internal.prestart-daemons";
 
     private final Object lock = new Object();
     private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
     private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
+    private final List<PrestartRequest> prestartRequests = new ArrayList<PrestartRequest>();
     private final Action<WorkerProcess> workerProcessCleanupAction = new WorkerProcessCleanupAction();
 
     private final WorkerDaemonStarter workerDaemonStarter;
@@ -59,9 +64,21 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final OutputEventListener logLevelChangeEventListener;
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
+    private final int maxPrestartedDaemons;
+    private final ManagedExecutor prestartExecutor;
     private volatile LogLevel currentLogLevel;
 
     public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+        this(workerDaemonStarter, listenerManager, loggingManager, memoryManager, memoryInfo, null, 0);
+    }
+
+    /**
+     * @param maxPrestartedDaemons the maximum number of session scoped worker daemons to start ahead of time at the start of
+     * each build, using the fork options of the session scoped daemons of the previous build. Zero disables pre-starting.
+     */
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory, int maxPrestartedDaemons) {
+        this.maxPrestartedDaemons = maxPrestartedDaemons;
+        this.prestartExecutor = maxPrestartedDaemons > 0 ? executorFactory.create("Worker daemon prestart") : null;
         this.workerDaemonStarter = workerDaemonStarter;
         this.listenerManager = listenerManager;
         this.loggingManager = loggingManager;
@@ -83,21 +100,30 @@ public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
 
     WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
         synchronized (lock) {
-            Iterator<WorkerDaemonClient> it = clients.iterator();
-            while (it.hasNext()) {
-                WorkerDaemonClient candidate = it.next();
+            // Prefer the most recently used daemon that has already executed work, as it has the worker classloader loaded
+            // and its JIT is warm. Fall back to a compatible daemon that has not executed any work yet (e.g. a pre-started one).
+            WorkerDaemonClient unused = null;
+            ListIterator<WorkerDaemonClient> it = clients.listIterator(clients.size());
+            while (it.hasPrevious()) {
+                WorkerDaemonClient candidate = it.previous();
                 if (candidate.isCompatibleWith(forkOptions)) {
-                    it.remove();
                     if (candidate.getLogLevel() != currentLogLevel) {
+                        it.remove();
                         // TODO: Send a message to workers to change their log level rather than stopping
                         LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
                         candidate.stop();
-                    } else {
+                    } else if (candidate.getUses() > 0) {
+                        it.remove();
                         return candidate;
+                    } else if (unused == null) {
+                        unused = candidate;
                     }
                 }
             }
-            return null;
+            if (unused != null) {
+                clients.remove(unused);
+            }
+            return unused;
         }
     }
 
@@ -106,6 +132,9 @@ public WorkerDaemonClient reserveNewClient(Class<? extends WorkerProtocol> worke
         WorkerDaemonClient client = workerDaemonStarter.startDaemon(workerProtocolImplementationClass, forkOptions, workerProcessCleanupAction);
         synchronized (lock) {
             allClients.add(client);
+            if (forkOptions.getKeepAliveMode() == KeepAliveMode.SESSION) {
+                recordPrestartRequest(workerProtocolImplementationClass, forkOptions);
+            }
         }
         return client;
     }
@@ -118,8 +147,64 @@ public void release(WorkerDaemonClient client) {
         }
     }
 
+    private void recordPrestartRequest(Class<? extends WorkerProtocol> workerProtocolImplementationClass, DaemonForkOptions forkOptions) {
+        if (maxPrestartedDaemons == 0) {
+            return;
+        }
+        int compatible = 0;
+        for (PrestartRequest request : prestartRequests) {
+            if (request.forkOptions.isCompatibleWith(forkOptions)) {
+                compatible++;
+            }
+        }
+        // Remember as many daemons per fork options as were used concurrently, forgetting the oldest ones beyond the configured limit
+        if (compatible < countCompatibleClients(forkOptions)) {
+            prestartRequests.add(new PrestartRequest(workerProtocolImplementationClass, forkOptions));
+            if (prestartRequests.size() > maxPrestartedDaemons) {
+                prestartRequests.remove(0);
+            }
+        }
+    }
+
+    private int countCompatibleClients(DaemonForkOptions forkOptions) {
+        int count = 0;
+        for (WorkerDaemonClient client : allClients) {
+            if (client.isCompatibleWith(forkOptions)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void prestartDaemons() {
+        final List<PrestartRequest> requests;
+        synchronized (lock) {
+            requests = new ArrayList<PrestartRequest>(prestartRequests);
+        }
+        for (final PrestartRequest request : requests) {
+            prestartExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        WorkerDaemonClient client = workerDaemonStarter.startDaemon(request.workerProtocolImplementationClass, request.forkOptions, workerProcessCleanupAction);
+                        synchronized (lock) {
+                            allClients.add(client);
+                            idleClients.add(client);
+                        }
+                    } catch (Exception e) {
+                        // The daemon will be started on demand instead
+                        LOGGER.info("Could not pre-start worker daemon with fork options {}.", request.forkOptions, e);
+                    }
+                }
+            });
+        }
+    }
+
     @Override
     public void stop() {
+        if (prestartExecutor != null) {
+            prestartExecutor.stop();
+        }
         synchronized (lock) {
             stopWorkers(allClients);
             allClients.clear();
@@ -187,7 +272,11 @@ private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
 
     private class StopSessionScopedWorkers implements SessionLifecycleListener {
         @Override
-        public void afterStart() { }
+        public void afterStart() {
+            if (prestartExecutor != null) {
+                prestartDaemons();
+            }
+        }
 
         @Override
         public void beforeComplete() {
@@ -213,6 +302,16 @@ public void onOutput(OutputEvent event) {
         }
     }
 
+    private static class PrestartRequest {
+        private final Class<? extends WorkerProtocol> workerProtocolImplementationClass;
+        private final DaemonForkOptions forkOptions;
+
+        PrestartRequest(Class<? extends WorkerProtocol> workerProtocolImplementationClass, DaemonForkOptions forkOptions) {
+            this.workerProtocolImplementationClass = workerProtocolImplementationClass;
+            this.forkOptions = forkOptions;
+        }
+    }
+
     private class WorkerProcessCleanupAction implements Action<WorkerProcess> {
         @Override
         public void execute(WorkerProcess workerProcess) {
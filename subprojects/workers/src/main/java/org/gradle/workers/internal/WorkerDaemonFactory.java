@@ -21,6 +21,8 @@
 import org.gradle.internal.operations.BuildOperationRef;
 import org.gradle.workers.IsolationMode;
 
+import java.util.List;
+
 /**
  * Controls the lifecycle of the worker daemon and provides access to it.
  */
@@ -52,6 +54,21 @@ public DefaultWorkResult execute(ActionExecutionSpec spec) {
                 }
             }
 
+            @Override
+            public List<DefaultWorkResult> executeAll(String displayName, List<? extends ActionExecutionSpec> specs, BuildOperationRef parentBuildOperation) {
+                final WorkerDaemonClient client = reserveClient();
+                try {
+                    return executeAllWrappedInBuildOperation(displayName, specs, parentBuildOperation, new Work() {
+                        @Override
+                        public DefaultWorkResult execute(ActionExecutionSpec spec) {
+                            return client.execute(spec);
+                        }
+                    });
+                } finally {
+                    clientsManager.release(client);
+                }
+            }
+
             private WorkerDaemonClient reserveClient() {
                 WorkerDaemonClient client = clientsManager.reserveIdleClient(forkOptions);
                 if (client == null) {
@@ -17,6 +17,7 @@
 package org.gradle.workers.internal;
 
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.work.ConditionalExecutionQueue;
 import org.gradle.internal.work.ConditionalExecutionQueueFactory;
@@ -25,11 +26,29 @@
 
 public class WorkerExecutionQueueFactory implements Factory<ConditionalExecutionQueue<DefaultWorkResult>>, Stoppable {
     public static final String QUEUE_DISPLAY_NAME = "WorkerExecutor Queue";
+    public static final String IN_PROCESS_QUEUE_DISPLAY_NAME = QUEUE_DISPLAY_NAME + " (in-process)";
+    public static final String WORK_STEALING_PROPERTY = "org.gradle.internal.workers.work-stealing";
     private final ConditionalExecutionQueueFactory conditionalExecutionQueueFactory;
+    private final int maxWorkerCount;
+    private final boolean workStealing;
     private ConditionalExecutionQueue<DefaultWorkResult> queue;
+    private ConditionalExecutionQueue<DefaultWorkResult> inProcessQueue;
 
-    public WorkerExecutionQueueFactory(ConditionalExecutionQueueFactory conditionalExecutionQueueFactory) {
+    public WorkerExecutionQueueFactory(ConditionalExecutionQueueFactory conditionalExecutionQueueFactory, int maxWorkerCount) {
+        this(conditionalExecutionQueueFactory, maxWorkerCount, Boolean.getBoolean(WORK_STEALING_PROPERTY));
+    }
+
+    public WorkerExecutionQueueFactory(ConditionalExecutionQueueFactory conditionalExecutionQueueFactory, int maxWorkerCount, boolean workStealing) {
         this.conditionalExecutionQueueFactory = conditionalExecutionQueueFactory;
+        this.maxWorkerCount = maxWorkerCount;
+        this.workStealing = workStealing;
+    }
+
+    /**
+     * Returns the maximum number of work items the queues will execute concurrently.
+     */
+    public int getMaxWorkerCount() {
+        return maxWorkerCount;
     }
 
     @Nullable
@@ -41,10 +60,22 @@ public ConditionalExecutionQueue<DefaultWorkResult> create() {
         return queue;
     }
 
+    /**
+     * Provides the queue for work items that run in the build process (no isolation or classloader isolation).  When work
+     * stealing is enabled this is a separate work-stealing queue, otherwise it is the same queue as {@link #create()}.
+     */
+    public ConditionalExecutionQueue<DefaultWorkResult> createInProcessQueue() {
+        if (!workStealing) {
+            return create();
+        }
+        if (inProcessQueue == null) {
+            inProcessQueue = conditionalExecutionQueueFactory.createWorkStealing(IN_PROCESS_QUEUE_DISPLAY_NAME, DefaultWorkResult.class);
+        }
+        return inProcessQueue;
+    }
+
     @Override
     public void stop() {
-        if (queue != null) {
-            queue.stop();
-        }
+        CompositeStoppable.stoppable(queue, inProcessQueue).stop();
     }
 }
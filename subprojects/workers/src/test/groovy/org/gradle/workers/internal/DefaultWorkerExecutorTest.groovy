@@ -69,6 +69,8 @@ class DefaultWorkerExecutorTest extends Specification {
 
     def setup() {
         _ * executionQueueFactory.create() >> executionQueue
+        _ * executionQueueFactory.createInProcessQueue() >> executionQueue
+        _ * executionQueueFactory.getMaxWorkerCount() >> 2
         _ * instantiator.newInstance(AdapterWorkParameters) >> parameters
         _ * instantiator.newInstance(DefaultWorkerSpec) >> { args -> new DefaultWorkerSpec() }
         _ * instantiator.newInstance(DefaultClassLoaderWorkerSpec) >> { args -> new DefaultClassLoaderWorkerSpec(objectFactory) }
@@ -214,6 +216,85 @@ class DefaultWorkerExecutorTest extends Specification {
         }
     }
 
+    def "executor submits a batch of work items in chunks"() {
+        def tasks = []
+
+        when:
+        workerExecutor.noIsolation().submitAll(TestExecutable.class, (1..5).collect { Actions.doNothing() })
+
+        then:
+        2 * buildOperationWorkerRegistry.getCurrentWorkerLease()
+        2 * executionQueue.submit(_) >> { args -> tasks << args[0] }
+        5 * asyncWorkTracker.registerWork(_, _)
+
+        when:
+        tasks[0].getExecution().run()
+
+        then:
+        1 * noIsolationWorkerFactory.getWorker(_) >> worker
+        1 * worker.executeAll(_, _, _) >> { displayName, specs, buildOperation ->
+            assert specs.size() == 3
+            return specs.collect { new DefaultWorkResult(true, null) }
+        }
+        0 * worker.execute(_, _)
+    }
+
+    def "reports the failure of each work item in a batch separately"() {
+        def tasks = []
+        def workItems = []
+        def failure1 = new RuntimeException("broken 1")
+        def failure3 = new RuntimeException("broken 3")
+        def specs = (1..3).collect { index -> Stub(IsolatedParametersActionExecutionSpec) { getDisplayName() >> "item ${index}" } }
+
+        when:
+        workerExecutor.noIsolation().submitAll(TestExecutable.class, (1..3).collect { Actions.doNothing() })
+
+        then:
+        3 * actionExecutionSpecFactory.newIsolatedSpec(_, _, _, _) >>> specs
+        2 * executionQueue.submit(_) >> { args -> tasks << args[0] }
+        3 * asyncWorkTracker.registerWork(_, _) >> { args -> workItems << args[1] }
+
+        when:
+        tasks[0].getExecution().run()
+        tasks[0].complete()
+
+        then:
+        1 * noIsolationWorkerFactory.getWorker(_) >> worker
+        1 * worker.executeAll(_, _, _) >> [new DefaultWorkResult(true, failure1), DefaultWorkResult.SUCCESS]
+
+        and:
+        workItems[0].isComplete()
+        workItems[1].isComplete()
+        !workItems[2].isComplete()
+
+        when:
+        workItems[0].waitForCompletion()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.message == "A failure occurred while executing item 1"
+        e.cause.is(failure1)
+
+        when:
+        workItems[1].waitForCompletion()
+
+        then:
+        noExceptionThrown()
+
+        when:
+        tasks[1].getExecution().run()
+        tasks[1].complete()
+        workItems[2].waitForCompletion()
+
+        then:
+        1 * noIsolationWorkerFactory.getWorker(_) >> { throw failure3 }
+
+        and:
+        def chunkFailure = thrown(RuntimeException)
+        chunkFailure.message == "A failure occurred while executing item 3"
+        chunkFailure.cause.is(failure3)
+    }
+
     abstract static class TestExecutable implements WorkAction<WorkParameters.None> {
         @Override
         void execute() {
@@ -16,6 +16,10 @@
 
 package org.gradle.workers.internal
 
+import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableSet
+import com.google.common.collect.ImmutableSortedSet
+import com.google.common.collect.Ordering
 import org.gradle.api.attributes.Attribute
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher
 import org.gradle.internal.hash.HashCode
@@ -30,9 +34,13 @@ import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter
 import org.gradle.internal.snapshot.impl.IsolatedImmutableManagedValue
 import org.gradle.internal.snapshot.impl.IsolatedManagedValue
 import org.gradle.internal.snapshot.impl.IsolatedSerializedValueSnapshot
+import org.gradle.internal.state.DefaultManagedFactoryRegistry
+import org.gradle.internal.state.Managed
+import org.gradle.internal.state.ManagedFactory
 import org.gradle.util.TestUtil
 import org.gradle.workers.fixtures.TestManagedTypes
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class IsolatableSerializerRegistryTest extends Specification {
     def managedFactoryRegistry = TestUtil.managedFactoryRegistry()
@@ -190,6 +198,66 @@ class IsolatableSerializerRegistryTest extends Specification {
         newIsolatables[1].isolate().name == "baz"
     }
 
+    @Unroll
+    def "can serialize/deserialize immutable Managed values with #description state"() {
+        when:
+        def newValue = serializeState(state)
+
+        then:
+        newValue.state == state
+        newValue.state.toString() == state.toString()
+        type == null ? newValue.state == null : type.isInstance(newValue.state)
+
+        where:
+        description     | state                                | type
+        "null"          | null                                 | null
+        "String"        | "foo"                                | String
+        "File"          | new File("foo")                      | File
+        "Boolean"       | true                                 | Boolean
+        "Integer"       | 32768                                | Integer
+        "Long"          | 2147483649L                          | Long
+        "LinkedHashSet" | new LinkedHashSet(["foo", "bar"])    | LinkedHashSet
+        "ImmutableSet"  | ImmutableSet.of("foo", "bar")        | ImmutableSet
+        "ArrayList"     | new ArrayList(["foo", null, "bar"])  | ArrayList
+        "ImmutableList" | ImmutableList.of("foo", "bar")       | ImmutableList
+        "empty Set"     | ImmutableSet.of()                    | ImmutableSet
+        "other Set"     | new TreeSet(["foo", "bar"])          | TreeSet
+        "other List"    | new LinkedList(["foo", "bar"])       | LinkedList
+        "sorted Set"    | ImmutableSortedSet.of("foo", "bar")  | ImmutableSortedSet
+    }
+
+    def "can serialize/deserialize immutable Managed values with a sorted set as state"() {
+        def state = ImmutableSortedSet.orderedBy(Ordering.natural().reverse()).add("foo", "bar", "baz").build()
+
+        when:
+        def newValue = serializeState(state)
+
+        then:
+        newValue.state == state
+        newValue.state instanceof ImmutableSortedSet
+        newValue.state.comparator() == Ordering.natural().reverse()
+        newValue.state as List == ["foo", "baz", "bar"]
+    }
+
+    def "can serialize/deserialize immutable Managed values with nested collections as state"() {
+        def state = ImmutableList.of(
+            ImmutableSet.of(new File("foo"), new File("bar")),
+            new LinkedHashSet([1L, true]),
+            new ArrayList([null, "foo", ImmutableList.of(1)])
+        )
+
+        when:
+        def newValue = serializeState(state)
+
+        then:
+        newValue.state == state
+        newValue.state instanceof ImmutableList
+        newValue.state[0] instanceof ImmutableSet
+        newValue.state[1] instanceof LinkedHashSet
+        newValue.state[2] instanceof ArrayList
+        newValue.state[2][2] instanceof ImmutableList
+    }
+
     def "can serialize/deserialize isolated File values"() {
         File file1 = new File("foo")
         File file2 = new File("bar")
@@ -356,8 +424,58 @@ class IsolatableSerializerRegistryTest extends Specification {
         return isolatables as Isolatable<?>[]
     }
 
+    StateHolder serializeState(Object state) {
+        def registry = new DefaultManagedFactoryRegistry().withFactories(new StateHolderFactory())
+        def stateSerializer = IsolatableSerializerRegistry.create(classLoaderHasher, registry)
+        stateSerializer.writeIsolatable(encoder, new IsolatedImmutableManagedValue(new StateHolder(state), registry))
+        encoder.flush()
+        def decoder = new KryoBackedDecoder(new ByteArrayInputStream(outputStream.toByteArray()))
+        return stateSerializer.readIsolatable(decoder).isolate() as StateHolder
+    }
+
     static class SomeType { }
 
+    static class StateHolder implements Managed {
+        static final int FACTORY_ID = 12345
+        final Object state
+
+        StateHolder(Object state) {
+            this.state = state
+        }
+
+        @Override
+        Object unpackState() {
+            return state
+        }
+
+        @Override
+        boolean immutable() {
+            return true
+        }
+
+        @Override
+        Class<?> publicType() {
+            return StateHolder
+        }
+
+        @Override
+        int getFactoryId() {
+            return FACTORY_ID
+        }
+    }
+
+    static class StateHolderFactory implements ManagedFactory {
+        @Override
+        <T> T fromState(Class<T> type, Object state) {
+            return type.cast(new StateHolder(state))
+        }
+
+        @Override
+        int getId() {
+            return StateHolder.FACTORY_ID
+        }
+    }
+
     static class SerializableType implements Serializable {
         final String foo
 
@@ -19,6 +19,8 @@ package org.gradle.workers.internal
 import org.gradle.api.Transformer
 import org.gradle.api.logging.LogLevel
 import org.gradle.initialization.SessionLifecycleListener
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.exceptions.DefaultMultiCauseException
@@ -68,6 +70,19 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         input == [noMatch] //match removed from input
     }
 
+    def "prefers most recently used idle client that has already executed work"() {
+        def unused = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true; getUses() >> 0 }
+        def used = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true; getUses() >> 3 }
+        def recentlyUsed = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true; getUses() >> 1 }
+        def input = [used, recentlyUsed, unused]
+
+        expect:
+        manager.reserveIdleClient(options, input) == recentlyUsed
+        manager.reserveIdleClient(options, input) == used
+        manager.reserveIdleClient(options, input) == unused
+        input.empty
+    }
+
     def "reserves new client"() {
         def newClient = Stub(WorkerDaemonClient)
         starter.startDaemon(serverImpl.class, options, _) >> newClient
@@ -187,6 +202,63 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         0 * client2.stop()
     }
 
+    def "pre-starts session-scoped clients of the previous build when a new build starts"() {
+        listenerManager = new DefaultListenerManager()
+        def executor = Stub(ManagedExecutor) {
+            execute(_) >> { Runnable runnable -> runnable.run() }
+        }
+        def executorFactory = Stub(ExecutorFactory) {
+            create(_) >> executor
+        }
+        def sessionOptions = Stub(DaemonForkOptions) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+        }
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory, 4)
+        def client1 = Mock(WorkerDaemonClient) { isCompatibleWith(_) >> true }
+        def client2 = Mock(WorkerDaemonClient) { isCompatibleWith(_) >> true }
+        def prestarted1 = Mock(WorkerDaemonClient) { isCompatibleWith(_) >> true }
+        def prestarted2 = Mock(WorkerDaemonClient) { isCompatibleWith(_) >> true }
+        starter.startDaemon(serverImpl.class, sessionOptions, _) >>> [client1, client2, prestarted1, prestarted2]
+
+        when:
+        manager.reserveNewClient(serverImpl.class, sessionOptions)
+        manager.reserveNewClient(serverImpl.class, sessionOptions)
+        listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+
+        then:
+        _ * client1.getKeepAliveMode() >> KeepAliveMode.SESSION
+        _ * client2.getKeepAliveMode() >> KeepAliveMode.SESSION
+        1 * client1.stop()
+        1 * client2.stop()
+
+        when:
+        listenerManager.getBroadcaster(SessionLifecycleListener).afterStart()
+
+        then:
+        manager.reserveIdleClient(sessionOptions) in [prestarted1, prestarted2]
+        manager.reserveIdleClient(sessionOptions) in [prestarted1, prestarted2]
+        manager.reserveIdleClient(sessionOptions) == null
+    }
+
+    def "does not pre-start clients when disabled"() {
+        listenerManager = new DefaultListenerManager()
+        def sessionOptions = Stub(DaemonForkOptions) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+        }
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        def client = Mock(WorkerDaemonClient) { isCompatibleWith(_) >> true }
+        starter.startDaemon(serverImpl.class, sessionOptions, _) >> client
+
+        when:
+        manager.reserveNewClient(serverImpl.class, sessionOptions)
+        listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(SessionLifecycleListener).afterStart()
+
+        then:
+        _ * client.getKeepAliveMode() >> KeepAliveMode.SESSION
+        manager.reserveIdleClient(sessionOptions) == null
+    }
+
     def "clients can be released for further use"() {
         def client = Mock(WorkerDaemonClient) {
             isCompatibleWith(_) >> true